@@ -0,0 +1,81 @@
+package com.leanpay.loancalculator.cache;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.mapper.InstallmentMapper;
+import com.leanpay.loancalculator.mapper.LoanCalculationResponseMapper;
+import com.leanpay.loancalculator.service.AmortizationCalculator;
+import com.leanpay.loancalculator.service.AmortizationEngine;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Redis value size and (de)serialization cost of the JSON and the binary cache format.
+ * Encoded sizes are reported as auxiliary counters ({@code jsonBytes}, {@code binaryBytes}).
+ */
+@State(Scope.Benchmark)
+public class LoanResponseSerializerBenchmark {
+
+    @Param({"2", "12", "60", "120", "360", "600"})
+    int numberOfMonths;
+
+    private final RedisSerializer<Object> json = RedisSerializer.json();
+    private final RedisSerializer<Object> binary = new LoanResponseRedisSerializer(json, true);
+
+    private LoanResponse response;
+    private byte[] jsonValue;
+    private byte[] binaryValue;
+
+    @Setup
+    public void setUp() {
+        AmortizationCalculator calculator = new AmortizationCalculator(
+                CalculationProperties.defaults()
+                        .withSimulatedDelay(Duration.ZERO)
+                        // BigDecimal rows, the format both serializers read back
+                        .withEngine(AmortizationEngine.BIG_DECIMAL));
+        LoanCalculationResponseMapper responseMapper = new LoanCalculationResponseMapper(new InstallmentMapper());
+
+        response = responseMapper.toResponse(calculator.calculateAndBuildLoan(new LoanCalculationRequest(
+                new BigDecimal("25000"),
+                new BigDecimal("5.5"),
+                numberOfMonths
+        )));
+        jsonValue = json.serialize(response);
+        binaryValue = binary.serialize(response);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long jsonBytes;
+        public long binaryBytes;
+    }
+
+    @Benchmark
+    public byte[] serializeJson(EncodedSize size) {
+        byte[] value = json.serialize(response);
+        size.jsonBytes = value.length;
+        return value;
+    }
+
+    @Benchmark
+    public byte[] serializeBinary(EncodedSize size) {
+        byte[] value = binary.serialize(response);
+        size.binaryBytes = value.length;
+        return value;
+    }
+
+    @Benchmark
+    public Object deserializeJson() {
+        return json.deserialize(jsonValue);
+    }
+
+    @Benchmark
+    public Object deserializeBinary() {
+        return binary.deserialize(binaryValue);
+    }
+}
@@ -0,0 +1,61 @@
+package com.leanpay.loancalculator.mapper;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.InstallmentDto;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.entity.Loan;
+import com.leanpay.loancalculator.service.AmortizationCalculator;
+import com.leanpay.loancalculator.service.AmortizationEngine;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class LoanResponseMappingBenchmark {
+
+    @Param({"2", "12", "60", "120", "360", "600"})
+    int numberOfMonths;
+
+    private final InstallmentMapper installmentMapper = new InstallmentMapper();
+    private final LoanCalculationResponseMapper responseMapper =
+            new LoanCalculationResponseMapper(installmentMapper);
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private Loan loan;
+    private LoanResponse response;
+
+    @Setup
+    public void setUp() {
+        AmortizationCalculator calculator = new AmortizationCalculator(
+                CalculationProperties.defaults()
+                        .withSimulatedDelay(Duration.ZERO)
+                        // maps installment rows, the fixed-point path is in LoanPipelineAllocationBenchmark
+                        .withEngine(AmortizationEngine.BIG_DECIMAL));
+        loan = calculator.calculateAndBuildLoan(new LoanCalculationRequest(
+                new BigDecimal("25000"),
+                new BigDecimal("5.5"),
+                numberOfMonths
+        ));
+        response = responseMapper.toResponse(loan);
+    }
+
+    @Benchmark
+    public List<InstallmentDto> toDtoList() {
+        return installmentMapper.toDtoList(loan.getInstallments());
+    }
+
+    @Benchmark
+    public LoanResponse toResponse() {
+        return responseMapper.toResponse(loan);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,77 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.entity.Installment;
+import com.leanpay.loancalculator.entity.InstallmentSchedule;
+import com.leanpay.loancalculator.entity.Loan;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class AmortizationCalculatorBenchmark {
+
+    @Param({"2", "12", "60", "120", "360", "600"})
+    int numberOfMonths;
+
+    private AmortizationCalculator calculator;
+    private AmortizationCalculator fixedPointCalculator;
+    private LoanCalculationRequest request;
+    private BigDecimal monthlyRate;
+    private BigDecimal monthlyPayment;
+
+    @Setup
+    public void setUp() {
+        CalculationProperties properties = CalculationProperties.defaults().withSimulatedDelay(Duration.ZERO);
+        calculator = new AmortizationCalculator(properties.withEngine(AmortizationEngine.BIG_DECIMAL));
+        fixedPointCalculator = new AmortizationCalculator(properties.withEngine(AmortizationEngine.FIXED_POINT));
+        request = new LoanCalculationRequest(
+                new BigDecimal("25000"),
+                new BigDecimal("5.5"),
+                numberOfMonths
+        );
+        monthlyRate = calculator.getMonthlyInterestRate(request.annualInterestRate());
+        monthlyPayment = calculator.calculateMonthlyPayment(request);
+    }
+
+    @Benchmark
+    public Loan calculateAndBuildLoan() {
+        return calculator.calculateAndBuildLoan(request);
+    }
+
+    @Benchmark
+    public Loan calculateAndBuildLoanFixedPoint() {
+        return fixedPointCalculator.calculateAndBuildLoan(request);
+    }
+
+    @Benchmark
+    public List<Installment> generateInstallments() {
+        return calculator.generateInstallments(request, monthlyRate, monthlyPayment);
+    }
+
+    @Benchmark
+    public InstallmentSchedule generateInstallmentsFixedPoint() {
+        return FixedPointSchedule.compute(request.amount(), monthlyRate, monthlyPayment, numberOfMonths)
+                .orElseThrow()
+                .toSchedule();
+    }
+
+    @Benchmark
+    public FixedPointSchedule computeFixedPointSchedule() {
+        return FixedPointSchedule.compute(request.amount(), monthlyRate, monthlyPayment, numberOfMonths)
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public BigDecimal calculateMonthlyPayment() {
+        return calculator.calculateMonthlyPayment(request);
+    }
+
+    @Benchmark
+    public BigDecimal calculateMonthlyPaymentExact() {
+        return calculator.calculateMonthlyPaymentExact(request.amount(), monthlyRate, numberOfMonths);
+    }
+}
@@ -0,0 +1,68 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.cache.LoanResponseRedisSerializer;
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.mapper.InstallmentMapper;
+import com.leanpay.loancalculator.mapper.LoanCalculationResponseMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Calculated loan to cached Redis value and cached response to JSON body, per engine. The BigDecimal
+ * engine creates an {@code Installment} and an {@code InstallmentDto} per row, the fixed-point engine
+ * keeps the plan in long cents until the JSON is written.
+ * <p>
+ * Compare {@code gc.alloc.rate.norm} (bytes per operation) of both engines, reported by the GC profiler
+ * configured in {@code build.gradle}: {@code ./gradlew jmh -PjmhIncludes=LoanPipelineAllocationBenchmark}
+ * (plain JMH: {@code -prof gc}).
+ */
+@State(Scope.Benchmark)
+public class LoanPipelineAllocationBenchmark {
+
+    @Param({"12", "120", "360", "600"})
+    int numberOfMonths;
+
+    @Param({"BIG_DECIMAL", "FIXED_POINT"})
+    AmortizationEngine engine;
+
+    private final LoanCalculationResponseMapper responseMapper =
+            new LoanCalculationResponseMapper(new InstallmentMapper());
+    private final RedisSerializer<Object> serializer =
+            new LoanResponseRedisSerializer(RedisSerializer.json(), true);
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private AmortizationCalculator calculator;
+    private LoanCalculationRequest request;
+    private LoanResponse response;
+
+    @Setup
+    public void setUp() {
+        calculator = new AmortizationCalculator(
+                CalculationProperties.defaults()
+                        .withSimulatedDelay(Duration.ZERO)
+                        .withEngine(engine));
+        request = new LoanCalculationRequest(
+                new BigDecimal("25000"),
+                new BigDecimal("5.5"),
+                numberOfMonths
+        );
+        response = responseMapper.toResponse(calculator.calculateAndBuildLoan(request));
+    }
+
+    @Benchmark
+    public byte[] calculateAndCache() {
+        return serializer.serialize(responseMapper.toResponse(calculator.calculateAndBuildLoan(request)));
+    }
+
+    @Benchmark
+    public byte[] writeJson() {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -1,14 +1,21 @@
 package com.leanpay.loancalculator.cache;
 
+import com.leanpay.loancalculator.config.ResponseCacheProperties;
+import com.leanpay.loancalculator.service.PersistedLoanKeyFilter;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 @Configuration
@@ -18,12 +25,28 @@ public class CacheConfig {
     public static final String FULL_RESPONSE_CACHE = "fullResponse";
     public static final String STATUS_RESPONSE_CACHE = "statusResponse";
 
+    public static final Duration FULL_RESPONSE_TTL = Duration.ofMinutes(10);
+    public static final Duration STATUS_RESPONSE_TTL = Duration.ofSeconds(5);
+
+    public static String redisKey(String cacheName, String key) {
+        return CacheKeyPrefix.simple().compute(cacheName) + key;
+    }
+
+    @Bean
+    public RedisSerializer<Object> cacheValueSerializer(ResponseCacheProperties properties) {
+        return new LoanResponseRedisSerializer(
+                RedisSerializer.json(),
+                properties.valueFormat() == CacheValueFormat.BINARY
+        );
+    }
+
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory factory) {
+    public RedisCacheManager cacheManager(RedisConnectionFactory factory,
+                                          RedisSerializer<Object> cacheValueSerializer) {
 
         RedisSerializationContext.SerializationPair<Object> jsonSerializer =
                 RedisSerializationContext.SerializationPair.fromSerializer(
-                        RedisSerializer.json()
+                        cacheValueSerializer
                 );
 
         RedisCacheConfiguration baseConfig =
@@ -32,10 +55,10 @@ public class CacheConfig {
                         .disableCachingNullValues();
 
         RedisCacheConfiguration statusCacheConfig =
-                baseConfig.entryTtl(Duration.ofSeconds(5));
+                baseConfig.entryTtl(STATUS_RESPONSE_TTL);
 
         RedisCacheConfiguration fullCacheConfig =
-                baseConfig.entryTtl(Duration.ofMinutes(10));
+                baseConfig.entryTtl(FULL_RESPONSE_TTL);
 
         return RedisCacheManager.builder(factory)
                 .withCacheConfiguration(
@@ -49,4 +72,54 @@ public class CacheConfig {
                 .build();
     }
 
+    /**
+     * Raw access to the cache entries (same keys and value format as {@link #cacheManager})
+     * for multi-key operations the Spring {@code Cache} abstraction does not offer.
+     */
+    @Bean
+    public RedisTemplate<String, Object> cacheRedisTemplate(RedisConnectionFactory factory,
+                                                            RedisSerializer<Object> cacheValueSerializer) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(cacheValueSerializer);
+        return template;
+    }
+
+    @Bean
+    public RedisTemplate<String, byte[]> bodyRedisTemplate(RedisConnectionFactory factory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        return template;
+    }
+
+    /**
+     * Keeps the on-heap L1 of {@link LoanCacheFacade} coherent across instances and wakes up
+     * {@link LoanCompletionNotifier} waiters of loans calculated on another instance. Keys persisted
+     * by other instances are added to the {@link PersistedLoanKeyFilter}.
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory factory,
+                                                                            LoanCacheFacade loanCacheFacade,
+                                                                            LoanCompletionNotifier completionNotifier,
+                                                                            PersistedLoanKeyFilter keyFilter) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(
+                (message, pattern) -> loanCacheFacade.onInvalidation(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(LoanCacheFacade.INVALIDATION_CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> completionNotifier.onCompletion(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(LoanCompletionNotifier.COMPLETION_CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> keyFilter.onPersisted(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(PersistedLoanKeyFilter.PERSISTED_CHANNEL));
+        return container;
+    }
+
 }
@@ -0,0 +1,45 @@
+package com.leanpay.loancalculator.cache;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit/miss counts of one cache tier, per {@link ResponseCache}. Lookup latency is recorded
+ * as a timer by {@link com.leanpay.loancalculator.metrics.LoanMetrics}.
+ */
+public final class CacheTierStats {
+
+    private final Map<ResponseCache, LongAdder> hits = new EnumMap<>(ResponseCache.class);
+    private final Map<ResponseCache, LongAdder> misses = new EnumMap<>(ResponseCache.class);
+
+    CacheTierStats() {
+        for (ResponseCache cache : ResponseCache.values()) {
+            hits.put(cache, new LongAdder());
+            misses.put(cache, new LongAdder());
+        }
+    }
+
+    void record(ResponseCache cache, long hitCount, long missCount) {
+        hits.get(cache).add(hitCount);
+        misses.get(cache).add(missCount);
+    }
+
+    void record(ResponseCache cache, boolean hit) {
+        (hit ? hits : misses).get(cache).increment();
+    }
+
+    public long hitCount(ResponseCache cache) {
+        return hits.get(cache).sum();
+    }
+
+    public long missCount(ResponseCache cache) {
+        return misses.get(cache).sum();
+    }
+
+    public double hitRatio(ResponseCache cache) {
+        long hitCount = hitCount(cache);
+        long total = hitCount + missCount(cache);
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,9 @@
+package com.leanpay.loancalculator.cache;
+
+/**
+ * Format used to write cached responses; both formats are always readable.
+ */
+public enum CacheValueFormat {
+    JSON,
+    BINARY
+}
@@ -0,0 +1,38 @@
+package com.leanpay.loancalculator.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Final HTTP body of a completed loan response, plain and gzip-compressed, so a hit is written
+ * as-is whether the client accepts gzip or not. Redis only keeps the gzip copy, it is inflated
+ * once when it is loaded into the on-heap cache.
+ */
+public record CachedResponseBody(byte[] json, byte[] gzip) {
+
+    public static CachedResponseBody of(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new CachedResponseBody(json, out.toByteArray());
+    }
+
+    public static CachedResponseBody fromGzip(byte[] gzip) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new CachedResponseBody(in.readAllBytes(), gzip);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int size() {
+        return json.length + gzip.length;
+    }
+}
@@ -0,0 +1,160 @@
+package com.leanpay.loancalculator.cache;
+
+import com.leanpay.loancalculator.config.LeaseProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Cluster-wide calculation lease: the instance that creates {@code loanLease::<key>} (SET NX with
+ * a random owner token) is the only one calculating that loan. The lease is renewed while the
+ * calculation runs and expires on its own if the owner dies. Renewal and release only touch the
+ * lease while it still carries the owner's token, so an expired lease taken over by another
+ * instance is never extended or deleted.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CalculationLeaseManager {
+
+    static final String LEASE_PREFIX = "loanLease";
+
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisScript.of("""
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+                return redis.call('pexpire', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of("""
+            if redis.call('get', KEYS[1]) == ARGV[1] then
+                return redis.call('del', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final TaskScheduler taskScheduler;
+    private final LeaseProperties properties;
+
+
+    /**
+     * @return the acquired lease (renewed until {@link #release}), empty if another owner holds it
+     */
+    public Optional<Lease> tryAcquire(String key) {
+        String redisKey = CacheConfig.redisKey(LEASE_PREFIX, key);
+        String token = UUID.randomUUID().toString();
+
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(redisKey, token, properties.ttl());
+        if (!Boolean.TRUE.equals(acquired)) {
+            log.debug("Calculation lease for key {} is held by another owner", key);
+            return Optional.empty();
+        }
+
+        return Optional.of(startHeartbeat(new Lease(redisKey, token)));
+    }
+
+    /**
+     * Multi-key variant of {@link #tryAcquire}: all leases are requested with one pipelined round trip.
+     *
+     * @return acquired leases by key, keys leased by another owner are absent
+     */
+    public Map<String, Lease> tryAcquireAll(Collection<String> keys) {
+        if (keys.isEmpty()) return Map.of();
+
+        List<Lease> candidates = keys.stream()
+                .map(key -> new Lease(CacheConfig.redisKey(LEASE_PREFIX, key), UUID.randomUUID().toString()))
+                .toList();
+        List<Object> acquired = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                candidates.forEach(lease ->
+                        redis.opsForValue().setIfAbsent(lease.redisKey(), lease.token(), properties.ttl()));
+                return null;
+            }
+        });
+
+        Map<String, Lease> leases = new HashMap<>();
+        Iterator<String> keyIterator = keys.iterator();
+        for (int i = 0; i < candidates.size(); i++) {
+            String key = keyIterator.next();
+            if (i < acquired.size() && Boolean.TRUE.equals(acquired.get(i))) {
+                leases.put(key, startHeartbeat(candidates.get(i)));
+            } else {
+                log.debug("Calculation lease for key {} is held by another owner", key);
+            }
+        }
+        return leases;
+    }
+
+    public void release(Lease lease) {
+        lease.stopHeartbeat();
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(lease.redisKey()), lease.token());
+    }
+
+    private Lease startHeartbeat(Lease lease) {
+        lease.heartbeat = taskScheduler.scheduleAtFixedRate(() -> renew(lease), properties.renewInterval());
+        return lease;
+    }
+
+    public boolean renew(Lease lease) {
+        try {
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(lease.redisKey()),
+                    lease.token(), String.valueOf(properties.ttl().toMillis()));
+            if (renewed == null || renewed == 0) {
+                log.warn("Calculation lease {} was lost before the calculation finished", lease.redisKey());
+                lease.stopHeartbeat();
+                return false;
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // keep the heartbeat, the lease only expires if Redis stays unreachable for the whole ttl
+            log.warn("Could not renew calculation lease {}", lease.redisKey(), e);
+            return false;
+        }
+    }
+
+    public static final class Lease {
+
+        private final String redisKey;
+        private final String token;
+        private volatile ScheduledFuture<?> heartbeat;
+
+        public Lease(String redisKey, String token) {
+            this.redisKey = redisKey;
+            this.token = token;
+        }
+
+        public String redisKey() {
+            return redisKey;
+        }
+
+        public String token() {
+            return token;
+        }
+
+        private void stopHeartbeat() {
+            ScheduledFuture<?> scheduled = heartbeat;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+}
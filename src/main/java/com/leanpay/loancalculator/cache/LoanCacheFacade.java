@@ -1,60 +1,237 @@
 package com.leanpay.loancalculator.cache;
 
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
 import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.metrics.LoanMetrics;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Component;
 
-import java.util.Objects;
-import java.util.Optional;
+import java.time.Duration;
+import java.util.*;
 
 @Component
 @RequiredArgsConstructor
+@Slf4j
 public class LoanCacheFacade {
 
+    public static final String INVALIDATION_CHANNEL = "loanCache:invalidate";
+
+    private static final String INVALIDATION_SEPARATOR = "|";
+
+    static final long STATUS_ENTRY = 0;
+    static final long FULL_ENTRY = 1;
+    static final long BODY_ENTRY = 2;
+
+    static final String PREFER_BODY = "1";
+    static final String PREFER_RESPONSE = "0";
+
+    // with ARGV[1] = 1 the pre-serialized body if present, else the full response (both removing the
+    // stale status entry), else the status response
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> LOOKUP_SCRIPT = RedisScript.of("""
+            if ARGV[1] == '1' then
+                local body = redis.call('get', KEYS[3])
+                if body then
+                    redis.call('del', KEYS[2])
+                    return {2, body}
+                end
+            end
+            local full = redis.call('get', KEYS[1])
+            if full then
+                redis.call('del', KEYS[2])
+                return {1, full}
+            end
+            local status = redis.call('get', KEYS[2])
+            if status then
+                return {0, status}
+            end
+            return {}
+            """, List.class);
+
+    // script values are returned as raw bytes: a body is not in the cache value format
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisSerializer<List> RAW_RESULT = (RedisSerializer) RedisSerializer.byteArray();
+
     private final CacheManager cacheManager;
+    private final RedisTemplate<String, Object> cacheRedisTemplate;
+    private final RedisSerializer<Object> cacheValueSerializer;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final LocalResponseCache localCache;
+    private final ResponseBodyCache bodyCache;
+    private final LoanMetrics metrics;
+
+    // invalidations published by this instance are not applied twice
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheTierStats localStats = new CacheTierStats();
+    private final CacheTierStats redisStats = new CacheTierStats();
 
 
     public Optional<LoanResponse> getResponseFromCache(LoanCalculationRequest request) {
-        String key = generateCacheKey(request);
+        return getResponseFromCache(generateCacheKey(request));
+    }
 
-        Optional<LoanResponse> fullResponse = getFullResponse(key);
-        if(fullResponse.isPresent()) {
-            evictStatusResponse(key);
-            return fullResponse;
+    /**
+     * L1 first, then one scripted round trip to Redis that reads the full response, falls back to
+     * the status response and deletes a status entry left behind by a completed calculation.
+     */
+    public Optional<LoanResponse> getResponseFromCache(String key) {
+        Optional<LoanResponse> localResponse = getLocalResponse(key, System.nanoTime());
+        if (localResponse.isPresent()) {
+            // the status entry was evicted when the response was loaded into L1
+            return localResponse;
         }
-        return getStatusResponse(key);
+        return lookup(key, false).map(ResponseOrBody::response);
     }
 
-    public Optional<LoanResponse> getResponseFromCache(String key) {
-        Optional<LoanResponse> fullResponse = getFullResponse(key);
-        if(fullResponse.isPresent()) {
-            evictStatusResponse(key);
-            return fullResponse;
+    /**
+     * Like {@link #getResponseFromCache(String)}, but a calculated loan is returned as its pre-serialized
+     * HTTP body when one is cached. Body, full response or status response are read in the same
+     * scripted round trip.
+     */
+    public Optional<ResponseOrBody> getResponseOrBodyFromCache(String key) {
+        long start = System.nanoTime();
+        Optional<CachedResponseBody> localBody = bodyCache.getLocal(key);
+        localStats.record(ResponseCache.BODY, localBody.isPresent());
+        if (localBody.isPresent()) {
+            metrics.recordLocalLookup(System.nanoTime() - start);
+            return localBody.map(ResponseOrBody::of);
+        }
+
+        Optional<LoanResponse> localResponse = getLocalResponse(key, start);
+        if (localResponse.isPresent()) {
+            return localResponse.map(ResponseOrBody::of);
         }
-        return getStatusResponse(key);
+        return lookup(key, true);
     }
 
-    public String generateCacheKey(LoanCalculationRequest r) {
-        return r.amount() + ":" + r.annualInterestRate() + ":" + r.numberOfMonths();
+    /**
+     * Multi-key variant of {@link #getResponseFromCache(String)}: keys missing in L1 are read from
+     * Redis with a single MGET (full and status entries), status entries of full hits are removed
+     * with a single DEL.
+     *
+     * @return cached responses by key, keys without any cache entry are absent
+     */
+    public Map<String, LoanResponse> getResponsesFromCache(Collection<String> keys) {
+        Map<String, LoanResponse> responses = new HashMap<>();
+        List<String> keyList = new ArrayList<>(keys.size());
+
+        long start = System.nanoTime();
+        for (String key : keys) {
+            localCache.get(key).ifPresentOrElse(response -> responses.put(key, response), () -> keyList.add(key));
+        }
+        localStats.record(ResponseCache.FULL_RESPONSE, responses.size(), keyList.size());
+        metrics.recordLocalLookup(System.nanoTime() - start);
+
+        if (keyList.isEmpty()) return responses;
+
+        List<String> redisKeys = new ArrayList<>(keyList.size() * 2);
+        keyList.forEach(key -> redisKeys.add(CacheConfig.redisKey(CacheConfig.FULL_RESPONSE_CACHE, key)));
+        keyList.forEach(key -> redisKeys.add(CacheConfig.redisKey(CacheConfig.STATUS_RESPONSE_CACHE, key)));
+
+        start = System.nanoTime();
+        List<Object> values;
+        try {
+            values = Objects.requireNonNullElse(cacheRedisTemplate.opsForValue().multiGet(redisKeys), List.of());
+        } catch (SerializationException e) {
+            // the template decodes all values at once, the batch is looked up as misses
+            log.warn("Ignoring cache entries that cannot be decoded for keys {}", keyList, e);
+            values = List.of();
+        }
+        metrics.recordRedisLookup(System.nanoTime() - start);
+
+        List<String> staleStatusKeys = new ArrayList<>();
+        int fullHits = 0;
+        int statusHits = 0;
+
+        for (int i = 0; i < keyList.size(); i++) {
+            LoanResponse full = valueAt(values, i);
+            LoanResponse status = valueAt(values, keyList.size() + i);
+
+            if (full != null) {
+                responses.put(keyList.get(i), full);
+                localCache.put(keyList.get(i), full);
+                fullHits++;
+                if (status != null) {
+                    staleStatusKeys.add(redisKeys.get(keyList.size() + i));
+                }
+            } else if (status != null) {
+                responses.put(keyList.get(i), status);
+                statusHits++;
+            }
+        }
+        // status entries only count for keys without a full response
+        redisStats.record(ResponseCache.FULL_RESPONSE, fullHits, keyList.size() - fullHits);
+        redisStats.record(ResponseCache.STATUS_RESPONSE, statusHits, keyList.size() - fullHits - statusHits);
+
+        if (!staleStatusKeys.isEmpty()) {
+            cacheRedisTemplate.delete(staleStatusKeys);
+        }
+        return responses;
     }
 
-    public Optional<LoanResponse> getFullResponse(String key) {
-        return Optional.ofNullable(
-                Objects.requireNonNull(cacheManager.getCache(CacheConfig.FULL_RESPONSE_CACHE))
-                        .get(key, LoanResponse.class));
+    public String generateCacheKey(LoanCalculationRequest r) {
+        return LoanRequestKey.of(r);
     }
 
     public void putFullResponse(String key, LoanResponse fullResponse) {
         Objects.requireNonNull(cacheManager.getCache(CacheConfig.FULL_RESPONSE_CACHE))
                 .put(key, fullResponse);
+        localCache.put(key, fullResponse);
+        if (fullResponse instanceof LoanCalculationResponse calculated) {
+            bodyCache.put(key, calculated);
+        }
+    }
+
+    public void putFullResponses(Map<String, LoanResponse> fullResponses) {
+        putAll(CacheConfig.FULL_RESPONSE_CACHE, CacheConfig.FULL_RESPONSE_TTL, fullResponses);
+        fullResponses.forEach(localCache::put);
+
+        Map<String, LoanCalculationResponse> calculated = new HashMap<>();
+        fullResponses.forEach((key, response) -> {
+            if (response instanceof LoanCalculationResponse calculatedResponse) {
+                calculated.put(key, calculatedResponse);
+            }
+        });
+        bodyCache.putAll(calculated);
+    }
+
+    /**
+     * Removes the full response (and its pre-serialized body) from Redis and from the L1 of every instance.
+     */
+    public void evictFullResponse(String key) {
+        localCache.invalidate(key);
+        bodyCache.evict(key);
+        Objects.requireNonNull(cacheManager.getCache(CacheConfig.FULL_RESPONSE_CACHE))
+                .evict(key);
+        stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, nodeId + INVALIDATION_SEPARATOR + key);
     }
 
-    public Optional<LoanResponse> getStatusResponse(String key) {
-        return Optional.ofNullable(
-                Objects.requireNonNull(cacheManager.getCache(CacheConfig.STATUS_RESPONSE_CACHE))
-                        .get(key, LoanResponse.class));
+    /**
+     * Applies an invalidation received on {@link #INVALIDATION_CHANNEL}.
+     */
+    public void onInvalidation(String message) {
+        int separator = message.indexOf(INVALIDATION_SEPARATOR);
+        if (separator < 0) {
+            log.warn("Ignoring malformed cache invalidation message {}", message);
+            return;
+        }
+        if (!message.startsWith(nodeId + INVALIDATION_SEPARATOR)) {
+            String key = message.substring(separator + 1);
+            localCache.invalidate(key);
+            bodyCache.evictLocal(key);
+        }
     }
 
     public void putStatusResponse(String key, LoanResponse statusResponse) {
@@ -62,8 +239,102 @@ public class LoanCacheFacade {
                 .put(key, statusResponse);
     }
 
+    public void putStatusResponses(Map<String, LoanResponse> statusResponses) {
+        putAll(CacheConfig.STATUS_RESPONSE_CACHE, CacheConfig.STATUS_RESPONSE_TTL, statusResponses);
+    }
+
     public void evictStatusResponse(String key) {
         Objects.requireNonNull(cacheManager.getCache(CacheConfig.STATUS_RESPONSE_CACHE))
                 .evict(key);
     }
+
+    public CacheTierStats localStats() {
+        return localStats;
+    }
+
+    public CacheTierStats redisStats() {
+        return redisStats;
+    }
+
+    // start is passed in by callers that checked the local body first, the lookup is timed as a whole
+    private Optional<LoanResponse> getLocalResponse(String key, long start) {
+        Optional<LoanResponse> response = localCache.get(key);
+        localStats.record(ResponseCache.FULL_RESPONSE, response.isPresent());
+        metrics.recordLocalLookup(System.nanoTime() - start);
+        return response;
+    }
+
+    private Optional<ResponseOrBody> lookup(String key, boolean preferBody) {
+        long start = System.nanoTime();
+        List<?> result = cacheRedisTemplate.execute(LOOKUP_SCRIPT, RedisSerializer.string(), RAW_RESULT, List.of(
+                        CacheConfig.redisKey(CacheConfig.FULL_RESPONSE_CACHE, key),
+                        CacheConfig.redisKey(CacheConfig.STATUS_RESPONSE_CACHE, key),
+                        ResponseBodyCache.redisKey(key)),
+                preferBody ? PREFER_BODY : PREFER_RESPONSE);
+
+        metrics.recordRedisLookup(System.nanoTime() - start);
+
+        ResponseOrBody found = null;
+        long answeredBy = -1;
+        if (result != null && result.size() == 2 && result.get(0) instanceof Long entry
+                && result.get(1) instanceof byte[] value) {
+            if (entry == BODY_ENTRY) {
+                CachedResponseBody body = CachedResponseBody.fromGzip(value);
+                bodyCache.putLocal(key, body);
+                found = ResponseOrBody.of(body);
+                answeredBy = entry;
+            } else if (decode(value) instanceof LoanResponse response) {
+                if (entry == FULL_ENTRY) {
+                    localCache.put(key, response);
+                }
+                found = ResponseOrBody.of(response);
+                answeredBy = entry;
+            }
+        }
+        recordScriptedLookup(preferBody, answeredBy);
+        return Optional.ofNullable(found);
+    }
+
+    // the script reads body (if preferred), full and status entry in this order and stops at the first hit
+    private void recordScriptedLookup(boolean preferBody, long answeredBy) {
+        if (preferBody) {
+            redisStats.record(ResponseCache.BODY, answeredBy == BODY_ENTRY);
+        }
+        if (answeredBy != BODY_ENTRY) {
+            redisStats.record(ResponseCache.FULL_RESPONSE, answeredBy == FULL_ENTRY);
+        }
+        if (answeredBy != BODY_ENTRY && answeredBy != FULL_ENTRY) {
+            redisStats.record(ResponseCache.STATUS_RESPONSE, answeredBy == STATUS_ENTRY);
+        }
+    }
+
+    // pipelined SET ... EX, one round trip for all entries
+    private void putAll(String cacheName, Duration ttl, Map<String, LoanResponse> responses) {
+        if (responses.isEmpty()) return;
+
+        cacheRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, Object> redis = (RedisOperations<String, Object>) operations;
+                responses.forEach((key, response) ->
+                        redis.opsForValue().set(CacheConfig.redisKey(cacheName, key), response, ttl));
+                return null;
+            }
+        });
+    }
+
+    // an entry that cannot be decoded (e.g. written by a newer version) is a miss, it is overwritten once the loan is cached again
+    private Object decode(byte[] value) {
+        try {
+            return cacheValueSerializer.deserialize(value);
+        } catch (SerializationException e) {
+            log.warn("Ignoring cache entry that cannot be decoded", e);
+            return null;
+        }
+    }
+
+    private static LoanResponse valueAt(List<Object> values, int index) {
+        return index < values.size() && values.get(index) instanceof LoanResponse response ? response : null;
+    }
 }
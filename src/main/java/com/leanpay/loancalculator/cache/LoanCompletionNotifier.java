@@ -0,0 +1,115 @@
+package com.leanpay.loancalculator.cache;
+
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.exception.CalculationFailedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wakes up clients waiting for a loan calculation. Waiters on the calculating instance are
+ * completed directly, other instances are told via {@link #COMPLETION_CHANNEL} and read the
+ * response from the shared cache. A failed calculation (missed deadline, error, rejected by the
+ * executor) fails the waiters on all instances, prefixed with {@link #FAILED_PREFIX} on the same channel.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoanCompletionNotifier {
+
+    public static final String COMPLETION_CHANNEL = "loanCache:completed";
+    static final String FAILED_PREFIX = "failed|";
+
+    private final LoanCacheFacade cache;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final ConcurrentMap<String, Set<CompletableFuture<LoanResponse>>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * @return future completed with the calculated loan of {@code key}, or exceptionally with
+     * {@link CalculationFailedException}; cancelling it unregisters the waiter
+     */
+    public CompletableFuture<LoanResponse> awaitCompletion(String key) {
+        CompletableFuture<LoanResponse> completion = new CompletableFuture<>();
+        // added inside compute, a set emptied and removed concurrently by unregister or complete cannot swallow it
+        waiters.compute(key, (k, waiting) -> {
+            Set<CompletableFuture<LoanResponse>> registered = waiting != null ? waiting : ConcurrentHashMap.newKeySet();
+            registered.add(completion);
+            return registered;
+        });
+        completion.whenComplete((response, error) -> unregister(key, completion));
+        return completion;
+    }
+
+    public void publishCompleted(String key, LoanResponse response) {
+        complete(key, response);
+        try {
+            stringRedisTemplate.convertAndSend(COMPLETION_CHANNEL, key);
+        } catch (RuntimeException e) {
+            // waiters on other instances fall back to their timeout
+            log.warn("Could not publish completion of key {}", key, e);
+        }
+    }
+
+    public void publishFailed(String key) {
+        fail(key);
+        try {
+            stringRedisTemplate.convertAndSend(COMPLETION_CHANNEL, FAILED_PREFIX + key);
+        } catch (RuntimeException e) {
+            // waiters on other instances fall back to their timeout
+            log.warn("Could not publish failure of key {}", key, e);
+        }
+    }
+
+    /**
+     * Applies a completion received on {@link #COMPLETION_CHANNEL}, the response is read from the cache
+     * only if someone on this instance is waiting for it.
+     */
+    public void onCompletion(String message) {
+        if (message.startsWith(FAILED_PREFIX)) {
+            fail(message.substring(FAILED_PREFIX.length()));
+            return;
+        }
+        String key = message;
+        if (!waiters.containsKey(key)) return;
+
+        Optional<LoanResponse> response = cache.getResponseFromCache(key)
+                .filter(LoanCalculationResponse.class::isInstance);
+        response.ifPresent(r -> complete(key, r));
+    }
+
+    public int waitingCount() {
+        return waiters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void complete(String key, LoanResponse response) {
+        Set<CompletableFuture<LoanResponse>> waiting = waiters.remove(key);
+        if (waiting != null) {
+            waiting.forEach(completion -> completion.complete(response));
+        }
+    }
+
+    private void fail(String key) {
+        Set<CompletableFuture<LoanResponse>> waiting = waiters.remove(key);
+        if (waiting != null) {
+            CalculationFailedException failure = new CalculationFailedException(key);
+            waiting.forEach(completion -> completion.completeExceptionally(failure));
+        }
+    }
+
+    private void unregister(String key, CompletableFuture<LoanResponse> completion) {
+        waiters.compute(key, (k, waiting) -> {
+            if (waiting == null) return null;
+            waiting.remove(completion);
+            return waiting.isEmpty() ? null : waiting;
+        });
+    }
+}
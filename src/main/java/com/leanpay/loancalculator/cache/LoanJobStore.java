@@ -0,0 +1,137 @@
+package com.leanpay.loancalculator.cache;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.response.LoanJobResponse;
+import com.leanpay.loancalculator.dto.response.LoanJobState;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compact status records of calculations, one Redis hash per job ({@code loanJob::<id>}). The job id
+ * is the {@link com.leanpay.loancalculator.dto.request.LoanRequestKey} of the loan, so polling a job
+ * is a single key lookup without the loan terms and without the database.
+ * <p>
+ * Only loans submitted through the job API have a record: {@link #started} creates it, completions
+ * and failures of other calculations leave nothing behind.
+ */
+@Component
+public class LoanJobStore {
+
+    public static final String JOB_PREFIX = "loanJob";
+
+    static final String STATE = "state";
+    static final String ENQUEUED_AT = "enqueuedAt";
+    static final String ESTIMATED_COMPLETION_AT = "estimatedCompletionAt";
+    static final String COMPLETED_AT = "completedAt";
+
+    // moving average of calculation durations, the latest one weighs 1/8
+    private static final int ESTIMATE_SMOOTHING = 8;
+
+    // finishes a job only if it was started through the job API
+    static final RedisScript<Long> FINISH_SCRIPT = RedisScript.of("""
+            if redis.call('exists', KEYS[1]) == 0 then
+                return 0
+            end
+            redis.call('hset', KEYS[1], ARGV[1], ARGV[2], ARGV[3], ARGV[4])
+            redis.call('expire', KEYS[1], ARGV[5])
+            return 1
+            """, Long.class);
+
+    // creates the job unless it is already calculating, returns its enqueue and estimated completion time
+    static final RedisScript<List> START_SCRIPT = RedisScript.of("""
+            if redis.call('hget', KEYS[1], ARGV[1]) ~= ARGV[2] then
+                redis.call('hdel', KEYS[1], ARGV[7])
+                redis.call('hset', KEYS[1], ARGV[1], ARGV[2], ARGV[3], ARGV[4], ARGV[5], ARGV[6])
+                redis.call('expire', KEYS[1], ARGV[8])
+            end
+            return redis.call('hmget', KEYS[1], ARGV[3], ARGV[5])
+            """, List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final AtomicLong estimatedNanos;
+
+    public LoanJobStore(StringRedisTemplate stringRedisTemplate, CalculationProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.estimatedNanos = new AtomicLong(properties.simulatedDelay().toNanos());
+    }
+
+    /**
+     * Records a calculation about to be scheduled, a job that is already calculating keeps its enqueue
+     * time (checked and written in one script, concurrent starts of a job share one record). Call it
+     * before scheduling, a calculation finishing right away only completes an existing job.
+     */
+    public LoanJobResponse started(String id) {
+        Instant now = Instant.now();
+        // a previous run of the same key may have left its completion time behind, the script removes it
+        List<?> stored = stringRedisTemplate.execute(START_SCRIPT, List.of(redisKey(id)),
+                STATE, LoanJobState.CALCULATING.name(),
+                ENQUEUED_AT, String.valueOf(now.toEpochMilli()),
+                ESTIMATED_COMPLETION_AT, String.valueOf(now.plusNanos(estimatedNanos.get()).toEpochMilli()),
+                COMPLETED_AT,
+                String.valueOf(CacheConfig.FULL_RESPONSE_TTL.toSeconds()));
+        return new LoanJobResponse(id, LoanJobState.CALCULATING,
+                instant((String) stored.get(0)), instant((String) stored.get(1)), null);
+    }
+
+    /**
+     * @param took duration of the calculation, feeds the estimate of future jobs; {@code null} if unknown
+     */
+    public void completed(String id, Duration took) {
+        if (took != null) {
+            long tookNanos = took.toNanos();
+            estimatedNanos.updateAndGet(current -> current + (tookNanos - current) / ESTIMATE_SMOOTHING);
+        }
+        finish(id, LoanJobState.DONE);
+    }
+
+    public void failed(String id) {
+        finish(id, LoanJobState.FAILED);
+    }
+
+    public Optional<LoanJobResponse> find(String id) {
+        Map<String, String> fields = hash().entries(redisKey(id));
+        if (fields.isEmpty() || !fields.containsKey(STATE)) {
+            return Optional.empty();
+        }
+        return Optional.of(new LoanJobResponse(
+                id,
+                LoanJobState.valueOf(fields.get(STATE)),
+                instant(fields.get(ENQUEUED_AT)),
+                instant(fields.get(ESTIMATED_COMPLETION_AT)),
+                instant(fields.get(COMPLETED_AT))
+        ));
+    }
+
+    public Duration estimatedDuration() {
+        return Duration.ofNanos(estimatedNanos.get());
+    }
+
+    private void finish(String id, LoanJobState state) {
+        stringRedisTemplate.execute(FINISH_SCRIPT, List.of(redisKey(id)),
+                STATE, state.name(),
+                COMPLETED_AT, String.valueOf(Instant.now().toEpochMilli()),
+                String.valueOf(CacheConfig.FULL_RESPONSE_TTL.toSeconds()));
+    }
+
+    private HashOperations<String, String, String> hash() {
+        return stringRedisTemplate.opsForHash();
+    }
+
+    static String redisKey(String id) {
+        return CacheConfig.redisKey(JOB_PREFIX, id);
+    }
+
+    private static Instant instant(String epochMillis) {
+        return epochMillis == null ? null : Instant.ofEpochMilli(Long.parseLong(epochMillis));
+    }
+}
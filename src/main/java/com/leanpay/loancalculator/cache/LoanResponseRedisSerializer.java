@@ -0,0 +1,540 @@
+package com.leanpay.loancalculator.cache;
+
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.*;
+import com.leanpay.loancalculator.entity.InstallmentSchedule;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary format for cached {@link LoanResponse}s.
+ * <p>
+ * Layout: {@code [version][flags][uncompressed length if deflated][body]}. The body stores the
+ * installment plan column by column: every money column is written as one scale plus zigzag
+ * varint deltas of the unscaled values, so a constant payment costs one byte per row and
+ * balances/principal/interest a few bytes instead of a JSON object with field names and
+ * type information. Bodies above {@link #DEFLATE_THRESHOLD} are deflated when that makes them smaller.
+ * A plan backed by an {@link InstallmentSchedule} is written straight from its long cents and read back
+ * as one when periods are {@code 1..n} and all money columns have two decimals, without any
+ * {@code BigDecimal} in between.
+ * <p>
+ * Values starting with a JSON character are entries written before this format was introduced
+ * and are read with the fallback serializer; other types are written with the fallback as well.
+ */
+public class LoanResponseRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte VERSION = 1;
+    static final int DEFLATE_THRESHOLD = 256;
+
+    // version bytes are control characters, a JSON document starts with whitespace or a printable character
+    private static final byte FIRST_JSON_CHARACTER = '\t';
+    private static final byte FLAG_DEFLATED = 1;
+    private static final int MAX_BODY_LENGTH = 64 * 1024 * 1024;
+
+    private static final byte TYPE_STATUS = 1;
+    private static final byte TYPE_CALCULATION = 2;
+
+    private static final byte DECIMAL_NULL = 0;
+    private static final byte DECIMAL_LONG = 1;
+    private static final byte DECIMAL_BIG = 2;
+
+    private static final byte COLUMN_DELTA = 1;
+    private static final byte COLUMN_VALUES = 2;
+
+    // stable status codes, independent of the declaration order of LoanStatus (the first three match
+    // the ordinals written before); new constants get the next free code, codes are never reused
+    private static final int STATUS_CALCULATING = 0;
+    private static final int STATUS_DONE = 1;
+    private static final int STATUS_REJECTED = 2;
+
+    private final RedisSerializer<Object> fallback;
+    private final boolean writeBinary;
+
+    /**
+     * @param writeBinary {@code false} keeps writing with {@code fallback} (while older instances
+     *                    that cannot read the binary format are still running), both formats are always read
+     */
+    public LoanResponseRedisSerializer(RedisSerializer<Object> fallback, boolean writeBinary) {
+        this.fallback = fallback;
+        this.writeBinary = writeBinary;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!writeBinary) {
+            return fallback.serialize(value instanceof LoanCalculationResponse response ? withRows(response) : value);
+        }
+        return switch (value) {
+            case LoanCalculationResponse response -> encode(response);
+            case LoanStatusResponse response -> encode(response);
+            case null, default -> fallback.serialize(value);
+        };
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] >= FIRST_JSON_CHARACTER) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes[0] != VERSION) {
+            throw new SerializationException("Unsupported cache value format version " + bytes[0]);
+        }
+        try {
+            return decode(bytes);
+        } catch (BufferUnderflowException | IllegalArgumentException | ArithmeticException e) {
+            throw new SerializationException("Corrupt cache value", e);
+        }
+    }
+
+    // --- encoding ---
+
+    private byte[] encode(LoanStatusResponse response) {
+        Writer body = new Writer(64);
+        body.writeByte(TYPE_STATUS);
+        body.writeStatus(response.status());
+        body.writeLoan(response.loan());
+        return frame(body);
+    }
+
+    private byte[] encode(LoanCalculationResponse response) {
+        List<InstallmentDto> plan = response.installmentPlan();
+        Writer body = new Writer(64 + (plan == null ? 0 : plan.size() * 8));
+        body.writeByte(TYPE_CALCULATION);
+        body.writeStatus(response.status());
+        body.writeLoan(response.loan());
+        body.writeSummary(response.summary());
+        body.writePlan(plan);
+        return frame(body);
+    }
+
+    // the fallback records the concrete list type, readers could not create the schedule view from it
+    private static LoanCalculationResponse withRows(LoanCalculationResponse response) {
+        if (!(response.installmentPlan() instanceof InstallmentScheduleList plan)) {
+            return response;
+        }
+        return new LoanCalculationResponse(response.loan(), response.status(), response.summary(), List.copyOf(plan));
+    }
+
+    private static byte[] frame(Writer body) {
+        byte[] raw = body.toByteArray();
+        if (raw.length >= DEFLATE_THRESHOLD) {
+            byte[] deflated = deflate(raw);
+            Writer framed = new Writer(deflated.length + 8);
+            framed.writeByte(VERSION);
+            framed.writeByte(FLAG_DEFLATED);
+            framed.writeVarLong(raw.length);
+            framed.writeBytes(deflated);
+            if (framed.size() < raw.length + 2) {
+                return framed.toByteArray();
+            }
+        }
+        Writer framed = new Writer(raw.length + 2);
+        framed.writeByte(VERSION);
+        framed.writeByte(0);
+        framed.writeBytes(raw);
+        return framed.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // --- decoding ---
+
+    private static LoanResponse decode(byte[] bytes) {
+        ByteBuffer framed = ByteBuffer.wrap(bytes);
+        framed.get(); // version
+        byte flags = framed.get();
+        Reader body = new Reader((flags & FLAG_DEFLATED) != 0 ? inflate(framed) : framed);
+
+        byte type = body.readByte();
+        LoanStatus status = body.readStatus();
+        LoanCalculationRequest loan = body.readLoan();
+
+        return switch (type) {
+            case TYPE_STATUS -> new LoanStatusResponse(loan, status);
+            case TYPE_CALCULATION -> new LoanCalculationResponse(loan, status, body.readSummary(), body.readPlan());
+            default -> throw new IllegalArgumentException("Unknown response type " + type);
+        };
+    }
+
+    private static ByteBuffer inflate(ByteBuffer framed) {
+        long length = new Reader(framed).readVarLong();
+        if (length < 0 || length > MAX_BODY_LENGTH) {
+            throw new IllegalArgumentException("Invalid body length " + length);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(framed);
+            byte[] raw = new byte[(int) length];
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, raw.length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != raw.length) {
+                throw new IllegalArgumentException("Truncated deflated body");
+            }
+            return ByteBuffer.wrap(raw);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static final class Writer {
+
+        private final ByteArrayOutputStream out;
+
+        Writer(int capacity) {
+            this.out = new ByteArrayOutputStream(capacity);
+        }
+
+        void writeByte(int value) {
+            out.write(value);
+        }
+
+        void writeBytes(byte[] bytes) {
+            out.writeBytes(bytes);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeNullableInt(Integer value) {
+            // 0 is null, everything else is shifted by one
+            writeVarLong(value == null ? 0 : (((long) value << 1) ^ (value >> 31)) + 1);
+        }
+
+        void writeStatus(LoanStatus status) {
+            writeNullableInt(status == null ? null : switch (status) {
+                case CALCULATING -> STATUS_CALCULATING;
+                case DONE -> STATUS_DONE;
+                case REJECTED -> STATUS_REJECTED;
+            });
+        }
+
+        void writeDecimal(BigDecimal value) {
+            if (value == null) {
+                writeByte(DECIMAL_NULL);
+                return;
+            }
+            BigInteger unscaled = value.unscaledValue();
+            if (unscaled.bitLength() < Long.SIZE) {
+                writeByte(DECIMAL_LONG);
+                writeZigZag(value.scale());
+                writeZigZag(unscaled.longValue());
+            } else {
+                byte[] magnitude = unscaled.toByteArray();
+                writeByte(DECIMAL_BIG);
+                writeZigZag(value.scale());
+                writeVarLong(magnitude.length);
+                writeBytes(magnitude);
+            }
+        }
+
+        void writeLoan(LoanCalculationRequest loan) {
+            writeByte(loan == null ? 0 : 1);
+            if (loan == null) return;
+            writeDecimal(loan.amount());
+            writeDecimal(loan.annualInterestRate());
+            writeNullableInt(loan.numberOfMonths());
+        }
+
+        void writeSummary(SummaryDto summary) {
+            writeByte(summary == null ? 0 : 1);
+            if (summary == null) return;
+            writeDecimal(summary.monthlyPayment());
+            writeDecimal(summary.totalPayments());
+            writeDecimal(summary.totalInterest());
+        }
+
+        void writePlan(List<InstallmentDto> plan) {
+            writeNullableInt(plan == null ? null : plan.size());
+            if (plan == null || plan.isEmpty()) return;
+
+            if (plan instanceof InstallmentScheduleList columnar) {
+                writeSchedule(columnar.schedule());
+                return;
+            }
+
+            int rows = plan.size();
+            List<BigDecimal> periods = new ArrayList<>(rows);
+            plan.forEach(row -> periods.add(row.period() == null ? null : BigDecimal.valueOf(row.period())));
+
+            writeColumn(periods);
+            writeColumn(plan.stream().map(InstallmentDto::payment).toList());
+            writeColumn(plan.stream().map(InstallmentDto::principal).toList());
+            writeColumn(plan.stream().map(InstallmentDto::interest).toList());
+            writeColumn(plan.stream().map(InstallmentDto::balance).toList());
+        }
+
+        // same bytes as the rows of the schedule written by writeColumn
+        private void writeSchedule(InstallmentSchedule schedule) {
+            int rows = schedule.size();
+            writeDeltaColumn(rows, 0, schedule::period);
+            writeDeltaColumn(rows, InstallmentSchedule.MONEY_SCALE, schedule::paymentCents);
+            writeDeltaColumn(rows, InstallmentSchedule.MONEY_SCALE, schedule::principalCents);
+            writeDeltaColumn(rows, InstallmentSchedule.MONEY_SCALE, schedule::interestCents);
+            writeDeltaColumn(rows, InstallmentSchedule.MONEY_SCALE, schedule::balanceCents);
+        }
+
+        private void writeDeltaColumn(int rows, int scale, IntToLongFunction unscaled) {
+            writeByte(COLUMN_DELTA);
+            writeZigZag(scale);
+            long previous = 0;
+            for (int i = 0; i < rows; i++) {
+                long value = unscaled.applyAsLong(i);
+                writeZigZag(value - previous);
+                previous = value;
+            }
+        }
+
+        private void writeColumn(List<BigDecimal> column) {
+            long[] unscaled = scaledLongs(column);
+            if (unscaled == null) {
+                writeByte(COLUMN_VALUES);
+                column.forEach(this::writeDecimal);
+                return;
+            }
+            writeByte(COLUMN_DELTA);
+            writeZigZag(column.getFirst().scale());
+            long previous = 0;
+            for (long value : unscaled) {
+                writeZigZag(value - previous);
+                previous = value;
+            }
+        }
+
+        // unscaled values if all are present, share one scale and every delta fits in a long
+        private static long[] scaledLongs(List<BigDecimal> column) {
+            BigDecimal first = column.getFirst();
+            if (first == null) return null;
+
+            long[] unscaled = new long[column.size()];
+            long previous = 0;
+            for (int i = 0; i < unscaled.length; i++) {
+                BigDecimal value = column.get(i);
+                if (value == null || value.scale() != first.scale() || value.unscaledValue().bitLength() >= Long.SIZE) {
+                    return null;
+                }
+                unscaled[i] = value.unscaledValue().longValue();
+                try {
+                    Math.subtractExact(unscaled[i], previous);
+                } catch (ArithmeticException e) {
+                    return null;
+                }
+                previous = unscaled[i];
+            }
+            return unscaled;
+        }
+
+        int size() {
+            return out.size();
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    private static final class Reader {
+
+        private final ByteBuffer in;
+
+        Reader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        byte readByte() {
+            return in.get();
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        int readInt(long value) {
+            return Math.toIntExact(value);
+        }
+
+        Integer readNullableInt() {
+            long value = readVarLong();
+            if (value == 0) return null;
+            long zigzag = value - 1;
+            return readInt((zigzag >>> 1) ^ -(zigzag & 1));
+        }
+
+        LoanStatus readStatus() {
+            Integer code = readNullableInt();
+            if (code == null) return null;
+            return switch (code) {
+                case STATUS_CALCULATING -> LoanStatus.CALCULATING;
+                case STATUS_DONE -> LoanStatus.DONE;
+                case STATUS_REJECTED -> LoanStatus.REJECTED;
+                // e.g. written by a newer version, the entry is a cache miss for this one
+                default -> throw new IllegalArgumentException("Unknown loan status code " + code);
+            };
+        }
+
+        BigDecimal readDecimal() {
+            byte tag = readByte();
+            return switch (tag) {
+                case DECIMAL_NULL -> null;
+                case DECIMAL_LONG -> {
+                    int scale = readInt(readZigZag());
+                    yield BigDecimal.valueOf(readZigZag(), scale);
+                }
+                case DECIMAL_BIG -> {
+                    int scale = readInt(readZigZag());
+                    byte[] magnitude = new byte[readInt(readVarLong())];
+                    in.get(magnitude);
+                    yield new BigDecimal(new BigInteger(magnitude), scale);
+                }
+                default -> throw new IllegalArgumentException("Unknown decimal tag " + tag);
+            };
+        }
+
+        LoanCalculationRequest readLoan() {
+            if (readByte() == 0) return null;
+            return new LoanCalculationRequest(readDecimal(), readDecimal(), readNullableInt());
+        }
+
+        SummaryDto readSummary() {
+            if (readByte() == 0) return null;
+            return new SummaryDto(readDecimal(), readDecimal(), readDecimal());
+        }
+
+        List<InstallmentDto> readPlan() {
+            Integer rows = readNullableInt();
+            if (rows == null) return null;
+            if (rows < 0 || rows > in.remaining()) {
+                throw new IllegalArgumentException("Invalid installment count " + rows);
+            }
+            if (rows == 0) return List.of();
+
+            Column periods = readColumn(rows);
+            Column payments = readColumn(rows);
+            Column principals = readColumn(rows);
+            Column interests = readColumn(rows);
+            Column balances = readColumn(rows);
+
+            if (periods.isSequence() && payments.isMoney() && principals.isMoney()
+                    && interests.isMoney() && balances.isMoney()) {
+                return new InstallmentScheduleList(InstallmentSchedule.of(
+                        payments.unscaled(), principals.unscaled(), interests.unscaled(), balances.unscaled()));
+            }
+
+            List<InstallmentDto> plan = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                BigDecimal period = periods.get(i);
+                plan.add(new InstallmentDto(
+                        period == null ? null : period.intValueExact(),
+                        payments.get(i),
+                        principals.get(i),
+                        interests.get(i),
+                        balances.get(i)
+                ));
+            }
+            return List.copyOf(plan);
+        }
+
+        private Column readColumn(int rows) {
+            byte mode = readByte();
+            switch (mode) {
+                case COLUMN_DELTA -> {
+                    int scale = readInt(readZigZag());
+                    long[] unscaled = new long[rows];
+                    long value = 0;
+                    for (int i = 0; i < rows; i++) {
+                        value += readZigZag();
+                        unscaled[i] = value;
+                    }
+                    return new Column(scale, unscaled, null);
+                }
+                case COLUMN_VALUES -> {
+                    BigDecimal[] values = new BigDecimal[rows];
+                    for (int i = 0; i < rows; i++) {
+                        values[i] = readDecimal();
+                    }
+                    return new Column(0, null, values);
+                }
+                default -> throw new IllegalArgumentException("Unknown column mode " + mode);
+            }
+        }
+    }
+
+    // a delta column (scale and unscaled values) or individually written values
+    private record Column(int scale, long[] unscaled, BigDecimal[] values) {
+
+        BigDecimal get(int index) {
+            return unscaled != null ? BigDecimal.valueOf(unscaled[index], scale) : values[index];
+        }
+
+        boolean isMoney() {
+            return unscaled != null && scale == InstallmentSchedule.MONEY_SCALE;
+        }
+
+        // periods 1..n
+        boolean isSequence() {
+            if (unscaled == null || scale != 0) return false;
+            for (int i = 0; i < unscaled.length; i++) {
+                if (unscaled[i] != i + 1) return false;
+            }
+            return true;
+        }
+    }
+}
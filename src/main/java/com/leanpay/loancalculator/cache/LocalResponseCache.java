@@ -0,0 +1,53 @@
+package com.leanpay.loancalculator.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.leanpay.loancalculator.config.LocalCacheProperties;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * On-heap L1 in front of the Redis {@link CacheConfig#FULL_RESPONSE_CACHE}. Only completed
+ * {@link LoanCalculationResponse}s are kept: they are immutable, so serving the same instance
+ * to every caller needs neither a network round trip nor deserialization.
+ */
+@Component
+public class LocalResponseCache {
+
+    private final Cache<String, LoanResponse> cache;
+
+    @Autowired
+    public LocalResponseCache(LocalCacheProperties properties) {
+        this(properties.maximumSize(), CacheConfig.FULL_RESPONSE_TTL);
+    }
+
+    public LocalResponseCache(long maximumSize, Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Optional<LoanResponse> get(String key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    public void put(String key, LoanResponse response) {
+        if (response instanceof LoanCalculationResponse) {
+            cache.put(key, response);
+        }
+    }
+
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
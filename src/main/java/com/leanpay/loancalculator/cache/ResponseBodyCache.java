@@ -0,0 +1,98 @@
+package com.leanpay.loancalculator.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.leanpay.loancalculator.config.LocalCacheProperties;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Pre-serialized HTTP bodies of completed loan responses, stored gzip-compressed next to the
+ * {@link CacheConfig#FULL_RESPONSE_CACHE} entry with the same TTL, plus an on-heap copy (plain and gzip)
+ * bounded by total body size. A hit is written to the client as-is, without deserializing or serializing
+ * the response and without compressing or inflating it.
+ */
+@Component
+public class ResponseBodyCache {
+
+    // plain string values; the former "fullResponseBody" hashes expire on their own
+    static final String BODY_CACHE = "fullResponseGzip";
+
+    private final RedisTemplate<String, byte[]> bodyRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CachedResponseBody> localBodies;
+
+    public ResponseBodyCache(@Qualifier("bodyRedisTemplate") RedisTemplate<String, byte[]> bodyRedisTemplate,
+                             ObjectMapper objectMapper,
+                             LocalCacheProperties properties) {
+        this.bodyRedisTemplate = bodyRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.localBodies = Caffeine.newBuilder()
+                .maximumWeight(properties.maximumBodySize().toBytes())
+                .weigher((String key, CachedResponseBody body) -> body.size())
+                .expireAfterWrite(CacheConfig.FULL_RESPONSE_TTL)
+                .build();
+    }
+
+    /**
+     * On-heap copy only; the Redis copy is read by {@link LoanCacheFacade} in the same round trip
+     * as the full and status entries.
+     */
+    public Optional<CachedResponseBody> getLocal(String key) {
+        return Optional.ofNullable(localBodies.getIfPresent(key));
+    }
+
+    void putLocal(String key, CachedResponseBody body) {
+        localBodies.put(key, body);
+    }
+
+    public void put(String key, LoanCalculationResponse response) {
+        putAll(Map.of(key, response));
+    }
+
+    /**
+     * Serializes all responses and writes them with a single pipelined round trip.
+     */
+    public void putAll(Map<String, LoanCalculationResponse> responses) {
+        if (responses.isEmpty()) return;
+
+        Map<String, CachedResponseBody> bodies = new HashMap<>();
+        responses.forEach((key, response) ->
+                bodies.put(key, CachedResponseBody.of(objectMapper.writeValueAsBytes(response))));
+
+        bodyRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, byte[]> redis = (RedisOperations<String, byte[]>) operations;
+                bodies.forEach((key, body) ->
+                        redis.opsForValue().set(redisKey(key), body.gzip(), CacheConfig.FULL_RESPONSE_TTL));
+                return null;
+            }
+        });
+        localBodies.putAll(bodies);
+    }
+
+    public void evict(String key) {
+        localBodies.invalidate(key);
+        bodyRedisTemplate.delete(redisKey(key));
+    }
+
+    void evictLocal(String key) {
+        localBodies.invalidate(key);
+    }
+
+    static String redisKey(String key) {
+        return CacheConfig.redisKey(BODY_CACHE, key);
+    }
+}
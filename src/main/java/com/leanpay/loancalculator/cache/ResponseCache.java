@@ -0,0 +1,21 @@
+package com.leanpay.loancalculator.cache;
+
+/**
+ * The response caches a lookup can hit, named as their Redis key prefixes.
+ */
+public enum ResponseCache {
+
+    FULL_RESPONSE(CacheConfig.FULL_RESPONSE_CACHE),
+    STATUS_RESPONSE(CacheConfig.STATUS_RESPONSE_CACHE),
+    BODY(ResponseBodyCache.BODY_CACHE);
+
+    private final String cacheName;
+
+    ResponseCache(String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    public String cacheName() {
+        return cacheName;
+    }
+}
@@ -0,0 +1,23 @@
+package com.leanpay.loancalculator.cache;
+
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+
+/**
+ * A loan response or, for a calculated loan found in the cache, its pre-serialized HTTP body.
+ * Exactly one of both is set.
+ */
+public record ResponseOrBody(LoanResponse response, CachedResponseBody body) {
+
+    public static ResponseOrBody of(LoanResponse response) {
+        return new ResponseOrBody(response, null);
+    }
+
+    public static ResponseOrBody of(CachedResponseBody body) {
+        return new ResponseOrBody(null, body);
+    }
+
+    public boolean isCalculated() {
+        return body != null || response instanceof LoanCalculationResponse;
+    }
+}
@@ -0,0 +1,31 @@
+package com.leanpay.loancalculator.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class CalculationExecutorConfig {
+
+    public static final String CALCULATION_EXECUTOR = "calculationExecutor";
+
+    /**
+     * Fixed number of calculation threads in front of a bounded queue. A full queue rejects the
+     * task ({@link org.springframework.core.task.TaskRejectedException}) instead of growing,
+     * request threads and cache hits are never blocked by calculations.
+     */
+    @Bean(CALCULATION_EXECUTOR)
+    public ThreadPoolTaskExecutor calculationExecutor(CalculationExecutorProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.maxConcurrency());
+        executor.setMaxPoolSize(properties.maxConcurrency());
+        executor.setQueueCapacity(properties.queueCapacity());
+        executor.setThreadNamePrefix("loan-calc-");
+        if (properties.virtualThreads()) {
+            executor.setThreadFactory(Thread.ofVirtual().name("loan-calc-v-", 0).factory());
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(properties.deadline().toMillis());
+        return executor;
+    }
+}
@@ -0,0 +1,35 @@
+package com.leanpay.loancalculator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "loan.executor")
+public record CalculationExecutorProperties(
+
+        // run calculations on virtual instead of platform threads
+        @DefaultValue("false")
+        boolean virtualThreads,
+
+        // calculations running at the same time
+        @DefaultValue("8")
+        int maxConcurrency,
+
+        // calculations waiting for a thread, further requests are answered with 503
+        @DefaultValue("100")
+        int queueCapacity,
+
+        // calculations that waited longer than this in the queue are dropped, the next request retries
+        @DefaultValue("30s")
+        Duration deadline,
+
+        // Retry-After of the 503 response
+        @DefaultValue("5s")
+        Duration retryAfter
+) {
+
+    public static CalculationExecutorProperties defaults() {
+        return new CalculationExecutorProperties(false, 8, 100, Duration.ofSeconds(30), Duration.ofSeconds(5));
+    }
+}
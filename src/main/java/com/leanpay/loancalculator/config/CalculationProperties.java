@@ -0,0 +1,44 @@
+package com.leanpay.loancalculator.config;
+
+import com.leanpay.loancalculator.service.AmortizationEngine;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "loan.calculation")
+public record CalculationProperties(
+
+        // artificial delay of calculateAndBuildLoan, Duration.ZERO disables it (benchmarks)
+        @DefaultValue("8s")
+        Duration simulatedDelay,
+
+        // engine used to generate the installment plan
+        @DefaultValue("FIXED_POINT")
+        AmortizationEngine engine,
+
+        // max number of (rate, term) annuity factors kept in memory
+        @DefaultValue("1024")
+        int annuityCacheSize,
+
+        // longer terms are only served as a stream (application/x-ndjson)
+        @DefaultValue("1200")
+        int maxBufferedMonths
+) {
+
+    public static CalculationProperties defaults() {
+        return new CalculationProperties(Duration.ofSeconds(8), AmortizationEngine.FIXED_POINT, 1024, 1200);
+    }
+
+    public CalculationProperties withSimulatedDelay(Duration simulatedDelay) {
+        return new CalculationProperties(simulatedDelay, engine, annuityCacheSize, maxBufferedMonths);
+    }
+
+    public CalculationProperties withEngine(AmortizationEngine engine) {
+        return new CalculationProperties(simulatedDelay, engine, annuityCacheSize, maxBufferedMonths);
+    }
+
+    public CalculationProperties withMaxBufferedMonths(int maxBufferedMonths) {
+        return new CalculationProperties(simulatedDelay, engine, annuityCacheSize, maxBufferedMonths);
+    }
+}
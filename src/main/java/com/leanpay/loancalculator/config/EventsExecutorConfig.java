@@ -0,0 +1,25 @@
+package com.leanpay.loancalculator.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class EventsExecutorConfig {
+
+    public static final String EVENTS_EXECUTOR = "eventsExecutor";
+
+    /**
+     * Sends the {@code done} event of {@code GET /loans/events}. A completion is signalled on the
+     * calculation (or Redis listener) thread, a slow client must not hold it while its socket is written.
+     * The queue is unbounded, it holds at most one task per open event stream.
+     */
+    @Bean(EVENTS_EXECUTOR)
+    public ThreadPoolTaskExecutor eventsExecutor(EventsProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.sendThreads());
+        executor.setMaxPoolSize(properties.sendThreads());
+        executor.setThreadNamePrefix("loan-events-");
+        return executor;
+    }
+}
@@ -0,0 +1,23 @@
+package com.leanpay.loancalculator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "loan.events")
+public record EventsProperties(
+
+        // how long a GET /loans/events connection waits for the calculation, clients reconnect afterwards
+        @DefaultValue("60s")
+        Duration timeout,
+
+        // threads writing done events to the clients, keeps socket writes off the calculation threads
+        @DefaultValue("4")
+        int sendThreads
+) {
+
+    public static EventsProperties defaults() {
+        return new EventsProperties(Duration.ofSeconds(60), 4);
+    }
+}
@@ -0,0 +1,33 @@
+package com.leanpay.loancalculator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "loan.key-filter")
+public record KeyFilterProperties(
+
+        // false looks up every cache miss in the database
+        @DefaultValue("true")
+        boolean enabled,
+
+        // keys of the first filter stage, further stages double it
+        @DefaultValue("100000")
+        long expectedKeys,
+
+        // overall share of new keys that are still looked up in the database
+        @DefaultValue("0.01")
+        double falsePositiveRate,
+
+        // request keys read per query when the filter is rebuilt on startup
+        @DefaultValue("10000")
+        int rebuildBatchSize,
+
+        // publish persisted keys to the other instances over Redis
+        @DefaultValue("true")
+        boolean mirror
+) {
+
+    public static KeyFilterProperties defaults() {
+        return new KeyFilterProperties(true, 100_000, 0.01, 10_000, true);
+    }
+}
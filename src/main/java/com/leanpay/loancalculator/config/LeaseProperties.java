@@ -0,0 +1,23 @@
+package com.leanpay.loancalculator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "loan.lease")
+public record LeaseProperties(
+
+        // lease expiry if the owning instance stops renewing it (crash, network partition)
+        @DefaultValue("30s")
+        Duration ttl,
+
+        // heartbeat period while the calculation runs, must be well below ttl
+        @DefaultValue("10s")
+        Duration renewInterval
+) {
+
+    public static LeaseProperties defaults() {
+        return new LeaseProperties(Duration.ofSeconds(30), Duration.ofSeconds(10));
+    }
+}
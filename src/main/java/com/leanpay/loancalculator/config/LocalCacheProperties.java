@@ -0,0 +1,17 @@
+package com.leanpay.loancalculator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "loan.cache.local")
+public record LocalCacheProperties(
+
+        // max number of full responses kept on-heap in front of Redis
+        @DefaultValue("10000")
+        long maximumSize,
+
+        // max total size of pre-serialized HTTP bodies kept on-heap (gzip)
+        @DefaultValue("64MB")
+        DataSize maximumBodySize
+) { }
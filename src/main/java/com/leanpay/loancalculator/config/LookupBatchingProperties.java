@@ -0,0 +1,31 @@
+package com.leanpay.loancalculator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "loan.lookup-batching")
+public record LookupBatchingProperties(
+
+        // false queries the database once per cache miss, in the request thread
+        @DefaultValue("true")
+        boolean enabled,
+
+        // lookups waiting for a batch, request threads query on their own when it is full
+        @DefaultValue("10000")
+        int capacity,
+
+        // max distinct request keys per query
+        @DefaultValue("100")
+        int maxBatchSize,
+
+        // max time a lookup waits for other lookups to join its batch
+        @DefaultValue("2ms")
+        Duration maxDelay
+) {
+
+    public static LookupBatchingProperties defaults() {
+        return new LookupBatchingProperties(true, 10_000, 100, Duration.ofMillis(2));
+    }
+}
@@ -0,0 +1,26 @@
+package com.leanpay.loancalculator.config;
+
+import com.leanpay.loancalculator.service.ScheduleStorage;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "loan.persistence")
+public record PersistenceProperties(
+
+        // how new loans store their installment plan, both layouts are always readable
+        @DefaultValue("ROWS")
+        ScheduleStorage scheduleStorage,
+
+        // move existing installment rows into loan.schedule on startup
+        @DefaultValue("false")
+        boolean migrateSchedules,
+
+        // loans converted per transaction by the migration
+        @DefaultValue("100")
+        int migrationBatchSize
+) {
+
+    public static PersistenceProperties defaults() {
+        return new PersistenceProperties(ScheduleStorage.ROWS, false, 100);
+    }
+}
@@ -0,0 +1,13 @@
+package com.leanpay.loancalculator.config;
+
+import com.leanpay.loancalculator.cache.CacheValueFormat;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "loan.cache")
+public record ResponseCacheProperties(
+
+        // JSON while instances that cannot read BINARY entries are still running
+        @DefaultValue("BINARY")
+        CacheValueFormat valueFormat
+) { }
@@ -0,0 +1,35 @@
+package com.leanpay.loancalculator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "loan.write-behind")
+public record WriteBehindProperties(
+
+        // false writes every loan in its own transaction right after the calculation
+        @DefaultValue("true")
+        boolean enabled,
+
+        // loans waiting to be written, calculation threads block when it is full
+        @DefaultValue("10000")
+        int capacity,
+
+        // max loans per transaction
+        @DefaultValue("200")
+        int batchSize,
+
+        // max time a loan waits for its batch to fill up
+        @DefaultValue("50ms")
+        Duration maxDelay,
+
+        // how long a calculation thread waits for space before writing the loan itself
+        @DefaultValue("5s")
+        Duration enqueueTimeout
+) {
+
+    public static WriteBehindProperties defaults() {
+        return new WriteBehindProperties(true, 10_000, 200, Duration.ofMillis(50), Duration.ofSeconds(5));
+    }
+}
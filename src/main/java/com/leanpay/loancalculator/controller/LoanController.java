@@ -1,25 +1,185 @@
 package com.leanpay.loancalculator.controller;
 
+import com.leanpay.loancalculator.cache.CachedResponseBody;
+import com.leanpay.loancalculator.cache.ResponseOrBody;
+import com.leanpay.loancalculator.dto.request.LoanBatchRequest;
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
-import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
+import com.leanpay.loancalculator.dto.response.InstallmentPageResponse;
+import com.leanpay.loancalculator.dto.response.LoanBatchResponse;
+import com.leanpay.loancalculator.dto.response.LoanJobResponse;
+import com.leanpay.loancalculator.dto.response.LoanJobState;
+import com.leanpay.loancalculator.dto.response.LoanSummaryResponse;
+import com.leanpay.loancalculator.service.InstallmentScheduleService;
+import com.leanpay.loancalculator.service.LoanBatchService;
+import com.leanpay.loancalculator.service.LoanEventService;
 import com.leanpay.loancalculator.service.LoanService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 
 @RestController
 @RequestMapping("/loans")
 @RequiredArgsConstructor
 public class LoanController {
 
+    static final String PREFER = "Prefer";
+    static final String PREFERENCE_APPLIED = "Preference-Applied";
+    static final String RESPOND_ASYNC = "respond-async";
+
+    // the result of a loan never changes, only its cache entries expire
+    private static final CacheControl RESULT_CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(10)).cachePublic();
+
     private final LoanService loanService;
+    private final InstallmentScheduleService installmentScheduleService;
+    private final LoanBatchService loanBatchService;
+    private final LoanEventService loanEventService;
 
     @PostMapping
-    public LoanResponse calculateLoan(@RequestBody @Valid LoanCalculationRequest request) {
-        return loanService.calculateLoan(request);
+    public ResponseEntity<?> calculateLoan(@RequestBody @Valid LoanCalculationRequest request,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                           String acceptEncoding,
+                                           @RequestHeader(value = PREFER, required = false) String prefer) {
+        installmentScheduleService.requireBufferable(request);
+        if (prefersAsync(prefer)) {
+            return submitLoan(request);
+        }
+        return respond(loanService.calculateLoanOrBody(request), acceptsGzip(acceptEncoding), CacheControl.empty());
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<LoanJobResponse> getJob(@PathVariable String id) {
+        if (!LoanRequestKey.isWellFormed(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return loanService.getJob(id)
+                .map(job -> ResponseEntity.ok().cacheControl(jobCacheControl(job)).body(job))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/jobs/{id}/result")
+    public ResponseEntity<?> getJobResult(@PathVariable String id,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                          String acceptEncoding) {
+        if (!LoanRequestKey.isWellFormed(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return loanService.findCalculatedLoan(id)
+                .<ResponseEntity<?>>map(result -> respond(result, acceptsGzip(acceptEncoding), RESULT_CACHE_CONTROL))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // no produces condition: stream=true is always answered with NDJSON, whatever the Accept header says,
+    // instead of falling through to the buffered mapping
+    @PostMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamLoan(@RequestBody @Valid LoanCalculationRequest request) {
+        LoanSummaryResponse summary = installmentScheduleService.getSummary(request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> installmentScheduleService.streamSchedule(summary, out));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter loanEvents(@Valid LoanCalculationRequest request) {
+        installmentScheduleService.requireBufferable(request);
+        return loanEventService.subscribe(request);
+    }
+
+    @PostMapping("/batch")
+    public LoanBatchResponse calculateLoans(@RequestBody @Valid LoanBatchRequest request) {
+        request.loans().forEach(installmentScheduleService::requireBufferable);
+        return loanBatchService.calculateLoans(request);
+    }
+
+    @GetMapping("/installments")
+    public InstallmentPageResponse getInstallments(@Valid LoanCalculationRequest request,
+                                                   @RequestParam(defaultValue = "1") int from,
+                                                   @RequestParam(required = false) Integer to) {
+        return installmentScheduleService.getInstallmentPage(request, from, to);
+    }
+
+    // 303 to the result if the loan is already calculated, otherwise 202 with the job to poll
+    private ResponseEntity<LoanJobResponse> submitLoan(LoanCalculationRequest request) {
+        LoanJobResponse job = loanService.submitLoan(request);
+        if (job.state() == LoanJobState.DONE) {
+            return ResponseEntity.status(HttpStatus.SEE_OTHER).location(jobUri(job.id(), "/result")).build();
+        }
+
+        long retryAfter = job.estimatedCompletionAt() == null ? 1
+                : Math.max(1, Duration.between(Instant.now(), job.estimatedCompletionAt()).toSeconds());
+        return ResponseEntity.accepted()
+                .location(jobUri(job.id(), ""))
+                .header(PREFERENCE_APPLIED, RESPOND_ASYNC)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(job);
+    }
+
+    private static URI jobUri(String id, String suffix) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/loans/jobs/{id}" + suffix)
+                .buildAndExpand(id)
+                .toUri();
+    }
+
+    // a running job may be served from an HTTP cache for a second, which absorbs tight polling loops
+    private static CacheControl jobCacheControl(LoanJobResponse job) {
+        return switch (job.state()) {
+            case CALCULATING -> CacheControl.maxAge(Duration.ofSeconds(1)).cachePublic();
+            case DONE -> CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic();
+            case FAILED -> CacheControl.noStore();
+        };
+    }
+
+    static boolean prefersAsync(String prefer) {
+        if (prefer == null) return false;
+        for (String preference : prefer.split(",")) {
+            if (preference.split(";")[0].trim().equalsIgnoreCase(RESPOND_ASYNC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ResponseEntity<?> respond(ResponseOrBody result, boolean gzip, CacheControl cacheControl) {
+        if (result.body() != null) {
+            return cachedBody(result.body(), gzip, cacheControl);
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).body(result.response());
+    }
+
+    // the cached bytes are the final body (gzip or plain), written without materializing the response
+    private static ResponseEntity<byte[]> cachedBody(CachedResponseBody body, boolean gzip, CacheControl cacheControl) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 
 }
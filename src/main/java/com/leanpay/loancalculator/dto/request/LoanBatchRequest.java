@@ -0,0 +1,15 @@
+package com.leanpay.loancalculator.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record LoanBatchRequest(
+
+        @NotEmpty
+        @Size(max = 500, message = "A batch can contain at most 500 loans")
+        List<@Valid @NotNull LoanCalculationRequest> loans
+) { }
@@ -1,6 +1,7 @@
 package com.leanpay.loancalculator.dto.request;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
@@ -18,5 +19,10 @@ public record LoanCalculationRequest(
 
         @NotNull
         @Min(value = 2, message = "Number of months must be at least 2")
+        @Max(value = LoanCalculationRequest.MAX_MONTHS, message = "Number of months must be at most {value}")
         Integer numberOfMonths
-) { }
+) {
+
+    // hard limit for every endpoint, streamed schedules included
+    public static final int MAX_MONTHS = 100_000;
+}
@@ -0,0 +1,61 @@
+package com.leanpay.loancalculator.dto.request;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Canonical key of a loan request, shared by the Redis caches and the {@code loan.requestKey} column.
+ * <p>
+ * Numerically equal requests ({@code 1000}, {@code 1000.0}, {@code 1000.00}) map to the same key:
+ * amount and rate are normalized with {@link BigDecimal#stripTrailingZeros()} before hashing.
+ * The key is the first 128 bits of the SHA-256 of the normalized terms, as 32 lowercase hex characters.
+ */
+public final class LoanRequestKey {
+
+    public static final int LENGTH = 32;
+
+    private static final int HASH_BYTES = LENGTH / 2;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private LoanRequestKey() {
+    }
+
+    public static String of(LoanCalculationRequest request) {
+        return of(request.amount(), request.annualInterestRate(), request.numberOfMonths());
+    }
+
+    public static String of(BigDecimal amount, BigDecimal annualInterestRate, int numberOfMonths) {
+        byte[] hash = sha256(canonicalTerms(amount, annualInterestRate, numberOfMonths));
+        return HEX.formatHex(hash, 0, HASH_BYTES);
+    }
+
+    /**
+     * @return whether {@code key} has the shape of a request key (e.g. a job id taken from a URL)
+     */
+    public static boolean isWellFormed(String key) {
+        if (key == null || key.length() != LENGTH) return false;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = key.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) return false;
+        }
+        return true;
+    }
+
+    static String canonicalTerms(BigDecimal amount, BigDecimal annualInterestRate, int numberOfMonths) {
+        return amount.stripTrailingZeros().toPlainString() + ":"
+                + annualInterestRate.stripTrailingZeros().toPlainString() + ":"
+                + numberOfMonths;
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.leanpay.loancalculator.dto.response;
+
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+
+import java.util.List;
+
+public record InstallmentPageResponse(
+        LoanCalculationRequest loan,
+        Integer from,
+        Integer to,
+        List<InstallmentDto> installmentPlan
+) { }
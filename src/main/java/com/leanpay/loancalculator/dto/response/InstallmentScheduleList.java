@@ -0,0 +1,40 @@
+package com.leanpay.loancalculator.dto.response;
+
+import com.leanpay.loancalculator.entity.InstallmentSchedule;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only installment plan backed by an {@link InstallmentSchedule}. The plan stays in long cents
+ * while it is cached; an {@link InstallmentDto} (with its {@code BigDecimal}s) is only created when a
+ * row is read, i.e. when the response is written as JSON.
+ */
+public final class InstallmentScheduleList extends AbstractList<InstallmentDto> implements RandomAccess {
+
+    private final InstallmentSchedule schedule;
+
+    public InstallmentScheduleList(InstallmentSchedule schedule) {
+        this.schedule = schedule;
+    }
+
+    public InstallmentSchedule schedule() {
+        return schedule;
+    }
+
+    @Override
+    public InstallmentDto get(int index) {
+        return new InstallmentDto(
+                schedule.period(index),
+                schedule.payment(index),
+                schedule.principal(index),
+                schedule.interest(index),
+                schedule.balance(index)
+        );
+    }
+
+    @Override
+    public int size() {
+        return schedule.size();
+    }
+}
@@ -0,0 +1,7 @@
+package com.leanpay.loancalculator.dto.response;
+
+import java.util.List;
+
+public record LoanBatchResponse(
+        List<LoanResponse> loans
+) { }
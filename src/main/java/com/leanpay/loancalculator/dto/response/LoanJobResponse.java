@@ -0,0 +1,15 @@
+package com.leanpay.loancalculator.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LoanJobResponse(
+        String id,
+        LoanJobState state,
+        Instant enqueuedAt,
+        Instant estimatedCompletionAt,
+        Instant completedAt
+) {
+}
@@ -0,0 +1,7 @@
+package com.leanpay.loancalculator.dto.response;
+
+public enum LoanJobState {
+    CALCULATING,
+    DONE,
+    FAILED
+}
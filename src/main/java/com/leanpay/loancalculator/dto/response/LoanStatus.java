@@ -2,5 +2,7 @@ package com.leanpay.loancalculator.dto.response;
 
 public enum LoanStatus {
     CALCULATING,
-    DONE
+    DONE,
+    // batch item that could not be scheduled because the calculation capacity is exhausted; retry later
+    REJECTED
 }
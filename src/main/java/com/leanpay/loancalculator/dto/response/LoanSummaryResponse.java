@@ -0,0 +1,12 @@
+package com.leanpay.loancalculator.dto.response;
+
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+
+/**
+ * First line of a streamed (application/x-ndjson) schedule, followed by one {@link InstallmentDto} per line.
+ */
+public record LoanSummaryResponse(
+        LoanCalculationRequest loan,
+        LoanStatus status,
+        SummaryDto summary
+) implements LoanResponse { }
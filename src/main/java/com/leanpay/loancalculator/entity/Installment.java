@@ -12,8 +12,14 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class Installment {
 
+    public static final String ID_SEQUENCE = "installment_seq";
+
+    // ids are handed out in blocks (pooled-lo), which also lets LoanBulkWriter batch the inserts
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private Integer period;
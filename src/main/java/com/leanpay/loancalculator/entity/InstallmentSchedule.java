@@ -0,0 +1,214 @@
+package com.leanpay.loancalculator.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Installment plan of a loan stored as one column of the {@code loan} row instead of one
+ * {@link Installment} row per period.
+ * <p>
+ * Amounts are kept in cents, periods are implicit ({@code 1..size}). The binary form is
+ * {@code [version][rows][payment][principal][interest][balance]} where every column is a
+ * sequence of zigzag varint deltas, so a 360 month plan takes about 3 KB.
+ */
+public final class InstallmentSchedule {
+
+    static final byte VERSION = 1;
+
+    public static final int MONEY_SCALE = 2;
+
+    private final long[] payment;
+    private final long[] principal;
+    private final long[] interest;
+    private final long[] balance;
+
+    private InstallmentSchedule(long[] payment, long[] principal, long[] interest, long[] balance) {
+        this.payment = payment;
+        this.principal = principal;
+        this.interest = interest;
+        this.balance = balance;
+    }
+
+    /**
+     * Schedule over columns in cents (index {@code i} is period {@code i + 1}). The arrays are not
+     * copied, callers must not modify them afterwards.
+     */
+    public static InstallmentSchedule of(long[] payment, long[] principal, long[] interest, long[] balance) {
+        int rows = payment.length;
+        if (principal.length != rows || interest.length != rows || balance.length != rows) {
+            throw new IllegalArgumentException("Schedule columns differ in length");
+        }
+        return new InstallmentSchedule(payment, principal, interest, balance);
+    }
+
+    /**
+     * @return empty if the plan is not representable (periods not {@code 1..n}, missing values,
+     * more than two decimals or out of {@code long} cents range), it has to be stored as rows then
+     */
+    public static Optional<InstallmentSchedule> from(List<Installment> installments) {
+        int rows = installments.size();
+        long[] payment = new long[rows];
+        long[] principal = new long[rows];
+        long[] interest = new long[rows];
+        long[] balance = new long[rows];
+
+        try {
+            for (int i = 0; i < rows; i++) {
+                Installment installment = installments.get(i);
+                if (installment.getPeriod() == null || installment.getPeriod() != i + 1) {
+                    return Optional.empty();
+                }
+                payment[i] = toCents(installment.getPayment());
+                principal[i] = toCents(installment.getPrincipal());
+                interest[i] = toCents(installment.getInterest());
+                balance[i] = toCents(installment.getBalance());
+            }
+        } catch (ArithmeticException | NullPointerException e) {
+            return Optional.empty();
+        }
+        return Optional.of(new InstallmentSchedule(payment, principal, interest, balance));
+    }
+
+    public int size() {
+        return payment.length;
+    }
+
+    public int period(int index) {
+        return index + 1;
+    }
+
+    public BigDecimal payment(int index) {
+        return money(payment[index]);
+    }
+
+    public BigDecimal principal(int index) {
+        return money(principal[index]);
+    }
+
+    public BigDecimal interest(int index) {
+        return money(interest[index]);
+    }
+
+    public BigDecimal balance(int index) {
+        return money(balance[index]);
+    }
+
+    public long paymentCents(int index) {
+        return payment[index];
+    }
+
+    public long principalCents(int index) {
+        return principal[index];
+    }
+
+    public long interestCents(int index) {
+        return interest[index];
+    }
+
+    public long balanceCents(int index) {
+        return balance[index];
+    }
+
+    /**
+     * Detached {@link Installment} view of the schedule (not associated with a loan).
+     */
+    public List<Installment> toInstallments() {
+        List<Installment> plan = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            plan.add(Installment.builder()
+                    .period(period(i))
+                    .payment(payment(i))
+                    .principal(principal(i))
+                    .interest(interest(i))
+                    .balance(balance(i))
+                    .build());
+        }
+        return plan;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + size() * 8);
+        out.write(VERSION);
+        writeVarLong(out, size());
+        writeColumn(out, payment);
+        writeColumn(out, principal);
+        writeColumn(out, interest);
+        writeColumn(out, balance);
+        return out.toByteArray();
+    }
+
+    public static InstallmentSchedule fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported schedule version " + version);
+            }
+            long rows = readVarLong(in);
+            // every value takes at least one byte
+            if (rows < 0 || rows * 4 > in.remaining()) {
+                throw new IllegalArgumentException("Invalid schedule size " + rows);
+            }
+            return new InstallmentSchedule(
+                    readColumn(in, (int) rows),
+                    readColumn(in, (int) rows),
+                    readColumn(in, (int) rows),
+                    readColumn(in, (int) rows));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated schedule", e);
+        }
+    }
+
+    private static long toCents(BigDecimal value) {
+        return value.setScale(MONEY_SCALE).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, MONEY_SCALE);
+    }
+
+    private static void writeColumn(ByteArrayOutputStream out, long[] column) {
+        long previous = 0;
+        for (long value : column) {
+            long delta = value - previous;
+            writeVarLong(out, (delta << 1) ^ (delta >> 63));
+            previous = value;
+        }
+    }
+
+    private static long[] readColumn(ByteBuffer in, int rows) {
+        long[] column = new long[rows];
+        long value = 0;
+        for (int i = 0; i < rows; i++) {
+            long zigzag = readVarLong(in);
+            value += (zigzag >>> 1) ^ -(zigzag & 1);
+            column[i] = value;
+        }
+        return column;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
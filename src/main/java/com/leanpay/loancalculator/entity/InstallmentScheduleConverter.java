@@ -0,0 +1,18 @@
+package com.leanpay.loancalculator.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class InstallmentScheduleConverter implements AttributeConverter<InstallmentSchedule, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(InstallmentSchedule schedule) {
+        return schedule == null ? null : schedule.toBytes();
+    }
+
+    @Override
+    public InstallmentSchedule convertToEntityAttribute(byte[] bytes) {
+        return bytes == null ? null : InstallmentSchedule.fromBytes(bytes);
+    }
+}
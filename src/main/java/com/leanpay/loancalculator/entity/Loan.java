@@ -1,11 +1,13 @@
 package com.leanpay.loancalculator.entity;
 
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Builder
 @Getter
@@ -27,6 +29,10 @@ public class Loan {
     @Version
     private Integer version;
 
+    // LoanRequestKey of (amount, annualInterestRate, numberOfMonths)
+    @Column(nullable = false, unique = true, length = LoanRequestKey.LENGTH)
+    private String requestKey;
+
     private BigDecimal amount;
     private BigDecimal annualInterestRate;
     private Integer numberOfMonths;
@@ -34,6 +40,10 @@ public class Loan {
     private BigDecimal totalPayments;
     private BigDecimal totalInterest;
 
+    // columnar installment plan, the installments collection is empty when it is set
+    @Convert(converter = InstallmentScheduleConverter.class)
+    private InstallmentSchedule schedule;
+
     @OneToMany(mappedBy = "loan", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     @Setter(AccessLevel.NONE)
@@ -50,5 +60,32 @@ public class Loan {
         installment.setLoan(this);
         this.installments.add(installment);
     }
-}
 
+    /**
+     * Moves the installment rows into the columnar {@link #schedule}; orphaned rows are deleted on flush.
+     *
+     * @return {@code false} if the plan is not representable as a schedule, the rows are kept then
+     */
+    public boolean moveInstallmentsToSchedule() {
+        // calculated columnar already (fixed-point engine)
+        if (schedule != null && installments.isEmpty()) return true;
+
+        Optional<InstallmentSchedule> columnar = InstallmentSchedule.from(installments);
+        if (columnar.isEmpty()) return false;
+
+        this.schedule = columnar.get();
+        installments.forEach(installment -> installment.setLoan(null));
+        installments.clear();
+        return true;
+    }
+
+    /**
+     * Moves the columnar {@link #schedule} into installment rows, for loans stored as rows.
+     */
+    public void moveScheduleToInstallments() {
+        if (schedule == null) return;
+
+        addInstallments(schedule.toInstallments());
+        this.schedule = null;
+    }
+}
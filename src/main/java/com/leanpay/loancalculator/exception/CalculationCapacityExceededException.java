@@ -0,0 +1,16 @@
+package com.leanpay.loancalculator.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class CalculationCapacityExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public CalculationCapacityExceededException(Duration retryAfter, Throwable cause) {
+        super("Too many loans are being calculated, retry in " + retryAfter.toSeconds() + " seconds", cause);
+        this.retryAfter = retryAfter;
+    }
+}
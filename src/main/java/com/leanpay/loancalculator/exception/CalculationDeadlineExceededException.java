@@ -0,0 +1,10 @@
+package com.leanpay.loancalculator.exception;
+
+import java.time.Instant;
+
+public class CalculationDeadlineExceededException extends RuntimeException {
+
+    public CalculationDeadlineExceededException(Instant deadline) {
+        super("Calculation was not started before its deadline " + deadline);
+    }
+}
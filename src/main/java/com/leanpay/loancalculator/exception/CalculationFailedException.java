@@ -0,0 +1,8 @@
+package com.leanpay.loancalculator.exception;
+
+public class CalculationFailedException extends RuntimeException {
+
+    public CalculationFailedException(String key) {
+        super("Calculation of loan " + key + " failed, retry the request");
+    }
+}
@@ -2,6 +2,8 @@ package com.leanpay.loancalculator.exception;
 
 import com.leanpay.loancalculator.exception.dto.FieldErrorDetail;
 import com.leanpay.loancalculator.exception.dto.ValidationErrorResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -9,6 +11,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -17,6 +20,14 @@ public class GlobalExceptionHandler {
     private final static String VALIDATION_FAILED_MESSAGE = "Validation failed";
     private final static String VALIDATION_ERROR_CODE = "VALIDATION_ERROR";
     private final static String UNKNOWN_TYPE = "Unknown";
+    private final static String INVALID_RANGE_MESSAGE = "Invalid installment range";
+    private final static String INVALID_RANGE_ERROR_CODE = "INVALID_INSTALLMENT_RANGE";
+    private final static String STREAMING_REQUIRED_MESSAGE = "Schedule too large";
+    private final static String STREAMING_REQUIRED_ERROR_CODE = "STREAMING_REQUIRED";
+    private final static String OUT_OF_RANGE_MESSAGE = "Loan out of range";
+    private final static String OUT_OF_RANGE_ERROR_CODE = "LOAN_OUT_OF_RANGE";
+    private final static String CAPACITY_EXCEEDED_MESSAGE = "Calculation capacity exceeded";
+    private final static String CAPACITY_EXCEEDED_ERROR_CODE = "CALCULATION_CAPACITY_EXCEEDED";
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ValidationErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex,
@@ -38,6 +49,81 @@ public class GlobalExceptionHandler {
         return ResponseEntity.unprocessableContent().body(response);
     }
 
+    @ExceptionHandler(InvalidInstallmentRangeException.class)
+    public ResponseEntity<ValidationErrorResponse> handleInvalidInstallmentRange(InvalidInstallmentRangeException ex,
+                                                                                 WebRequest request) {
+
+        ValidationErrorResponse response = new ValidationErrorResponse(
+                INVALID_RANGE_MESSAGE,
+                INVALID_RANGE_ERROR_CODE,
+                LocalDateTime.now(),
+                request.getDescription(false).replace("uri=", ""),
+                List.of(
+                        new FieldErrorDetail("from", ex.getFrom(), Integer.class.getSimpleName(), ex.getMessage()),
+                        new FieldErrorDetail("to", ex.getTo(), Integer.class.getSimpleName(), ex.getMessage())
+                )
+        );
+
+        return ResponseEntity.unprocessableContent().body(response);
+    }
+
+    @ExceptionHandler(StreamingRequiredException.class)
+    public ResponseEntity<ValidationErrorResponse> handleStreamingRequired(StreamingRequiredException ex,
+                                                                           WebRequest request) {
+
+        ValidationErrorResponse response = new ValidationErrorResponse(
+                STREAMING_REQUIRED_MESSAGE,
+                STREAMING_REQUIRED_ERROR_CODE,
+                LocalDateTime.now(),
+                request.getDescription(false).replace("uri=", ""),
+                List.of(new FieldErrorDetail(
+                        "numberOfMonths",
+                        ex.getNumberOfMonths(),
+                        Integer.class.getSimpleName(),
+                        ex.getMessage()
+                ))
+        );
+
+        return ResponseEntity.unprocessableContent().body(response);
+    }
+
+    @ExceptionHandler(LoanOutOfRangeException.class)
+    public ResponseEntity<ValidationErrorResponse> handleLoanOutOfRange(LoanOutOfRangeException ex,
+                                                                        WebRequest request) {
+
+        ValidationErrorResponse response = new ValidationErrorResponse(
+                OUT_OF_RANGE_MESSAGE,
+                OUT_OF_RANGE_ERROR_CODE,
+                LocalDateTime.now(),
+                request.getDescription(false).replace("uri=", ""),
+                List.of(new FieldErrorDetail(
+                        "amount",
+                        ex.getAmount(),
+                        BigDecimal.class.getSimpleName(),
+                        ex.getMessage()
+                ))
+        );
+
+        return ResponseEntity.unprocessableContent().body(response);
+    }
+
+    @ExceptionHandler(CalculationCapacityExceededException.class)
+    public ResponseEntity<ValidationErrorResponse> handleCalculationCapacityExceeded(CalculationCapacityExceededException ex,
+                                                                                     WebRequest request) {
+
+        ValidationErrorResponse response = new ValidationErrorResponse(
+                CAPACITY_EXCEEDED_MESSAGE,
+                CAPACITY_EXCEEDED_ERROR_CODE,
+                LocalDateTime.now(),
+                request.getDescription(false).replace("uri=", ""),
+                List.of()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(response);
+    }
+
     private FieldErrorDetail mapFieldErrorToDetail(FieldError fieldError) {
         return new FieldErrorDetail(
                 fieldError.getField(),
@@ -0,0 +1,16 @@
+package com.leanpay.loancalculator.exception;
+
+import lombok.Getter;
+
+@Getter
+public class InvalidInstallmentRangeException extends RuntimeException {
+
+    private final int from;
+    private final int to;
+
+    public InvalidInstallmentRangeException(int from, int to, String message) {
+        super(message);
+        this.from = from;
+        this.to = to;
+    }
+}
@@ -0,0 +1,16 @@
+package com.leanpay.loancalculator.exception;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+public class LoanOutOfRangeException extends RuntimeException {
+
+    private final BigDecimal amount;
+
+    public LoanOutOfRangeException(BigDecimal amount) {
+        super("Total payments of the loan exceed the supported range");
+        this.amount = amount;
+    }
+}
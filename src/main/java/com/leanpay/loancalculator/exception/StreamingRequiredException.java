@@ -0,0 +1,16 @@
+package com.leanpay.loancalculator.exception;
+
+import lombok.Getter;
+
+@Getter
+public class StreamingRequiredException extends RuntimeException {
+
+    private final int numberOfMonths;
+    private final int maxBufferedMonths;
+
+    public StreamingRequiredException(int numberOfMonths, int maxBufferedMonths) {
+        super("Loans longer than " + maxBufferedMonths + " months are only available as a stream (stream=true)");
+        this.numberOfMonths = numberOfMonths;
+        this.maxBufferedMonths = maxBufferedMonths;
+    }
+}
@@ -1,7 +1,9 @@
 package com.leanpay.loancalculator.mapper;
 
 import com.leanpay.loancalculator.dto.response.InstallmentDto;
+import com.leanpay.loancalculator.dto.response.InstallmentScheduleList;
 import com.leanpay.loancalculator.entity.Installment;
+import com.leanpay.loancalculator.entity.InstallmentSchedule;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -25,4 +27,9 @@ public class InstallmentMapper {
                 .toList();
     }
 
+    // rows are created when the list is read (JSON edge), the plan stays in long cents until then
+    public List<InstallmentDto> toDtoList(InstallmentSchedule schedule) {
+        return new InstallmentScheduleList(schedule);
+    }
+
 }
@@ -3,9 +3,12 @@ package com.leanpay.loancalculator.mapper;
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
 import com.leanpay.loancalculator.dto.response.*;
 import com.leanpay.loancalculator.entity.Loan;
+import com.leanpay.loancalculator.repository.PersistedLoanView;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 
 
 @Component
@@ -22,15 +25,38 @@ public class LoanCalculationResponseMapper {
         );
     }
 
+    public LoanResponse toRejectedResponse(LoanCalculationRequest request) {
+        return new LoanStatusResponse(
+                request,
+                LoanStatus.REJECTED
+        );
+    }
+
     public LoanResponse toResponse(Loan loan) {
         return new LoanCalculationResponse(
                 buildLoanDetails(loan),
                 LoanStatus.DONE,
                 buildSummary(loan),
-                installmentMapper.toDtoList(loan.getInstallments())
+                buildInstallments(loan)
         );
     }
 
+    public LoanResponse toResponse(PersistedLoanView loan, List<InstallmentDto> installments) {
+        return new LoanCalculationResponse(
+                new LoanCalculationRequest(loan.amount(), loan.annualInterestRate(), loan.numberOfMonths()),
+                LoanStatus.DONE,
+                new SummaryDto(loan.monthlyPayment(), loan.totalPayments(), loan.totalInterest()),
+                installments
+        );
+    }
+
+    // columnar loans have no installment rows
+    private List<InstallmentDto> buildInstallments(Loan loan) {
+        return loan.getSchedule() != null
+                ? installmentMapper.toDtoList(loan.getSchedule())
+                : installmentMapper.toDtoList(loan.getInstallments());
+    }
+
     public LoanCalculationRequest buildLoanDetails(Loan loan) {
         return new LoanCalculationRequest(
                 loan.getAmount(),
@@ -0,0 +1,108 @@
+package com.leanpay.loancalculator.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters recorded on the calculation, persistence and cache lookup path. Timers publish
+ * p50/p95/p99 and a histogram (for aggregation across instances in Prometheus); calculation and
+ * persistence timers are tagged with the {@link TermBucket} of the loan.
+ */
+@Component
+public class LoanMetrics {
+
+    public static final String CALCULATION = "loan.calculation";
+    public static final String PERSISTENCE = "loan.persistence";
+    public static final String PERSISTENCE_BATCH = "loan.persistence.batch";
+    public static final String PERSISTENCE_BATCH_SIZE = "loan.persistence.batch.size";
+    public static final String PERSISTENCE_DUPLICATES = "loan.persistence.duplicates";
+    public static final String CACHE_LOOKUP = "loan.cache.lookup";
+    public static final String TERM_TAG = "term";
+    public static final String TIER_TAG = "tier";
+    public static final String LOCAL_TIER = "local";
+    public static final String REDIS_TIER = "redis";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final Map<TermBucket, Timer> calculation = new EnumMap<>(TermBucket.class);
+    private final Map<TermBucket, Timer> persistence = new EnumMap<>(TermBucket.class);
+    private final Map<TermBucket, Counter> duplicates = new EnumMap<>(TermBucket.class);
+    private final Timer persistenceBatch;
+    private final DistributionSummary persistenceBatchSize;
+    private final Timer localLookup;
+    private final Timer redisLookup;
+
+    public LoanMetrics(MeterRegistry registry) {
+        for (TermBucket bucket : TermBucket.values()) {
+            calculation.put(bucket, timer(CALCULATION, "Duration of the amortization calculation", bucket, registry));
+            persistence.put(bucket, timer(PERSISTENCE, "Time from a calculated loan to its commit", bucket, registry));
+            duplicates.put(bucket, Counter.builder(PERSISTENCE_DUPLICATES)
+                    .description("Calculated loans that were already persisted by another thread or instance")
+                    .tag(TERM_TAG, bucket.tag())
+                    .register(registry));
+        }
+        persistenceBatch = Timer.builder(PERSISTENCE_BATCH)
+                .description("Duration of one write-behind transaction")
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+        persistenceBatchSize = DistributionSummary.builder(PERSISTENCE_BATCH_SIZE)
+                .description("Loans per write-behind transaction")
+                .publishPercentiles(PERCENTILES)
+                .register(registry);
+        localLookup = cacheLookupTimer(LOCAL_TIER, registry);
+        redisLookup = cacheLookupTimer(REDIS_TIER, registry);
+    }
+
+    public void recordCalculation(int months, long nanos) {
+        calculation.get(TermBucket.of(months)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPersisted(int months, long nanos, boolean inserted) {
+        TermBucket bucket = TermBucket.of(months);
+        persistence.get(bucket).record(nanos, TimeUnit.NANOSECONDS);
+        if (!inserted) {
+            duplicates.get(bucket).increment();
+        }
+    }
+
+    public void recordBatch(int size, long nanos) {
+        persistenceBatch.record(nanos, TimeUnit.NANOSECONDS);
+        persistenceBatchSize.record(size);
+    }
+
+    // one sample per lookup of the tier, whichever response caches it consulted
+    public void recordLocalLookup(long nanos) {
+        localLookup.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // one sample per round trip
+    public void recordRedisLookup(long nanos) {
+        redisLookup.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer cacheLookupTimer(String tier, MeterRegistry registry) {
+        return Timer.builder(CACHE_LOOKUP)
+                .description("Response cache lookup latency by tier")
+                .tag(TIER_TAG, tier)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer timer(String name, String description, TermBucket bucket, MeterRegistry registry) {
+        return Timer.builder(name)
+                .description(description)
+                .tag(TERM_TAG, bucket.tag())
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
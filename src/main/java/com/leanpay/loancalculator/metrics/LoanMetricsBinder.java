@@ -0,0 +1,123 @@
+package com.leanpay.loancalculator.metrics;
+
+import com.leanpay.loancalculator.cache.CacheTierStats;
+import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.cache.LoanCompletionNotifier;
+import com.leanpay.loancalculator.cache.ResponseCache;
+import com.leanpay.loancalculator.service.AnnuityFactorCache;
+import com.leanpay.loancalculator.service.LoanCalculationScheduler;
+import com.leanpay.loancalculator.service.LoanWriteBehindQueue;
+import com.leanpay.loancalculator.service.PersistedLoanKeyFilter;
+import com.leanpay.loancalculator.service.PersistedLoanLoader;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the counters the components already keep (cache tiers, single-flight scheduler,
+ * write-behind queue, lookup batcher, annuity factor cache) as meters, read when scraped.
+ * Cache lookup latency is a timer of {@link LoanMetrics}.
+ * Depth and activity of the calculation executor are published by Spring Boot as
+ * {@code executor.*{name=calculationExecutor}}.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanMetricsBinder implements MeterBinder {
+
+    static final String CACHE_GETS = "loan.cache.gets";
+    static final String CACHE_HIT_RATIO = "loan.cache.hit.ratio";
+    static final String CACHE_TAG = "cache";
+
+    private final LoanCacheFacade cache;
+    private final LoanCalculationScheduler scheduler;
+    private final LoanWriteBehindQueue writeBehindQueue;
+    private final AnnuityFactorCache annuityFactorCache;
+    private final LoanCompletionNotifier completionNotifier;
+    private final PersistedLoanLoader persistedLoanLoader;
+    private final PersistedLoanKeyFilter keyFilter;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // L1 holds full responses and bodies, status responses are only kept in Redis
+        bindCacheTier(LoanMetrics.LOCAL_TIER, cache.localStats(),
+                EnumSet.of(ResponseCache.FULL_RESPONSE, ResponseCache.BODY), registry);
+        bindCacheTier(LoanMetrics.REDIS_TIER, cache.redisStats(), EnumSet.allOf(ResponseCache.class), registry);
+
+        counter("loan.calculation.started", "Calculations started on this instance",
+                scheduler, LoanCalculationScheduler::startedCount, registry);
+        counter("loan.calculation.coalesced", "Requests that joined an in-flight calculation",
+                scheduler, LoanCalculationScheduler::coalescedCount, registry);
+        counter("loan.calculation.leased.elsewhere", "Calculations left to the instance holding the lease",
+                scheduler, LoanCalculationScheduler::leasedElsewhereCount, registry);
+        counter("loan.calculation.rejected", "Calculations rejected because the executor was saturated",
+                scheduler, LoanCalculationScheduler::rejectedCount, registry);
+        Gauge.builder("loan.calculation.in.flight", scheduler, LoanCalculationScheduler::inFlightCount)
+                .description("Calculations in flight on this instance")
+                .register(registry);
+
+        Gauge.builder("loan.persistence.queue", writeBehindQueue, LoanWriteBehindQueue::queuedCount)
+                .description("Calculated loans waiting in the write-behind queue")
+                .register(registry);
+        counter("loan.persistence.caller.writes", "Loans written by the calculation thread because the queue was full or stopped",
+                writeBehindQueue, LoanWriteBehindQueue::callerWriteCount, registry);
+
+        counter("loan.lookup.batches", "Batched database lookups of persisted loans",
+                persistedLoanLoader, PersistedLoanLoader::batchCount, registry);
+        counter("loan.lookup.batched", "Cache misses resolved by a batched database lookup",
+                persistedLoanLoader, PersistedLoanLoader::batchedLookupCount, registry);
+        counter("loan.lookup.caller", "Cache misses looked up by the request thread itself",
+                persistedLoanLoader, PersistedLoanLoader::callerLookupCount, registry);
+
+        counter("loan.key.filter.skipped", "Cache misses not looked up because the loan was never persisted",
+                keyFilter, PersistedLoanKeyFilter::skippedCount, registry);
+        Gauge.builder("loan.key.filter.keys", keyFilter, PersistedLoanKeyFilter::keyCount)
+                .description("Request keys in the persisted key filter")
+                .register(registry);
+
+        Gauge.builder("loan.events.waiting", completionNotifier, LoanCompletionNotifier::waitingCount)
+                .description("Clients waiting for a calculation to complete")
+                .register(registry);
+
+        FunctionCounter.builder(CACHE_GETS, annuityFactorCache, AnnuityFactorCache::hitCount)
+                .tags(LoanMetrics.TIER_TAG, LoanMetrics.LOCAL_TIER, CACHE_TAG, "annuity", "result", "hit")
+                .register(registry);
+        FunctionCounter.builder(CACHE_GETS, annuityFactorCache, AnnuityFactorCache::missCount)
+                .tags(LoanMetrics.TIER_TAG, LoanMetrics.LOCAL_TIER, CACHE_TAG, "annuity", "result", "miss")
+                .register(registry);
+    }
+
+    private static void bindCacheTier(String tier, CacheTierStats stats, Set<ResponseCache> caches,
+                                      MeterRegistry registry) {
+        for (ResponseCache responseCache : caches) {
+            Tags tags = Tags.of(LoanMetrics.TIER_TAG, tier, CACHE_TAG, responseCache.cacheName());
+            FunctionCounter.builder(CACHE_GETS, stats, s -> s.hitCount(responseCache))
+                    .description("Response cache lookups by tier, cache and result")
+                    .tags(tags)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder(CACHE_GETS, stats, s -> s.missCount(responseCache))
+                    .description("Response cache lookups by tier, cache and result")
+                    .tags(tags)
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder(CACHE_HIT_RATIO, stats, s -> s.hitRatio(responseCache))
+                    .tags(tags)
+                    .register(registry);
+        }
+    }
+
+    private static <T> void counter(String name, String description, T source, ToDoubleFunction<T> count,
+                                    MeterRegistry registry) {
+        FunctionCounter.builder(name, source, count)
+                .description(description)
+                .register(registry);
+    }
+}
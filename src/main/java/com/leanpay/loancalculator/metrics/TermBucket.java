@@ -0,0 +1,34 @@
+package com.leanpay.loancalculator.metrics;
+
+/**
+ * Coarse loan term ranges used as the {@code term} tag, so metrics stay low-cardinality
+ * while still separating short consumer loans from 30-year mortgages.
+ */
+public enum TermBucket {
+    UP_TO_12("1-12", 12),
+    UP_TO_60("13-60", 60),
+    UP_TO_120("61-120", 120),
+    UP_TO_360("121-360", 360),
+    LONGER("361+", Integer.MAX_VALUE);
+
+    private final String tag;
+    private final int maxMonths;
+
+    TermBucket(String tag, int maxMonths) {
+        this.tag = tag;
+        this.maxMonths = maxMonths;
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    public static TermBucket of(int months) {
+        for (TermBucket bucket : values()) {
+            if (months <= bucket.maxMonths) {
+                return bucket;
+            }
+        }
+        return LONGER;
+    }
+}
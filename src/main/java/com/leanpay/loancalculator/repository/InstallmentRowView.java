@@ -0,0 +1,22 @@
+package com.leanpay.loancalculator.repository;
+
+import com.leanpay.loancalculator.dto.response.InstallmentDto;
+
+import java.math.BigDecimal;
+
+/**
+ * Installment columns of several loans read in one query, {@link #loanId()} tells them apart.
+ */
+public record InstallmentRowView(
+        Long loanId,
+        Integer period,
+        BigDecimal payment,
+        BigDecimal principal,
+        BigDecimal interest,
+        BigDecimal balance
+) {
+
+    public InstallmentDto toDto() {
+        return new InstallmentDto(period, payment, principal, interest, balance);
+    }
+}
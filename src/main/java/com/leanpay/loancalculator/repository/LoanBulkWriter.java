@@ -0,0 +1,106 @@
+package com.leanpay.loancalculator.repository;
+
+import com.leanpay.loancalculator.entity.Installment;
+import com.leanpay.loancalculator.entity.Loan;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts a calculated loan with plain JDBC instead of {@code loanRepository.save(loan)}.
+ * <p>
+ * The loan row is written with {@code ON CONFLICT DO NOTHING}, so a loan created concurrently by
+ * another thread or instance is detected without a failed statement. Installment rows take their
+ * ids from {@link Installment#ID_SEQUENCE} in the same blocks as Hibernate (pooled-lo) and are sent
+ * as one JDBC batch, which the driver rewrites into multi-row inserts
+ * ({@code reWriteBatchedInserts=true}).
+ */
+@Repository
+@RequiredArgsConstructor
+public class LoanBulkWriter {
+
+    private static final String INSERT_LOAN = """
+            INSERT INTO loan (version, request_key, amount, annual_interest_rate, number_of_months,
+                              monthly_payment, total_payments, total_interest, schedule)
+            VALUES (0, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            RETURNING id
+            """;
+
+    private static final String INSERT_INSTALLMENT = """
+            INSERT INTO installment (id, period, payment, principal, interest, balance, loan_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String NEXT_ID_BLOCKS =
+            "SELECT nextval('" + Installment.ID_SEQUENCE + "') FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return {@code false} if a loan with the same request key already exists, nothing is written then
+     */
+    @Transactional
+    public boolean insert(Loan loan) {
+        List<Long> inserted = jdbcTemplate.query(INSERT_LOAN,
+                (rs, rowNum) -> rs.getLong(1),
+                loan.getRequestKey(),
+                loan.getAmount(),
+                loan.getAnnualInterestRate(),
+                loan.getNumberOfMonths(),
+                loan.getMonthlyPayment(),
+                loan.getTotalPayments(),
+                loan.getTotalInterest(),
+                loan.getSchedule() != null ? loan.getSchedule().toBytes() : null);
+        if (inserted.isEmpty()) {
+            return false;
+        }
+
+        loan.setId(inserted.getFirst());
+        loan.setVersion(0);
+        insertInstallments(loan.getId(), loan.getInstallments());
+        return true;
+    }
+
+    private void insertInstallments(long loanId, List<Installment> installments) {
+        if (installments.isEmpty()) return;
+
+        List<Long> ids = allocateIds(installments.size());
+        for (int i = 0; i < installments.size(); i++) {
+            installments.get(i).setId(ids.get(i));
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_INSTALLMENT, installments, installments.size(),
+                (PreparedStatement ps, Installment installment) -> bind(ps, loanId, installment));
+    }
+
+    // pooled-lo: every nextval reserves [value, value + ID_ALLOCATION_SIZE)
+    private List<Long> allocateIds(int count) {
+        int blocks = (count + Installment.ID_ALLOCATION_SIZE - 1) / Installment.ID_ALLOCATION_SIZE;
+        List<Long> lows = jdbcTemplate.queryForList(NEXT_ID_BLOCKS, Long.class, blocks);
+
+        List<Long> ids = new ArrayList<>(count);
+        for (long low : lows) {
+            for (int i = 0; i < Installment.ID_ALLOCATION_SIZE && ids.size() < count; i++) {
+                ids.add(low + i);
+            }
+        }
+        return ids;
+    }
+
+    private static void bind(PreparedStatement ps, long loanId, Installment installment) throws SQLException {
+        ps.setLong(1, installment.getId());
+        ps.setInt(2, installment.getPeriod());
+        ps.setBigDecimal(3, installment.getPayment());
+        ps.setBigDecimal(4, installment.getPrincipal());
+        ps.setBigDecimal(5, installment.getInterest());
+        ps.setBigDecimal(6, installment.getBalance());
+        ps.setLong(7, loanId);
+    }
+}
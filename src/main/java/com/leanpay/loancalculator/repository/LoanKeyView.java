@@ -0,0 +1,3 @@
+package com.leanpay.loancalculator.repository;
+
+public record LoanKeyView(Long id, String requestKey) { }
@@ -1,17 +1,65 @@
 package com.leanpay.loancalculator.repository;
 
+import com.leanpay.loancalculator.dto.response.InstallmentDto;
 import com.leanpay.loancalculator.entity.Loan;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface LoanRepository extends JpaRepository<Loan, Long> {
 
+    // read path: flat rows straight into records, nothing is attached to the persistence context
+    @Query("""
+            select new com.leanpay.loancalculator.repository.PersistedLoanView(
+                l.id, l.requestKey, l.amount, l.annualInterestRate, l.numberOfMonths,
+                l.monthlyPayment, l.totalPayments, l.totalInterest, l.schedule)
+            from Loan l where l.requestKey = :requestKey
+            """)
+    Optional<PersistedLoanView> findViewByRequestKey(@Param("requestKey") String requestKey);
+
+    @Query("""
+            select new com.leanpay.loancalculator.repository.PersistedLoanView(
+                l.id, l.requestKey, l.amount, l.annualInterestRate, l.numberOfMonths,
+                l.monthlyPayment, l.totalPayments, l.totalInterest, l.schedule)
+            from Loan l where l.requestKey in :requestKeys
+            """)
+    List<PersistedLoanView> findViewsByRequestKeyIn(@Param("requestKeys") Collection<String> requestKeys);
+
+    @Query("""
+            select new com.leanpay.loancalculator.dto.response.InstallmentDto(
+                i.period, i.payment, i.principal, i.interest, i.balance)
+            from Installment i where i.loan.id = :loanId order by i.period
+            """)
+    List<InstallmentDto> findInstallmentDtosByLoanId(@Param("loanId") long loanId);
+
+    @Query("""
+            select new com.leanpay.loancalculator.repository.InstallmentRowView(
+                i.loan.id, i.period, i.payment, i.principal, i.interest, i.balance)
+            from Installment i where i.loan.id in :loanIds order by i.loan.id, i.period
+            """)
+    List<InstallmentRowView> findInstallmentRowsByLoanIdIn(@Param("loanIds") Collection<Long> loanIds);
+
+    // index lookup on request_key only, no installment data
+    boolean existsByRequestKey(String requestKey);
+
+    // keyset pagination over loans that still store their plan as installment rows
+    @Query("select l.id from Loan l where l.schedule is null and l.id > :afterId order by l.id")
+    List<Long> findIdsWithoutSchedule(@Param("afterId") long afterId, Limit limit);
+
+    // keyset pagination over all request keys
+    @Query("""
+            select new com.leanpay.loancalculator.repository.LoanKeyView(l.id, l.requestKey)
+            from Loan l where l.id > :afterId order by l.id
+            """)
+    List<LoanKeyView> findKeysAfter(@Param("afterId") long afterId, Limit limit);
+
     @EntityGraph(attributePaths = {"installments"})
-    Optional<Loan> findByAmountAndAnnualInterestRateAndNumberOfMonths(
-            BigDecimal amount, BigDecimal annualInterestRate, Integer numberOfMonths
-    );
+    List<Loan> findAllByIdIn(Collection<Long> ids);
 
 }
@@ -0,0 +1,22 @@
+package com.leanpay.loancalculator.repository;
+
+import com.leanpay.loancalculator.entity.InstallmentSchedule;
+
+import java.math.BigDecimal;
+
+/**
+ * Loan columns read by a constructor expression, without a managed {@link com.leanpay.loancalculator.entity.Loan}.
+ *
+ * @param schedule columnar installment plan, {@code null} if the plan is stored as installment rows
+ */
+public record PersistedLoanView(
+        Long id,
+        String requestKey,
+        BigDecimal amount,
+        BigDecimal annualInterestRate,
+        Integer numberOfMonths,
+        BigDecimal monthlyPayment,
+        BigDecimal totalPayments,
+        BigDecimal totalInterest,
+        InstallmentSchedule schedule
+) { }
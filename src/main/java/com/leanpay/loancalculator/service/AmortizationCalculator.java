@@ -1,36 +1,86 @@
 package com.leanpay.loancalculator.service;
 
+import com.leanpay.loancalculator.config.CalculationProperties;
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
+import com.leanpay.loancalculator.dto.response.InstallmentDto;
+import com.leanpay.loancalculator.dto.response.SummaryDto;
 import com.leanpay.loancalculator.entity.Installment;
 import com.leanpay.loancalculator.entity.Loan;
+import com.leanpay.loancalculator.exception.LoanOutOfRangeException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Component
 public class AmortizationCalculator {
 
+    static final MathContext ANNUITY_PRECISION = new MathContext(50, RoundingMode.HALF_EVEN);
+
+    // relative error of the approximated payment is orders of magnitude below 10^-34
+    // for every monthly rate representable at scale 10, so this is a safe decision margin
+    private static final int ROUNDING_SAFETY_DIGITS = 34;
+
+    private final Duration simulatedDelay;
+    private final AmortizationEngine engine;
+    private final AnnuityFactorCache annuityFactorCache;
+
+    public AmortizationCalculator() {
+        this(CalculationProperties.defaults());
+    }
+
+    public AmortizationCalculator(CalculationProperties properties) {
+        this(properties, new AnnuityFactorCache(properties));
+    }
+
+    @Autowired
+    public AmortizationCalculator(CalculationProperties properties, AnnuityFactorCache annuityFactorCache) {
+        this.simulatedDelay = properties.simulatedDelay();
+        this.engine = properties.engine();
+        this.annuityFactorCache = annuityFactorCache;
+    }
+
     public Loan calculateAndBuildLoan(LoanCalculationRequest request) {
 
         // simulating expensive operation
-        try {
-            Thread.sleep(8000);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
+        simulateExpensiveOperation();
 
-        BigDecimal monthlyPayment = calculateMonthlyPayment(request);
-        BigDecimal monthlyInterestRate = getMonthlyInterestRate(request.annualInterestRate());
+        AnnuityTerms annuityTerms = getAnnuityTerms(request);
+        BigDecimal monthlyPayment = calculateMonthlyPayment(request.amount(), annuityTerms);
+        BigDecimal monthlyInterestRate = annuityTerms.monthlyRate();
+
+        // the fixed-point plan stays columnar (long cents), rows are only created if the loan is stored as rows
+        if (engine == AmortizationEngine.FIXED_POINT) {
+            Optional<FixedPointSchedule> schedule = FixedPointSchedule.compute(
+                    request.amount(), monthlyInterestRate, monthlyPayment, request.numberOfMonths());
+            if (schedule.isPresent()) {
+                Loan loan = buildLoan(request, monthlyPayment, schedule.get().totalPayments());
+                loan.setSchedule(schedule.get().toSchedule());
+                return loan;
+            }
+        }
 
         List<Installment> installments = generateInstallments(request, monthlyInterestRate, monthlyPayment);
 
-        BigDecimal totalPaymentAmount = calculateTotalPayments(installments);
+        Loan loan = buildLoan(request, monthlyPayment, calculateTotalPayments(installments));
+        loan.addInstallments(installments);
+        return loan;
+    }
+
+    private Loan buildLoan(LoanCalculationRequest request,
+                           BigDecimal monthlyPayment,
+                           BigDecimal totalPaymentAmount) {
         BigDecimal totalInterestAmount = calculateTotalInterest(totalPaymentAmount, request.amount());
 
-        Loan loan = Loan.builder()
+        return Loan.builder()
+                .requestKey(LoanRequestKey.of(request))
                 .amount(request.amount())
                 .annualInterestRate(request.annualInterestRate())
                 .numberOfMonths(request.numberOfMonths())
@@ -38,10 +88,15 @@ public class AmortizationCalculator {
                 .totalPayments(totalPaymentAmount)
                 .totalInterest(totalInterestAmount)
                 .build();
+    }
 
-        loan.addInstallments(installments);
-
-        return loan;
+    private void simulateExpensiveOperation() {
+        if (simulatedDelay.isZero() || simulatedDelay.isNegative()) return;
+        try {
+            Thread.sleep(simulatedDelay.toMillis());
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private BigDecimal calculateTotalPayments(List<Installment> installmentPlan) {
@@ -56,15 +111,68 @@ public class AmortizationCalculator {
                 .setScale(2, RoundingMode.HALF_UP);
     }
 
-    private BigDecimal calculateMonthlyPayment(LoanCalculationRequest loanRequest) {
-        BigDecimal principal = loanRequest.amount();
-        BigDecimal annualInterestRate = loanRequest.annualInterestRate();
-        Integer months = loanRequest.numberOfMonths();
+    BigDecimal calculateMonthlyPayment(LoanCalculationRequest loanRequest) {
+        return calculateMonthlyPayment(loanRequest.amount(), getAnnuityTerms(loanRequest));
+    }
 
-        BigDecimal monthlyRate = annualInterestRate
-                .divide(BigDecimal.valueOf(12), 10, RoundingMode.HALF_UP)
-                .divide(BigDecimal.valueOf(100), 10, RoundingMode.HALF_UP);
+    private BigDecimal calculateMonthlyPayment(BigDecimal principal, AnnuityTerms annuityTerms) {
+        BigDecimal approximation = principal.multiply(annuityTerms.annuityFactor(), ANNUITY_PRECISION);
+
+        return roundToCents(approximation)
+                .orElseGet(() -> calculateMonthlyPaymentExact(
+                        principal, annuityTerms.monthlyRate(), annuityTerms.months()));
+    }
+
+    AnnuityTerms getAnnuityTerms(LoanCalculationRequest request) {
+        BigDecimal annualInterestRate = request.annualInterestRate();
+        int months = request.numberOfMonths();
+
+        return annuityFactorCache.get(annualInterestRate, months, () -> {
+            BigDecimal monthlyRate = getMonthlyInterestRate(annualInterestRate);
+            return new AnnuityTerms(monthlyRate, calculateAnnuityFactor(monthlyRate, months), months);
+        });
+    }
+
+    /**
+     * Annuity factor {@code r(1+r)^n / ((1+r)^n - 1)} evaluated with {@link #ANNUITY_PRECISION}
+     * significant digits instead of the exact {@code 10 * n} digit power.
+     */
+    BigDecimal calculateAnnuityFactor(BigDecimal monthlyRate, int months) {
+        BigDecimal onePlusRatePowerN = pow(BigDecimal.ONE.add(monthlyRate), months, ANNUITY_PRECISION);
 
+        BigDecimal numerator = monthlyRate.multiply(onePlusRatePowerN, ANNUITY_PRECISION);
+        BigDecimal denominator = onePlusRatePowerN.subtract(BigDecimal.ONE, ANNUITY_PRECISION);
+
+        return numerator.divide(denominator, ANNUITY_PRECISION);
+    }
+
+    // binary exponentiation; guard digits absorb the error that grows linearly with the exponent
+    static BigDecimal pow(BigDecimal base, int exponent, MathContext mc) {
+        int guardDigits = Integer.toString(exponent).length() + 1;
+        MathContext working = new MathContext(mc.getPrecision() + guardDigits, mc.getRoundingMode());
+
+        BigDecimal result = BigDecimal.ONE;
+        BigDecimal square = base;
+        for (int e = exponent; e > 0; e >>= 1) {
+            if ((e & 1) == 1) {
+                result = result.multiply(square, working);
+            }
+            if (e > 1) {
+                square = square.multiply(square, working);
+            }
+        }
+        return result.round(mc);
+    }
+
+    // empty when the approximation is too close to a rounding boundary to decide the cent
+    private Optional<BigDecimal> roundToCents(BigDecimal approximation) {
+        BigDecimal tolerance = approximation.abs().movePointLeft(ROUNDING_SAFETY_DIGITS);
+        BigDecimal lower = approximation.subtract(tolerance).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal upper = approximation.add(tolerance).setScale(2, RoundingMode.HALF_UP);
+        return lower.equals(upper) ? Optional.of(lower) : Optional.empty();
+    }
+
+    BigDecimal calculateMonthlyPaymentExact(BigDecimal principal, BigDecimal monthlyRate, int months) {
         BigDecimal onePlusRatePowerN = BigDecimal.ONE.add(monthlyRate).pow(months);
 
         BigDecimal numerator = principal.multiply(monthlyRate).multiply(onePlusRatePowerN);
@@ -73,49 +181,129 @@ public class AmortizationCalculator {
         return numerator.divide(denominator, 2, RoundingMode.HALF_UP);
     }
 
-    private BigDecimal getMonthlyInterestRate(BigDecimal annualInterestRate) {
+    BigDecimal getMonthlyInterestRate(BigDecimal annualInterestRate) {
         return annualInterestRate
                 .divide(BigDecimal.valueOf(12), 10, RoundingMode.HALF_UP)
                 .divide(BigDecimal.valueOf(100), 10, RoundingMode.HALF_UP);
     }
 
-    private List<Installment> generateInstallments(LoanCalculationRequest request,
-                                                   BigDecimal monthlyRate,
-                                                   BigDecimal monthlyPayment) {
-        BigDecimal principal = request.amount();
+    List<Installment> generateInstallments(LoanCalculationRequest request,
+                                           BigDecimal monthlyRate,
+                                           BigDecimal monthlyPayment) {
         Integer months = request.numberOfMonths();
 
         List<Installment> plan = new ArrayList<>(months);
-        BigDecimal balance = principal;
 
-        for (int period = 1; period <= months; period++) {
+        walkInstallments(request, monthlyRate, monthlyPayment, 1, months,
+                (period, payment, principal, interest, balance) -> plan.add(Installment.builder()
+                        .period(period)
+                        .payment(payment)
+                        .principal(principal)
+                        .interest(interest)
+                        .balance(balance)
+                        .build()));
+
+        return plan;
+    }
+
+    /**
+     * Emits installments {@code from..to} (1-based, inclusive) without building the full plan.
+     * Rounding is identical to {@link #generateInstallments}: the balance before {@code from}
+     * is carried forward in long cents, since per-period rounding has no closed form.
+     */
+    public void forEachInstallment(LoanCalculationRequest request, int from, int to, InstallmentConsumer consumer) {
+        AnnuityTerms annuityTerms = getAnnuityTerms(request);
+        BigDecimal monthlyPayment = calculateMonthlyPayment(request.amount(), annuityTerms);
+
+        boolean walked = FixedPointSchedule.walk(
+                request.amount(), annuityTerms.monthlyRate(), monthlyPayment, request.numberOfMonths(), from, to,
+                (period, payment, principal, interest, balance) -> consumer.accept(period,
+                        FixedPointSchedule.money(payment),
+                        FixedPointSchedule.money(principal),
+                        FixedPointSchedule.money(interest),
+                        FixedPointSchedule.money(balance)));
+
+        if (!walked) {
+            walkInstallments(request, annuityTerms.monthlyRate(), monthlyPayment, from, to, consumer);
+        }
+    }
+
+    /**
+     * Monthly payment and totals of the plan, computed in constant memory.
+     *
+     * @throws LoanOutOfRangeException if the total payments do not fit in long cents
+     */
+    public SummaryDto calculateSummary(LoanCalculationRequest request) {
+        AnnuityTerms annuityTerms = getAnnuityTerms(request);
+        BigDecimal monthlyPayment = calculateMonthlyPayment(request.amount(), annuityTerms);
+        int months = request.numberOfMonths();
+
+        long[] totalCents = {0};
+        boolean walked;
+        try {
+            walked = FixedPointSchedule.walk(
+                    request.amount(), annuityTerms.monthlyRate(), monthlyPayment, months, 1, months,
+                    (period, payment, principal, interest, balance) ->
+                            totalCents[0] = Math.addExact(totalCents[0], payment));
+        } catch (ArithmeticException e) {
+            throw new LoanOutOfRangeException(request.amount());
+        }
+
+        BigDecimal totalPaymentAmount;
+        if (walked) {
+            totalPaymentAmount = FixedPointSchedule.money(totalCents[0]);
+        } else {
+            BigDecimal[] total = {BigDecimal.ZERO};
+            walkInstallments(request, annuityTerms.monthlyRate(), monthlyPayment, 1, months,
+                    (period, payment, principal, interest, balance) -> total[0] = total[0].add(payment));
+            totalPaymentAmount = total[0].setScale(2, RoundingMode.HALF_UP);
+        }
+
+        return new SummaryDto(
+                monthlyPayment,
+                totalPaymentAmount,
+                calculateTotalInterest(totalPaymentAmount, request.amount())
+        );
+    }
+
+    public List<InstallmentDto> calculateInstallments(LoanCalculationRequest request, int from, int to) {
+        List<InstallmentDto> page = new ArrayList<>(to - from + 1);
+        forEachInstallment(request, from, to,
+                (period, payment, principal, interest, balance) ->
+                        page.add(new InstallmentDto(period, payment, principal, interest, balance)));
+        return page;
+    }
+
+    private void walkInstallments(LoanCalculationRequest request,
+                                  BigDecimal monthlyRate,
+                                  BigDecimal monthlyPayment,
+                                  int from,
+                                  int to,
+                                  InstallmentConsumer consumer) {
+        Integer months = request.numberOfMonths();
+        BigDecimal balance = request.amount();
+
+        for (int period = 1; period <= to; period++) {
 
+            BigDecimal payment = monthlyPayment;
             BigDecimal interest = calculateInterest(balance, monthlyRate);
-            BigDecimal principalPayment = calculatePrincipalPayment(monthlyPayment, interest);
+            BigDecimal principalPayment = calculatePrincipalPayment(payment, interest);
             BigDecimal newBalance = balance.subtract(principalPayment)
                     .setScale(2, RoundingMode.HALF_UP);
 
             if (period == months && newBalance.compareTo(BigDecimal.ZERO) != 0) {
                 principalPayment = balance.setScale(2, RoundingMode.HALF_UP);
-                monthlyPayment = principalPayment.add(interest)
+                payment = principalPayment.add(interest)
                         .setScale(2, RoundingMode.HALF_UP);
                 newBalance = BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
             }
 
-            Installment installment = Installment.builder()
-                    .period(period)
-                    .payment(monthlyPayment)
-                    .principal(principalPayment)
-                    .interest(interest)
-                    .balance(newBalance)
-                    .build();
-
-            plan.add(installment);
+            if (period >= from) {
+                consumer.accept(period, payment, principalPayment, interest, newBalance);
+            }
 
             balance = newBalance;
         }
-
-        return plan;
     }
 
     private BigDecimal calculateInterest(BigDecimal balance, BigDecimal monthlyRate) {
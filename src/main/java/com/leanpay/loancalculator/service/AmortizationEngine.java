@@ -0,0 +1,6 @@
+package com.leanpay.loancalculator.service;
+
+public enum AmortizationEngine {
+    BIG_DECIMAL,
+    FIXED_POINT
+}
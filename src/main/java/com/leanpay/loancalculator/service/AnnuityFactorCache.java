@@ -0,0 +1,56 @@
+package com.leanpay.loancalculator.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.leanpay.loancalculator.config.CalculationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of {@link AnnuityTerms} keyed by (annual interest rate, number of months).
+ * The monthly payment is {@code amount x annuityFactor}, so all amounts of the same
+ * product share one entry. Rates are normalized, {@code 5} and {@code 5.00} are the same key.
+ */
+@Component
+public class AnnuityFactorCache {
+
+    private final Cache<Key, AnnuityTerms> cache;
+
+    @Autowired
+    public AnnuityFactorCache(CalculationProperties properties) {
+        this(properties.annuityCacheSize());
+    }
+
+    public AnnuityFactorCache(int maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    public AnnuityTerms get(BigDecimal annualInterestRate, int months, Supplier<AnnuityTerms> loader) {
+        return cache.get(new Key(annualInterestRate.stripTrailingZeros(), months), key -> loader.get());
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private record Key(BigDecimal annualInterestRate, int months) { }
+}
@@ -0,0 +1,9 @@
+package com.leanpay.loancalculator.service;
+
+import java.math.BigDecimal;
+
+public record AnnuityTerms(
+        BigDecimal monthlyRate,
+        BigDecimal annuityFactor,
+        int months
+) { }
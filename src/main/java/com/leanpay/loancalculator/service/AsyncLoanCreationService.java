@@ -1,30 +1,88 @@
 package com.leanpay.loancalculator.service;
 
+import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.cache.LoanCompletionNotifier;
+import com.leanpay.loancalculator.cache.LoanJobStore;
+import com.leanpay.loancalculator.config.CalculationExecutorConfig;
+import com.leanpay.loancalculator.config.PersistenceProperties;
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
 import com.leanpay.loancalculator.entity.Loan;
-import com.leanpay.loancalculator.repository.LoanRepository;
+import com.leanpay.loancalculator.exception.CalculationDeadlineExceededException;
+import com.leanpay.loancalculator.mapper.LoanCalculationResponseMapper;
+import com.leanpay.loancalculator.metrics.LoanMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AsyncLoanCreationService {
 
     private final AmortizationCalculator amortizationCalculator;
-    private final LoanRepository loanRepository;
+    private final LoanWriteBehindQueue writeBehindQueue;
+    private final LoanCacheFacade cache;
+    private final LoanCompletionNotifier completionNotifier;
+    private final LoanJobStore jobStore;
+    private final LoanCalculationResponseMapper responseMapper;
+    private final PersistenceProperties persistenceProperties;
+    private final LoanMetrics metrics;
+    private final PersistedLoanKeyFilter keyFilter;
+
+    /**
+     * @param deadline latest start of the calculation, a task that waited longer in the executor queue
+     *                 fails with {@link CalculationDeadlineExceededException} without calculating
+     */
+    @Async(CalculationExecutorConfig.CALCULATION_EXECUTOR)
+    public CompletableFuture<Void> createAndSaveLoanAsync(LoanCalculationRequest request, Instant deadline) {
+        if (Instant.now().isAfter(deadline)) {
+            jobStore.failed(LoanRequestKey.of(request));
+            return CompletableFuture.failedFuture(new CalculationDeadlineExceededException(deadline));
+        }
 
-    @Async
-    public void createAndSaveLoanAsync(LoanCalculationRequest request) {
-        Loan loan = amortizationCalculator.calculateAndBuildLoan(request);
+        long start = System.nanoTime();
+        Loan loan;
         try {
-            loanRepository.save(loan);
-        } catch (DataIntegrityViolationException e) {
-            log.debug("Loan already created by another thread for request {}", request);
+            loan = amortizationCalculator.calculateAndBuildLoan(request);
+        } catch (RuntimeException e) {
+            jobStore.failed(LoanRequestKey.of(request));
+            throw e;
+        }
+        long calculated = System.nanoTime() - start;
+        metrics.recordCalculation(request.numberOfMonths(), calculated);
+        if (persistenceProperties.scheduleStorage() == ScheduleStorage.COLUMNAR
+                && !loan.moveInstallmentsToSchedule()) {
+            log.debug("Installment plan of {} is not representable as a schedule, storing rows", request);
         }
+
+        // readers are served from the cache until the write-behind batch is committed
+        LoanResponse response = responseMapper.toResponse(loan);
+        if (persistenceProperties.scheduleStorage() == ScheduleStorage.ROWS) {
+            // the response keeps the columnar plan, only the persisted loan needs rows
+            loan.moveScheduleToInstallments();
+        }
+        cache.putFullResponse(loan.getRequestKey(), response);
+        completionNotifier.publishCompleted(loan.getRequestKey(), response);
+        jobStore.completed(loan.getRequestKey(), Duration.ofNanos(System.nanoTime() - start));
+
+        writeBehindQueue.enqueue(loan).whenComplete((inserted, error) -> {
+            if (error != null) {
+                log.error("Could not persist loan for request {}", request, error);
+                return;
+            }
+            if (!inserted) {
+                log.debug("Loan already created by another thread for request {}", request);
+            }
+            keyFilter.add(loan.getRequestKey());
+        });
+        return CompletableFuture.completedFuture(null);
     }
 
 }
@@ -0,0 +1,147 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.entity.InstallmentSchedule;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Optional;
+
+/**
+ * Installment plan computed in scaled {@code long} arithmetic.
+ * <p>
+ * Amounts are kept in cents and the monthly rate in units of 1e-10, which are exactly the
+ * scales produced by {@link AmortizationCalculator}, so every rounding step (HALF_UP to cents)
+ * yields the same values as the {@link BigDecimal} implementation.
+ * Inputs that are not representable (more than two decimals, long overflow) are rejected
+ * with {@link Optional#empty()} and should be calculated with {@link BigDecimal}.
+ */
+public final class FixedPointSchedule {
+
+    static final int MONEY_SCALE = 2;
+    static final int RATE_SCALE = 10;
+    private static final long RATE_TO_MONEY_DIVISOR = 10_000_000_000L; // balance x rate has scale 12
+
+    private final long[] payment;
+    private final long[] principal;
+    private final long[] interest;
+    private final long[] balance;
+    private long totalPayments;
+
+    private FixedPointSchedule(int months) {
+        this.payment = new long[months];
+        this.principal = new long[months];
+        this.interest = new long[months];
+        this.balance = new long[months];
+    }
+
+    @FunctionalInterface
+    interface PeriodConsumer {
+        void accept(int period, long payment, long principal, long interest, long balance);
+    }
+
+    public static Optional<FixedPointSchedule> compute(BigDecimal amount,
+                                                       BigDecimal monthlyRate,
+                                                       BigDecimal monthlyPayment,
+                                                       int months) {
+        FixedPointSchedule schedule = new FixedPointSchedule(months);
+        try {
+            boolean representable = walk(amount, monthlyRate, monthlyPayment, months, 1, months, schedule::set);
+            return representable ? Optional.of(schedule) : Optional.empty();
+        } catch (ArithmeticException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Walks periods {@code 1..to} and emits {@code from..to} (1-based, inclusive) to the consumer.
+     * Periods before {@code from} are only used to carry the balance forward, nothing is allocated.
+     *
+     * @return {@code false} if the inputs are not representable in long cents, nothing is emitted then
+     */
+    static boolean walk(BigDecimal amount,
+                        BigDecimal monthlyRate,
+                        BigDecimal monthlyPayment,
+                        int months,
+                        int from,
+                        int to,
+                        PeriodConsumer consumer) {
+        long amountCents;
+        long rate;
+        long paymentCents;
+        try {
+            amountCents = toScaledLong(amount, MONEY_SCALE);
+            rate = toScaledLong(monthlyRate, RATE_SCALE);
+            paymentCents = toScaledLong(monthlyPayment, MONEY_SCALE);
+            // the balance only decreases, so this bounds every intermediate product of the walk
+            Math.multiplyExact(Math.addExact(Math.abs(amountCents), Math.abs(paymentCents)), Math.abs(rate));
+        } catch (ArithmeticException e) {
+            return false;
+        }
+
+        long balance = amountCents;
+
+        for (int period = 1; period <= to; period++) {
+            long interest = divideHalfUp(Math.multiplyExact(balance, rate), RATE_TO_MONEY_DIVISOR);
+            long payment = paymentCents;
+            long principalPayment = Math.subtractExact(payment, interest);
+            long newBalance = Math.subtractExact(balance, principalPayment);
+
+            if (period == months && newBalance != 0) {
+                principalPayment = balance;
+                payment = Math.addExact(principalPayment, interest);
+                newBalance = 0;
+            }
+
+            if (period >= from) {
+                consumer.accept(period, payment, principalPayment, interest, newBalance);
+            }
+
+            balance = newBalance;
+        }
+        return true;
+    }
+
+    private void set(int period, long payment, long principal, long interest, long balance) {
+        int i = period - 1;
+        this.payment[i] = payment;
+        this.principal[i] = principal;
+        this.interest[i] = interest;
+        this.balance[i] = balance;
+        this.totalPayments = Math.addExact(this.totalPayments, payment);
+    }
+
+    static long toScaledLong(BigDecimal value, int scale) {
+        return value.setScale(scale, RoundingMode.UNNECESSARY)
+                .unscaledValue()
+                .longValueExact();
+    }
+
+    // same result as BigDecimal HALF_UP: ties are rounded away from zero
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+
+    static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, MONEY_SCALE);
+    }
+
+    public int size() {
+        return payment.length;
+    }
+
+    public BigDecimal totalPayments() {
+        return money(totalPayments);
+    }
+
+    /**
+     * The computed columns as they are cached and stored (columnar), without converting a single row.
+     */
+    public InstallmentSchedule toSchedule() {
+        return InstallmentSchedule.of(payment, principal, interest, balance);
+    }
+}
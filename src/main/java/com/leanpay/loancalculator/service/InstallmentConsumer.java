@@ -0,0 +1,9 @@
+package com.leanpay.loancalculator.service;
+
+import java.math.BigDecimal;
+
+@FunctionalInterface
+public interface InstallmentConsumer {
+
+    void accept(int period, BigDecimal payment, BigDecimal principal, BigDecimal interest, BigDecimal balance);
+}
@@ -0,0 +1,121 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.InstallmentDto;
+import com.leanpay.loancalculator.dto.response.InstallmentPageResponse;
+import com.leanpay.loancalculator.dto.response.LoanStatus;
+import com.leanpay.loancalculator.dto.response.LoanSummaryResponse;
+import com.leanpay.loancalculator.exception.InvalidInstallmentRangeException;
+import com.leanpay.loancalculator.exception.StreamingRequiredException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@Service
+@RequiredArgsConstructor
+public class InstallmentScheduleService {
+
+    public static final int DEFAULT_PAGE_SIZE = 12;
+    public static final int MAX_PAGE_SIZE = 120;
+
+    private static final byte LINE_SEPARATOR = '\n';
+    private static final int FLUSH_EVERY_ROWS = 256;
+
+    private final AmortizationCalculator amortizationCalculator;
+    private final ObjectMapper objectMapper;
+    private final CalculationProperties properties;
+
+
+    public InstallmentPageResponse getInstallmentPage(LoanCalculationRequest request, int from, Integer to) {
+        int months = request.numberOfMonths();
+        int last = to != null ? to : Math.min(months, from + DEFAULT_PAGE_SIZE - 1);
+
+        validateRange(from, last, months);
+
+        return new InstallmentPageResponse(
+                request,
+                from,
+                last,
+                amortizationCalculator.calculateInstallments(request, from, last)
+        );
+    }
+
+    /**
+     * First line of a streamed schedule. Computed before the response is committed, so a loan
+     * whose totals are out of range is still answered with an error status.
+     */
+    public LoanSummaryResponse getSummary(LoanCalculationRequest request) {
+        return new LoanSummaryResponse(
+                request,
+                LoanStatus.DONE,
+                amortizationCalculator.calculateSummary(request)
+        );
+    }
+
+    /**
+     * Writes the schedule as NDJSON: the {@link LoanSummaryResponse} line followed by one
+     * {@link InstallmentDto} line per period. Installments are written as they are generated,
+     * so memory use does not depend on the term length.
+     */
+    public void streamSchedule(LoanSummaryResponse summary, OutputStream out) throws IOException {
+        LoanCalculationRequest request = summary.loan();
+        try {
+            writeLine(out, summary);
+            flush(out);
+
+            amortizationCalculator.forEachInstallment(request, 1, request.numberOfMonths(),
+                    (period, payment, principal, interest, balance) -> {
+                        writeLine(out, new InstallmentDto(period, payment, principal, interest, balance));
+                        if (period % FLUSH_EVERY_ROWS == 0) {
+                            flush(out);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    /**
+     * Buffered (non-streamed) responses hold the whole plan in memory several times over,
+     * so they are limited to {@link CalculationProperties#maxBufferedMonths()}.
+     */
+    public void requireBufferable(LoanCalculationRequest request) {
+        if (request.numberOfMonths() > properties.maxBufferedMonths()) {
+            throw new StreamingRequiredException(request.numberOfMonths(), properties.maxBufferedMonths());
+        }
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush(OutputStream out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void validateRange(int from, int to, int months) {
+        if (from < 1 || to > months || from > to) {
+            throw new InvalidInstallmentRangeException(from, to,
+                    "Range must satisfy 1 <= from <= to <= " + months);
+        }
+        if (to - from + 1 > MAX_PAGE_SIZE) {
+            throw new InvalidInstallmentRangeException(from, to,
+                    "Range must not contain more than " + MAX_PAGE_SIZE + " installments");
+        }
+    }
+}
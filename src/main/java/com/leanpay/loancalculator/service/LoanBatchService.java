@@ -0,0 +1,78 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.dto.request.LoanBatchRequest;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.LoanBatchResponse;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.dto.response.LoanStatus;
+import com.leanpay.loancalculator.mapper.LoanCalculationResponseMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Batch variant of {@link LoanService#calculateLoan}: the whole batch is resolved with one cache
+ * read, one database query, one lease acquisition and one cache write per tier instead of a round
+ * trip per loan. Loans rejected by a saturated executor are answered {@link LoanStatus#REJECTED}
+ * while the rest of the batch is still served.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoanBatchService {
+
+    private final PersistedLoanReader persistedLoanReader;
+    private final PersistedLoanKeyFilter keyFilter;
+    private final LoanCalculationResponseMapper responseMapper;
+    private final LoanCalculationScheduler calculationScheduler;
+    private final LoanCacheFacade cache;
+
+
+    public LoanBatchResponse calculateLoans(LoanBatchRequest batch) {
+        Map<String, LoanCalculationRequest> requestsByKey = new LinkedHashMap<>();
+        batch.loans().forEach(request -> requestsByKey.putIfAbsent(cache.generateCacheKey(request), request));
+
+        Map<String, LoanResponse> responses = new HashMap<>(cache.getResponsesFromCache(requestsByKey.keySet()));
+
+        Map<String, LoanCalculationRequest> uncached = new LinkedHashMap<>(requestsByKey);
+        uncached.keySet().removeAll(responses.keySet());
+
+        Map<String, LoanResponse> fullResponses = findPersistedLoans(uncached);
+        cache.putFullResponses(fullResponses);
+        responses.putAll(fullResponses);
+
+        uncached.keySet().removeAll(fullResponses.keySet());
+        Set<String> rejected = scheduleCalculations(uncached);
+        Map<String, LoanResponse> statusResponses = new HashMap<>();
+        uncached.forEach((key, request) -> {
+            if (rejected.contains(key)) {
+                // not cached as calculating, a retry schedules it again
+                responses.put(key, responseMapper.toRejectedResponse(request));
+            } else {
+                statusResponses.put(key, responseMapper.toStatusResponse(request));
+            }
+        });
+        cache.putStatusResponses(statusResponses);
+        responses.putAll(statusResponses);
+
+        return new LoanBatchResponse(batch.loans().stream()
+                .map(request -> responses.get(cache.generateCacheKey(request)))
+                .toList());
+    }
+
+    private Map<String, LoanResponse> findPersistedLoans(Map<String, LoanCalculationRequest> requestsByKey) {
+        List<String> candidates = requestsByKey.keySet().stream()
+                .filter(keyFilter::mightExist)
+                .toList();
+        if (candidates.isEmpty()) return Map.of();
+
+        return persistedLoanReader.findResponses(candidates);
+    }
+
+    private Set<String> scheduleCalculations(Map<String, LoanCalculationRequest> requestsByKey) {
+        if (requestsByKey.isEmpty()) return Set.of();
+
+        return calculationScheduler.scheduleAll(requestsByKey);
+    }
+}
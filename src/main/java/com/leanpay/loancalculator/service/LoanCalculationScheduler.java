@@ -0,0 +1,192 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.cache.CalculationLeaseManager;
+import com.leanpay.loancalculator.cache.CalculationLeaseManager.Lease;
+import com.leanpay.loancalculator.cache.LoanCompletionNotifier;
+import com.leanpay.loancalculator.config.CalculationExecutorProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.exception.CalculationCapacityExceededException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-flight front of {@link AsyncLoanCreationService}: at most one calculation per cache key
+ * runs in this JVM, callers arriving while it is in flight join the same future instead of
+ * starting a duplicate calculation. Across instances the calculation is additionally guarded by a
+ * {@link CalculationLeaseManager} lease, only the lease owner calculates the loan. Every calculation
+ * this instance gives up on (missed deadline, error, rejected by the executor, no lease obtainable)
+ * fails the clients waiting for it via {@link LoanCompletionNotifier#publishFailed}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoanCalculationScheduler {
+
+    private final AsyncLoanCreationService asyncLoanCreationService;
+    private final CalculationLeaseManager leaseManager;
+    private final CalculationExecutorProperties executorProperties;
+    private final LoanCompletionNotifier completionNotifier;
+
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder leasedElsewhere = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+
+    /**
+     * @return future completed once the loan of {@code key} is in the response cache and handed to the
+     * write-behind queue (or found to be persisted already);
+     * if another instance holds the calculation lease nothing is started and the future is already completed
+     * @throws CalculationCapacityExceededException if the calculation executor is saturated
+     */
+    public CompletableFuture<Void> schedule(String key, LoanCalculationRequest request) {
+        CompletableFuture<Void> calculation = new CompletableFuture<>();
+        CompletableFuture<Void> running = inFlight.putIfAbsent(key, calculation);
+        if (running != null) {
+            coalesced.increment();
+            log.debug("Joined in-flight calculation for key {}", key);
+            return running;
+        }
+
+        Optional<Lease> lease = Optional.empty();
+        try {
+            lease = leaseManager.tryAcquire(key);
+            if (lease.isEmpty()) {
+                leasedElsewhere.increment();
+                complete(key, calculation, null);
+                return calculation;
+            }
+
+            start(key, request, lease.get(), calculation);
+        } catch (TaskRejectedException e) {
+            // the next caller has to be able to retry
+            rejected.increment();
+            lease.ifPresent(leaseManager::release);
+            complete(key, calculation, e);
+            throw new CalculationCapacityExceededException(executorProperties.retryAfter(), e);
+        } catch (RuntimeException e) {
+            lease.ifPresent(leaseManager::release);
+            complete(key, calculation, e);
+            throw e;
+        }
+        return calculation;
+    }
+
+    /**
+     * Batch variant of {@link #schedule}: the leases of all keys that are not in flight in this JVM are
+     * acquired with one round trip. A saturated executor rejects single loans instead of the whole batch.
+     *
+     * @return keys whose calculation was rejected because the calculation executor is saturated
+     */
+    public Set<String> scheduleAll(Map<String, LoanCalculationRequest> requestsByKey) {
+        Map<String, CompletableFuture<Void>> owned = new LinkedHashMap<>();
+        requestsByKey.keySet().forEach(key -> {
+            CompletableFuture<Void> calculation = new CompletableFuture<>();
+            if (inFlight.putIfAbsent(key, calculation) == null) {
+                owned.put(key, calculation);
+            } else {
+                coalesced.increment();
+            }
+        });
+        if (owned.isEmpty()) return Set.of();
+
+        Map<String, Lease> leases;
+        try {
+            leases = leaseManager.tryAcquireAll(owned.keySet());
+        } catch (RuntimeException e) {
+            owned.forEach((key, calculation) -> complete(key, calculation, e));
+            throw e;
+        }
+
+        Set<String> rejectedKeys = new HashSet<>();
+        RuntimeException failure = null;
+        for (Map.Entry<String, CompletableFuture<Void>> entry : owned.entrySet()) {
+            String key = entry.getKey();
+            CompletableFuture<Void> calculation = entry.getValue();
+            Lease lease = leases.get(key);
+            if (lease == null) {
+                leasedElsewhere.increment();
+                complete(key, calculation, null);
+            } else if (failure != null) {
+                // leases acquired for the rest of the batch are given back
+                releaseAndComplete(key, lease, calculation, failure);
+            } else {
+                try {
+                    start(key, requestsByKey.get(key), lease, calculation);
+                } catch (TaskRejectedException e) {
+                    rejected.increment();
+                    rejectedKeys.add(key);
+                    releaseAndComplete(key, lease, calculation, e);
+                } catch (RuntimeException e) {
+                    failure = e;
+                    releaseAndComplete(key, lease, calculation, e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return rejectedKeys;
+    }
+
+    private void start(String key, LoanCalculationRequest request, Lease lease, CompletableFuture<Void> calculation) {
+        started.increment();
+        Instant deadline = Instant.now().plus(executorProperties.deadline());
+        asyncLoanCreationService.createAndSaveLoanAsync(request, deadline)
+                .whenComplete((result, error) -> releaseAndComplete(key, lease, calculation, error));
+    }
+
+    private void releaseAndComplete(String key, Lease lease, CompletableFuture<Void> calculation, Throwable error) {
+        try {
+            leaseManager.release(lease);
+        } catch (RuntimeException e) {
+            log.warn("Could not release calculation lease for key {}, it expires on its own", key, e);
+        } finally {
+            complete(key, calculation, error);
+        }
+    }
+
+    private void complete(String key, CompletableFuture<Void> calculation, Throwable error) {
+        inFlight.remove(key, calculation);
+        if (error != null) {
+            completionNotifier.publishFailed(key);
+            calculation.completeExceptionally(error);
+        } else {
+            calculation.complete(null);
+        }
+    }
+
+    public long startedCount() {
+        return started.sum();
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long leasedElsewhereCount() {
+        return leasedElsewhere.sum();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,81 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.EventsExecutorConfig;
+import com.leanpay.loancalculator.config.EventsProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.service.LoanService.LoanWatch;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Server-Sent Events instead of re-posting the request until it is calculated: a {@code status}
+ * event with the current state, then a {@code done} event with the calculated loan as soon as it is
+ * available (on any instance), after which the stream is closed. A failed calculation ends the stream
+ * with an {@code error} event instead, the client retries the request.
+ */
+@Service
+public class LoanEventService {
+
+    public static final String STATUS_EVENT = "status";
+    public static final String DONE_EVENT = "done";
+    public static final String ERROR_EVENT = "error";
+
+    private final LoanService loanService;
+    private final EventsProperties properties;
+    private final Executor eventsExecutor;
+
+    public LoanEventService(LoanService loanService,
+                            EventsProperties properties,
+                            @Qualifier(EventsExecutorConfig.EVENTS_EXECUTOR) Executor eventsExecutor) {
+        this.loanService = loanService;
+        this.properties = properties;
+        this.eventsExecutor = eventsExecutor;
+    }
+
+    public SseEmitter subscribe(LoanCalculationRequest request) {
+        LoanWatch watch = loanService.watchLoan(request);
+        SseEmitter emitter = new SseEmitter(properties.timeout().toMillis());
+
+        Runnable stopWaiting = () -> watch.completion().cancel(false);
+        emitter.onCompletion(stopWaiting);
+        emitter.onError(error -> stopWaiting.run());
+        emitter.onTimeout(emitter::complete);
+
+        if (!watch.completion().isDone()) {
+            send(emitter, STATUS_EVENT, watch.current());
+        }
+        // completed on the calculation thread, the client is written to on the events executor
+        watch.completion().whenCompleteAsync((response, error) -> {
+            if (error instanceof CancellationException) {
+                // the client went away
+                return;
+            }
+            if (error != null ? send(emitter, ERROR_EVENT, failureMessage(error)) : send(emitter, DONE_EVENT, response)) {
+                emitter.complete();
+            }
+        }, eventsExecutor);
+        return emitter;
+    }
+
+    private static String failureMessage(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+
+    private static boolean send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // client went away or the emitter already timed out
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+}
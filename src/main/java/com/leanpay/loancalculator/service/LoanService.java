@@ -1,54 +1,146 @@
 package com.leanpay.loancalculator.service;
 
 import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.cache.LoanCompletionNotifier;
+import com.leanpay.loancalculator.cache.LoanJobStore;
+import com.leanpay.loancalculator.cache.ResponseOrBody;
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.dto.response.LoanJobResponse;
+import com.leanpay.loancalculator.dto.response.LoanJobState;
 import com.leanpay.loancalculator.dto.response.LoanResponse;
-import com.leanpay.loancalculator.entity.Loan;
 import com.leanpay.loancalculator.mapper.LoanCalculationResponseMapper;
-import com.leanpay.loancalculator.repository.LoanRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class LoanService {
 
-    private final LoanRepository loanRepository;
+    private final PersistedLoanReader persistedLoanReader;
+    private final PersistedLoanLoader persistedLoanLoader;
+    private final PersistedLoanKeyFilter keyFilter;
     private final LoanCalculationResponseMapper responseMapper;
-    private final AsyncLoanCreationService asyncLoanCreationService;
+    private final LoanCalculationScheduler calculationScheduler;
     private final LoanCacheFacade cache;
+    private final LoanCompletionNotifier completionNotifier;
+    private final LoanJobStore jobStore;
+
+    /**
+     * Current response of the loan and a future completed with the calculated loan.
+     */
+    public record LoanWatch(LoanResponse current, CompletableFuture<LoanResponse> completion) {
+    }
 
 
-    @Transactional
+    /**
+     * Runs without a transaction: cache hits never borrow a JDBC connection, only the
+     * {@link PersistedLoanReader} fallback does (batched with concurrent misses by {@link PersistedLoanLoader}).
+     */
     public LoanResponse calculateLoan(LoanCalculationRequest request) {
         String key = cache.generateCacheKey(request);
 
         return cache.getResponseFromCache(key)
-                .or(() -> findPersistedLoan(request)
-                        .map(loan -> cacheAndReturnFullResponse(key, loan)))
-                .orElseGet(() -> createLoanAndReturnStatus(key, request));
+                .orElseGet(() -> loadOrCreateLoan(key, request));
+    }
+
+    /**
+     * {@link #calculateLoan} for the HTTP endpoint: a calculated loan found in the cache is returned as
+     * its pre-serialized body, read in the same Redis round trip as the full and status entries.
+     */
+    public ResponseOrBody calculateLoanOrBody(LoanCalculationRequest request) {
+        String key = cache.generateCacheKey(request);
+
+        return cache.getResponseOrBodyFromCache(key)
+                .orElseGet(() -> ResponseOrBody.of(loadOrCreateLoan(key, request)));
+    }
+
+    /**
+     * Like {@link #calculateLoan} but also waits for the result. The waiter is registered before the
+     * current state is read, so a calculation finishing in between is not missed. Cancel the
+     * completion when the client goes away.
+     */
+    public LoanWatch watchLoan(LoanCalculationRequest request) {
+        CompletableFuture<LoanResponse> completion =
+                completionNotifier.awaitCompletion(cache.generateCacheKey(request));
+        LoanResponse current;
+        try {
+            current = calculateLoan(request);
+        } catch (RuntimeException e) {
+            completion.cancel(false);
+            throw e;
+        }
+
+        if (current instanceof LoanCalculationResponse) {
+            completion.complete(current);
+        }
+        return new LoanWatch(current, completion);
+    }
+
+    /**
+     * Asynchronous variant of {@link #calculateLoan}: schedules the calculation if needed and returns
+     * its job, a {@link LoanJobState#DONE} job if the loan is already calculated.
+     */
+    public LoanJobResponse submitLoan(LoanCalculationRequest request) {
+        String key = cache.generateCacheKey(request);
+        Optional<LoanResponse> cached = cache.getResponseFromCache(key);
+
+        // a persisted loan is only checked for existence, its plan is read when the result is fetched
+        boolean calculated = cached.map(LoanCalculationResponse.class::isInstance)
+                .orElseGet(() -> keyFilter.mightExist(key) && persistedLoanReader.exists(key));
+        if (calculated) {
+            return new LoanJobResponse(key, LoanJobState.DONE, null, null, null);
+        }
+
+        // recorded first, a calculation finishing right after scheduling must find the job to complete;
+        // with a cached status the scheduler joins the running calculation (or its lease holder completes the job)
+        LoanJobResponse job = jobStore.started(key);
+        try {
+            createLoanAndReturnStatus(key, request);
+        } catch (RuntimeException e) {
+            jobStore.failed(key);
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<LoanJobResponse> getJob(String id) {
+        return jobStore.find(id);
     }
 
-    private Optional<Loan> findPersistedLoan(LoanCalculationRequest request) {
-        return loanRepository.findByAmountAndAnnualInterestRateAndNumberOfMonths(
-                request.amount(),
-                request.annualInterestRate(),
-                request.numberOfMonths()
-        );
+    /**
+     * Calculated loan of a job, as its pre-serialized body if cached; never schedules a calculation.
+     */
+    public Optional<ResponseOrBody> findCalculatedLoan(String key) {
+        return cache.getResponseOrBodyFromCache(key)
+                .filter(ResponseOrBody::isCalculated)
+                .or(() -> findPersistedLoan(key)
+                        .map(response -> ResponseOrBody.of(cacheAndReturnFullResponse(key, response))));
+    }
+
+    // keys that were never persisted skip the database
+    private Optional<LoanResponse> findPersistedLoan(String key) {
+        if (!keyFilter.mightExist(key)) return Optional.empty();
+        return persistedLoanLoader.load(key);
+    }
+
+    private LoanResponse loadOrCreateLoan(String key, LoanCalculationRequest request) {
+        return findPersistedLoan(key)
+                .map(response -> cacheAndReturnFullResponse(key, response))
+                .orElseGet(() -> createLoanAndReturnStatus(key, request));
     }
 
-    private LoanResponse cacheAndReturnFullResponse(String key, Loan loan) {
-        LoanResponse response = responseMapper.toResponse(loan);
+    private LoanResponse cacheAndReturnFullResponse(String key, LoanResponse response) {
         cache.evictStatusResponse(key);
         cache.putFullResponse(key, response);
         return response;
     }
 
     private LoanResponse createLoanAndReturnStatus(String key, LoanCalculationRequest request) {
-        asyncLoanCreationService.createAndSaveLoanAsync(request);
+        calculationScheduler.schedule(key, request);
         LoanResponse statusResponse = responseMapper.toStatusResponse(request);
         cache.putStatusResponse(key, statusResponse);
         return statusResponse;
@@ -0,0 +1,208 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.WriteBehindProperties;
+import com.leanpay.loancalculator.entity.Loan;
+import com.leanpay.loancalculator.metrics.LoanMetrics;
+import com.leanpay.loancalculator.repository.LoanBulkWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind stage between the calculation and PostgreSQL. Calculated loans are queued and a
+ * single flusher thread writes them in shared transactions of up to
+ * {@link WriteBehindProperties#batchSize()} loans, or whatever arrived within
+ * {@link WriteBehindProperties#maxDelay()}. When write-behind is disabled (or the queue is not
+ * running) every loan is written by the caller in its own transaction.
+ * <p>
+ * The queue is bounded: when it is full, callers wait up to
+ * {@link WriteBehindProperties#enqueueTimeout()} and then write the loan themselves, which slows
+ * down the calculation threads instead of growing the heap. Loans still queued on shutdown are
+ * flushed before the data source is closed.
+ */
+@Component
+@Slf4j
+public class LoanWriteBehindQueue implements SmartLifecycle {
+
+    private final LoanBulkWriter loanWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindProperties properties;
+    private final LoanMetrics metrics;
+    private final BlockingQueue<PendingLoan> queue;
+
+    private final LongAdder flushedBatches = new LongAdder();
+    private final LongAdder flushedLoans = new LongAdder();
+    private final LongAdder callerWrites = new LongAdder();
+
+    private volatile Thread flusher;
+    private volatile boolean running;
+
+    private record PendingLoan(Loan loan, CompletableFuture<Boolean> persisted, long enqueuedNanos) {
+    }
+
+    public LoanWriteBehindQueue(LoanBulkWriter loanWriter,
+                                TransactionTemplate transactionTemplate,
+                                WriteBehindProperties properties,
+                                LoanMetrics metrics) {
+        this.loanWriter = loanWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(properties.capacity());
+    }
+
+    /**
+     * @return future completed with {@code false} if the loan already existed, once its batch is committed
+     */
+    public CompletableFuture<Boolean> enqueue(Loan loan) {
+        PendingLoan pending = new PendingLoan(loan, new CompletableFuture<>(), System.nanoTime());
+        if (!running || !offer(pending)) {
+            callerWrites.increment();
+            writeAlone(pending);
+        }
+        return pending.persisted();
+    }
+
+    private boolean offer(PendingLoan pending) {
+        try {
+            return queue.offer(pending, properties.enqueueTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void runFlusher() {
+        List<PendingLoan> batch = new ArrayList<>(properties.batchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                // not restoring the flag, the loop still has to drain the queue
+                running = false;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void collectBatch(List<PendingLoan> batch) throws InterruptedException {
+        PendingLoan first = queue.poll(properties.maxDelay().toNanos(), TimeUnit.NANOSECONDS);
+        if (first == null) return;
+
+        batch.add(first);
+        long deadline = System.nanoTime() + properties.maxDelay().toNanos();
+        while (batch.size() < properties.batchSize()) {
+            if (queue.drainTo(batch, properties.batchSize() - batch.size()) > 0) continue;
+
+            long remaining = deadline - System.nanoTime();
+            PendingLoan next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) return;
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingLoan> batch) {
+        if (batch.isEmpty()) return;
+
+        List<Boolean> inserted;
+        long start = System.nanoTime();
+        try {
+            inserted = transactionTemplate.execute(status -> batch.stream()
+                    .map(pending -> loanWriter.insert(pending.loan()))
+                    .toList());
+        } catch (RuntimeException e) {
+            // one bad loan must not take the others down with it
+            log.warn("Write-behind batch of {} loans failed, writing them one by one", batch.size(), e);
+            batch.forEach(this::writeAlone);
+            return;
+        }
+
+        long committed = System.nanoTime();
+        metrics.recordBatch(batch.size(), committed - start);
+        flushedBatches.increment();
+        flushedLoans.add(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), inserted.get(i), committed);
+        }
+    }
+
+    private void writeAlone(PendingLoan pending) {
+        try {
+            boolean inserted = loanWriter.insert(pending.loan());
+            complete(pending, inserted, System.nanoTime());
+        } catch (RuntimeException e) {
+            pending.persisted().completeExceptionally(e);
+        }
+    }
+
+    private void complete(PendingLoan pending, boolean inserted, long committedNanos) {
+        metrics.recordPersisted(pending.loan().getNumberOfMonths(), committedNanos - pending.enqueuedNanos(), inserted);
+        pending.persisted().complete(inserted);
+    }
+
+    @Override
+    public void start() {
+        if (!properties.enabled()) return;
+
+        running = true;
+        flusher = Thread.ofPlatform()
+                .name("loan-write-behind")
+                .daemon()
+                .start(this::runFlusher);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = flusher;
+        if (thread == null) return;
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // loans offered while the flusher was exiting
+        List<PendingLoan> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(this::writeAlone);
+        log.info("Write-behind queue stopped after {} batches ({} loans)", flushedBatches.sum(), flushedLoans.sum());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // stopped after the calculation executor, so loans it still produces are flushed as well
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 1024;
+    }
+
+    public int queuedCount() {
+        return queue.size();
+    }
+
+    public long flushedBatchCount() {
+        return flushedBatches.sum();
+    }
+
+    public long flushedLoanCount() {
+        return flushedLoans.sum();
+    }
+
+    public long callerWriteCount() {
+        return callerWrites.sum();
+    }
+}
@@ -0,0 +1,126 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.KeyFilterProperties;
+import com.leanpay.loancalculator.repository.LoanKeyView;
+import com.leanpay.loancalculator.repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter of the request keys of persisted loans, so cache misses of loans that were never
+ * calculated go straight to scheduling instead of querying the database first.
+ * <p>
+ * The filter is rebuilt from the database after startup and every key persisted by this instance
+ * is added and published on {@link #PERSISTED_CHANNEL} for the other instances. The channel
+ * listener is subscribed before the rebuild starts, so a loan committed during the rebuild is
+ * either read by it or received as a message. Until the rebuild is done every key may exist.
+ * <p>
+ * A key missed anyway (e.g. a message lost while Redis was unavailable) only costs a recalculation:
+ * the bulk writer skips the duplicate and the response is cached again.
+ */
+@Component
+@Slf4j
+public class PersistedLoanKeyFilter {
+
+    public static final String PERSISTED_CHANNEL = "loanFilter:persisted";
+
+    private final LoanRepository loanRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final KeyFilterProperties properties;
+    private final ScalableBloomFilter filter;
+
+    private final LongAdder skipped = new LongAdder();
+
+    private volatile boolean ready;
+
+    public PersistedLoanKeyFilter(LoanRepository loanRepository,
+                                  StringRedisTemplate stringRedisTemplate,
+                                  KeyFilterProperties properties) {
+        this.loanRepository = loanRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.filter = new ScalableBloomFilter(properties.expectedKeys(), properties.falsePositiveRate());
+    }
+
+    /**
+     * @return {@code false} only if the loan is definitely not persisted
+     */
+    public boolean mightExist(String key) {
+        if (!ready || filter.mightContain(key)) return true;
+
+        skipped.increment();
+        return false;
+    }
+
+    /**
+     * Records a persisted loan on this instance and, when mirrored, on the others.
+     */
+    public void add(String key) {
+        filter.put(key);
+        if (!properties.mirror()) return;
+
+        try {
+            stringRedisTemplate.convertAndSend(PERSISTED_CHANNEL, key);
+        } catch (RuntimeException e) {
+            log.warn("Could not publish persisted key {}", key, e);
+        }
+    }
+
+    /**
+     * Applies a key received on {@link #PERSISTED_CHANNEL}.
+     */
+    public void onPersisted(String key) {
+        filter.put(key);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRebuild() {
+        if (!properties.enabled()) return;
+
+        Thread.ofPlatform()
+                .name("loan-key-filter-rebuild")
+                .daemon()
+                .start(this::rebuild);
+    }
+
+    void rebuild() {
+        long start = System.nanoTime();
+        long afterId = 0;
+        try {
+            List<LoanKeyView> keys;
+            do {
+                keys = loanRepository.findKeysAfter(afterId, Limit.of(properties.rebuildBatchSize()));
+                keys.forEach(key -> filter.put(key.requestKey()));
+                if (!keys.isEmpty()) {
+                    afterId = keys.getLast().id();
+                }
+            } while (keys.size() == properties.rebuildBatchSize());
+        } catch (RuntimeException e) {
+            // stays not ready, every miss is looked up in the database
+            log.warn("Could not rebuild the persisted key filter, it stays disabled", e);
+            return;
+        }
+        ready = true;
+        log.info("Persisted key filter rebuilt with {} keys ({} KB, {} ms)", filter.approximateCount(),
+                filter.bitSize() / 8 / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long skippedCount() {
+        return skipped.sum();
+    }
+
+    public long keyCount() {
+        return filter.approximateCount();
+    }
+}
@@ -0,0 +1,186 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.LookupBatchingProperties;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Micro-batching in front of {@link PersistedLoanReader}: database lookups of concurrent cache
+ * misses that arrive within {@link LookupBatchingProperties#maxDelay()} (or until
+ * {@link LookupBatchingProperties#maxBatchSize()} distinct keys are collected) are resolved by a
+ * single dispatcher thread with one {@code request_key IN (...)} query and handed back to the
+ * waiting request threads. After a Redis flush or failover this turns hundreds of single-row
+ * queries into a few batched ones.
+ * <p>
+ * Requests for the same key within a batch share one result. When batching is disabled, the
+ * loader is not running or the queue is full, the request thread queries on its own.
+ */
+@Component
+@Slf4j
+public class PersistedLoanLoader implements SmartLifecycle {
+
+    // how often a waiting request checks whether the dispatcher has stopped
+    private static final long STOP_CHECK_MILLIS = 100;
+
+    private final PersistedLoanReader reader;
+    private final LookupBatchingProperties properties;
+    private final BlockingQueue<PendingLookup> queue;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedLookups = new LongAdder();
+    private final LongAdder callerLookups = new LongAdder();
+
+    private volatile Thread dispatcher;
+    private volatile boolean running;
+
+    private record PendingLookup(String key, CompletableFuture<Optional<LoanResponse>> result) {
+    }
+
+    public PersistedLoanLoader(PersistedLoanReader reader, LookupBatchingProperties properties) {
+        this.reader = reader;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.capacity());
+    }
+
+    public Optional<LoanResponse> load(String key) {
+        PendingLookup pending = new PendingLookup(key, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            return loadAlone(key);
+        }
+        return await(pending);
+    }
+
+    private Optional<LoanResponse> await(PendingLookup pending) {
+        while (true) {
+            try {
+                return pending.result().get(STOP_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // offered while the dispatcher was exiting, nobody else is going to take it
+                if (!running && queue.remove(pending)) {
+                    return loadAlone(pending.key());
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for loan " + pending.key(), e);
+            }
+        }
+    }
+
+    private Optional<LoanResponse> loadAlone(String key) {
+        callerLookups.increment();
+        return reader.findResponse(key);
+    }
+
+    private void runDispatcher() {
+        List<PendingLookup> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                // not restoring the flag, the loop still has to resolve the queued lookups
+                running = false;
+            }
+            dispatch(batch);
+            batch.clear();
+        }
+    }
+
+    // the batch may hold more lookups than maxBatchSize when keys repeat
+    private void collectBatch(List<PendingLookup> batch) throws InterruptedException {
+        PendingLookup first = queue.poll(STOP_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) return;
+
+        batch.add(first);
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(first.key());
+        long deadline = System.nanoTime() + properties.maxDelay().toNanos();
+        while (keys.size() < properties.maxBatchSize()) {
+            long remaining = deadline - System.nanoTime();
+            PendingLookup next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) return;
+            batch.add(next);
+            keys.add(next.key());
+        }
+    }
+
+    private void dispatch(List<PendingLookup> batch) {
+        if (batch.isEmpty()) return;
+
+        Set<String> keys = new LinkedHashSet<>();
+        batch.forEach(pending -> keys.add(pending.key()));
+
+        Map<String, LoanResponse> responses;
+        try {
+            responses = reader.findResponses(keys);
+        } catch (RuntimeException e) {
+            log.warn("Batched lookup of {} loans failed", keys.size(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+
+        batches.increment();
+        batchedLookups.add(batch.size());
+        batch.forEach(pending -> pending.result().complete(Optional.ofNullable(responses.get(pending.key()))));
+    }
+
+    @Override
+    public void start() {
+        if (!properties.enabled()) return;
+
+        running = true;
+        dispatcher = Thread.ofPlatform()
+                .name("loan-lookup-batcher")
+                .daemon()
+                .start(this::runDispatcher);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread thread = dispatcher;
+        if (thread == null) return;
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Lookup batcher stopped after {} batches ({} lookups)", batches.sum(), batchedLookups.sum());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    public long batchedLookupCount() {
+        return batchedLookups.sum();
+    }
+
+    public long callerLookupCount() {
+        return callerLookups.sum();
+    }
+}
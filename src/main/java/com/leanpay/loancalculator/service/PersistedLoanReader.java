@@ -0,0 +1,84 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.dto.response.InstallmentDto;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.mapper.InstallmentMapper;
+import com.leanpay.loancalculator.mapper.LoanCalculationResponseMapper;
+import com.leanpay.loancalculator.repository.InstallmentRowView;
+import com.leanpay.loancalculator.repository.LoanRepository;
+import com.leanpay.loancalculator.repository.PersistedLoanView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Database fallback of the request path. Only this read borrows a JDBC connection, in a read-only
+ * transaction (no flush, no dirty checking); the loan and its plan are read as DTO projections.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PersistedLoanReader {
+
+    private final LoanRepository loanRepository;
+    private final LoanCalculationResponseMapper responseMapper;
+    private final InstallmentMapper installmentMapper;
+
+    public Optional<LoanResponse> findResponse(String requestKey) {
+        return loanRepository.findViewByRequestKey(requestKey)
+                .map(loan -> responseMapper.toResponse(loan, installments(loan)));
+    }
+
+    /**
+     * Multi-key variant of {@link #findResponse}: one query for the loans and one for the
+     * installment rows of all loans not stored as a columnar schedule.
+     *
+     * @return responses by request key, keys without a persisted loan are absent
+     */
+    public Map<String, LoanResponse> findResponses(Collection<String> requestKeys) {
+        if (requestKeys.isEmpty()) return Map.of();
+
+        List<PersistedLoanView> loans = loanRepository.findViewsByRequestKeyIn(requestKeys);
+        List<Long> rowLoanIds = loans.stream()
+                .filter(loan -> loan.schedule() == null)
+                .map(PersistedLoanView::id)
+                .toList();
+
+        Map<Long, List<InstallmentDto>> rowsByLoanId = new HashMap<>();
+        if (!rowLoanIds.isEmpty()) {
+            for (InstallmentRowView row : loanRepository.findInstallmentRowsByLoanIdIn(rowLoanIds)) {
+                rowsByLoanId.computeIfAbsent(row.loanId(), id -> new ArrayList<>()).add(row.toDto());
+            }
+        }
+
+        Map<String, LoanResponse> responses = new HashMap<>();
+        for (PersistedLoanView loan : loans) {
+            List<InstallmentDto> installments = loan.schedule() != null
+                    ? installmentMapper.toDtoList(loan.schedule())
+                    : rowsByLoanId.getOrDefault(loan.id(), List.of());
+            responses.put(loan.requestKey(), responseMapper.toResponse(loan, installments));
+        }
+        return responses;
+    }
+
+    /**
+     * Whether the loan is persisted, without reading its plan.
+     */
+    public boolean exists(String requestKey) {
+        return loanRepository.existsByRequestKey(requestKey);
+    }
+
+    // columnar loans have no installment rows
+    private List<InstallmentDto> installments(PersistedLoanView loan) {
+        return loan.schedule() != null
+                ? installmentMapper.toDtoList(loan.schedule())
+                : loanRepository.findInstallmentDtosByLoanId(loan.id());
+    }
+}
@@ -0,0 +1,142 @@
+package com.leanpay.loancalculator.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe scalable Bloom filter (Almeida et al.): when a stage reaches its capacity a new one
+ * with twice the capacity and half the false positive rate is added, so the overall false
+ * positive rate stays below the configured one however many keys are added. There are no false
+ * negatives for keys whose {@link #put} has returned.
+ */
+public final class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private volatile List<Stage> stages;
+
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be in (0, 1)");
+        }
+        // the stage rates form a geometric series, their sum is falsePositiveRate
+        this.stages = List.of(new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING)));
+    }
+
+    public boolean mightContain(String key) {
+        long h1 = hash(key);
+        long h2 = secondHash(h1);
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) return true;
+        }
+        return false;
+    }
+
+    public void put(String key) {
+        long h1 = hash(key);
+        long h2 = secondHash(h1);
+        List<Stage> current = stages;
+        for (Stage stage : current) {
+            if (stage.mightContain(h1, h2)) return;
+        }
+
+        Stage last = current.getLast();
+        if (last.count.get() >= last.capacity) {
+            last = grow(last);
+        }
+        last.put(h1, h2);
+    }
+
+    /**
+     * Number of distinct keys added, keys that were false positives when added are not counted.
+     */
+    public long approximateCount() {
+        return stages.stream().mapToLong(stage -> stage.count.get()).sum();
+    }
+
+    public long bitSize() {
+        return stages.stream().mapToLong(stage -> stage.bits).sum();
+    }
+
+    public int stageCount() {
+        return stages.size();
+    }
+
+    private synchronized Stage grow(Stage full) {
+        List<Stage> current = stages;
+        Stage last = current.getLast();
+        if (last != full) return last;
+
+        Stage next = new Stage(full.capacity * GROWTH, full.falsePositiveRate * TIGHTENING);
+        List<Stage> grown = new ArrayList<>(current);
+        grown.add(next);
+        stages = List.copyOf(grown);
+        return next;
+    }
+
+    // FNV-1a over the UTF-8 bytes, finished with the murmur3 mix for a good bit spread
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // odd, so that h1 + i * h2 visits distinct positions
+    private static long secondHash(long h1) {
+        return mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Stage {
+
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bits;
+        private final int hashes;
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+
+        private Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            // optimal m = -n ln p / (ln 2)^2 and k = m / n ln 2
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray(Math.toIntExact((optimalBits + Long.SIZE - 1) / Long.SIZE));
+            this.bits = (long) words.length() * Long.SIZE;
+            this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+        }
+
+        private boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        private void put(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                words.accumulateAndGet((int) (bit >>> 6), mask, (word, m) -> word | m);
+            }
+            count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.PersistenceProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnBooleanProperty("loan.persistence.migrate-schedules")
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduleMigrationRunner implements ApplicationRunner {
+
+    private final ScheduleMigrationService migrationService;
+    private final PersistenceProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        int batches = migrationService.migrateAll(properties.migrationBatchSize());
+        log.info("Migrated installment rows to columnar schedules in {} batches ({} ms)",
+                batches, (System.nanoTime() - start) / 1_000_000);
+    }
+}
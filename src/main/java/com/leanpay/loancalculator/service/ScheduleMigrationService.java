@@ -0,0 +1,75 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.entity.Loan;
+import com.leanpay.loancalculator.repository.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Moves installment rows of existing loans into the columnar {@code loan.schedule}, one batch per
+ * transaction. Loans are visited in id order, so a restarted migration continues where it stopped
+ * and plans that are not representable are skipped instead of being retried forever.
+ * <p>
+ * Cached responses of migrated loans are evicted on every instance once their batch is committed,
+ * so the next request reads the rewritten loan.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduleMigrationService {
+
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LoanCacheFacade cacheFacade;
+
+    private record MigratedBatch(long lastId, List<String> migratedKeys) {
+    }
+
+    /**
+     * @return id of the last visited loan, empty when no row-stored loan is left after {@code afterId}
+     */
+    public OptionalLong migrateBatch(long afterId, int batchSize) {
+        MigratedBatch batch = transactionTemplate.execute(status -> moveBatch(afterId, batchSize));
+        if (batch == null) {
+            return OptionalLong.empty();
+        }
+
+        batch.migratedKeys().forEach(cacheFacade::evictFullResponse);
+        return OptionalLong.of(batch.lastId());
+    }
+
+    public int migrateAll(int batchSize) {
+        int batches = 0;
+        OptionalLong last = migrateBatch(0, batchSize);
+        while (last.isPresent()) {
+            batches++;
+            last = migrateBatch(last.getAsLong(), batchSize);
+        }
+        return batches;
+    }
+
+    private MigratedBatch moveBatch(long afterId, int batchSize) {
+        List<Long> ids = loanRepository.findIdsWithoutSchedule(afterId, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        List<String> migratedKeys = new ArrayList<>(ids.size());
+        for (Loan loan : loanRepository.findAllByIdIn(ids)) {
+            if (loan.moveInstallmentsToSchedule()) {
+                migratedKeys.add(loan.getRequestKey());
+            } else {
+                log.warn("Installment plan of loan {} is not representable as a schedule, keeping rows", loan.getId());
+            }
+        }
+        return new MigratedBatch(ids.getLast(), migratedKeys);
+    }
+}
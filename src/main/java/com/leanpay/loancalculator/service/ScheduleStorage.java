@@ -0,0 +1,8 @@
+package com.leanpay.loancalculator.service;
+
+public enum ScheduleStorage {
+    // one installment row per period
+    ROWS,
+    // whole plan in loan.schedule
+    COLUMNAR
+}
@@ -1,19 +1,37 @@
 package com.leanpay.loancalculator.cache;
 
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
 import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.dto.response.LoanStatus;
+import com.leanpay.loancalculator.dto.response.SummaryDto;
+import com.leanpay.loancalculator.metrics.LoanMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
@@ -28,9 +46,24 @@ class LoanCacheFacadeTest {
     Cache fullCache;
 
     @Mock
-    Cache statusCache;
+    RedisTemplate<String, Object> cacheRedisTemplate;
+
+    @Mock
+    RedisSerializer<Object> cacheValueSerializer;
+
+    @Mock
+    ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    ResponseBodyCache bodyCache;
+
+    LocalResponseCache localCache;
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
 
-    @InjectMocks
     LoanCacheFacade cacheFacade;
 
     private static final LoanCalculationRequest REQUEST =
@@ -40,105 +73,160 @@ class LoanCacheFacadeTest {
                     12
             );
 
-    private static final String KEY = "1000:5:12";
+    private static final String KEY = LoanRequestKey.of(REQUEST);
+
+    private static final List<String> LOOKUP_KEYS =
+            List.of("fullResponse::" + KEY, "statusResponse::" + KEY, "fullResponseGzip::" + KEY);
+
+    private static final byte[] FULL_BYTES = {1};
+    private static final byte[] STATUS_BYTES = {2};
+
+    private static final LoanResponse CALCULATED_RESPONSE =
+            new LoanCalculationResponse(
+                    REQUEST,
+                    LoanStatus.DONE,
+                    new SummaryDto(
+                            BigDecimal.valueOf(85.61),
+                            BigDecimal.valueOf(1027.29),
+                            BigDecimal.valueOf(27.29)
+                    ),
+                    List.of()
+            );
 
     private LoanResponse fullResponse;
     private LoanResponse statusResponse;
 
-    void mockCaches() {
+    @BeforeEach
+    void createFacade() {
+        localCache = new LocalResponseCache(100, Duration.ofMinutes(10));
+        cacheFacade = new LoanCacheFacade(cacheManager, cacheRedisTemplate, cacheValueSerializer,
+                stringRedisTemplate, localCache, bodyCache, new LoanMetrics(registry));
+    }
+
+    void mockResponses() {
         fullResponse = mock(LoanResponse.class);
         statusResponse = mock(LoanResponse.class);
-
-        when(cacheManager.getCache(CacheConfig.FULL_RESPONSE_CACHE))
-                .thenReturn(fullCache);
-        when(cacheManager.getCache(CacheConfig.STATUS_RESPONSE_CACHE))
-                .thenReturn(statusCache);
+        lenient().when(cacheValueSerializer.deserialize(FULL_BYTES)).thenReturn(fullResponse);
+        lenient().when(cacheValueSerializer.deserialize(STATUS_BYTES)).thenReturn(statusResponse);
     }
 
+    void mockLookup(String mode, List<?> result) {
+        when(cacheRedisTemplate.execute(eq(LoanCacheFacade.LOOKUP_SCRIPT), any(), any(), eq(LOOKUP_KEYS), eq(mode)))
+                .thenReturn(result);
+    }
 
 
     @Test
-    void shouldReturnFullResponseAndEvictStatus() {
-        mockCaches();
-
-        when(fullCache.get(KEY, LoanResponse.class))
-                .thenReturn(fullResponse);
+    void shouldReturnFullResponseWithSingleScriptedLookup() {
+        mockResponses();
+        // given
+        mockLookup(LoanCacheFacade.PREFER_RESPONSE, List.of(LoanCacheFacade.FULL_ENTRY, FULL_BYTES));
 
+        // when
         Optional<LoanResponse> result =
-                cacheFacade.getResponseFromCache(KEY);
+                cacheFacade.getResponseFromCache(REQUEST);
 
+        // then (the script removes the stale status entry itself)
         assertThat(result).contains(fullResponse);
-
-        verify(statusCache).evict(KEY);
-        verifyNoMoreInteractions(statusCache);
+        assertEquals(1, localCache.size());
+        verifyNoInteractions(cacheManager);
     }
 
     @Test
-    void shouldReturnFullResponseAndEvictStatusCache() {
-        mockCaches();
+    void shouldReturnStatusResponseIfFullResponseIsMissing() {
+        mockResponses();
         // given
-        when(fullCache.get(KEY, LoanResponse.class))
-                .thenReturn(fullResponse);
+        mockLookup(LoanCacheFacade.PREFER_RESPONSE, List.of(LoanCacheFacade.STATUS_ENTRY, STATUS_BYTES));
 
         // when
         Optional<LoanResponse> result =
-                cacheFacade.getResponseFromCache(REQUEST);
+                cacheFacade.getResponseFromCache(KEY);
 
         // then
-        assertTrue(result.isPresent());
-        assertEquals(fullResponse, result.get());
-
-        verify(statusCache).evict(KEY);
-        verify(statusCache, never()).get(KEY, LoanResponse.class);
+        assertThat(result).contains(statusResponse);
+        assertEquals(1, cacheFacade.redisStats().missCount(ResponseCache.FULL_RESPONSE));
+        assertEquals(1, cacheFacade.redisStats().hitCount(ResponseCache.STATUS_RESPONSE));
+        verifyNoInteractions(cacheManager);
     }
 
     @Test
-    void shouldReturnStatusResponseIfFullResponseIsMissing() {
-        mockCaches();
-        // given
-        when(fullCache.get(KEY, LoanResponse.class))
-                .thenReturn(null);
-        when(statusCache.get(KEY, LoanResponse.class))
-                .thenReturn(statusResponse);
+    void shouldTreatUndecodableEntryAsMiss() {
+        // given (e.g. an entry written by a newer version)
+        when(cacheValueSerializer.deserialize(FULL_BYTES)).thenThrow(new SerializationException("Corrupt cache value"));
+        mockLookup(LoanCacheFacade.PREFER_RESPONSE, List.of(LoanCacheFacade.FULL_ENTRY, FULL_BYTES));
 
         // when
         Optional<LoanResponse> result =
-                cacheFacade.getResponseFromCache(REQUEST);
+                cacheFacade.getResponseFromCache(KEY);
 
         // then
-        assertTrue(result.isPresent());
-        assertEquals(statusResponse, result.get());
-
-        verify(statusCache, never()).evict(anyString());
+        assertThat(result).isEmpty();
+        assertEquals(0, localCache.size());
     }
 
-
     @Test
-    void shouldReturnStatusResponseWhenFullIsMissing() {
-        mockCaches();
-        when(fullCache.get(KEY, LoanResponse.class))
-                .thenReturn(null);
-        when(statusCache.get(KEY, LoanResponse.class))
-                .thenReturn(statusResponse);
+    void shouldReturnEmptyWhenNothingInCache() {
+        mockLookup(LoanCacheFacade.PREFER_RESPONSE, List.of());
 
         Optional<LoanResponse> result =
                 cacheFacade.getResponseFromCache(KEY);
 
-        assertThat(result).contains(statusResponse);
+        assertThat(result).isEmpty();
+        assertEquals(1, cacheFacade.redisStats().missCount(ResponseCache.FULL_RESPONSE));
+        assertEquals(1, cacheFacade.redisStats().missCount(ResponseCache.STATUS_RESPONSE));
+        assertEquals(1, registry.get(LoanMetrics.CACHE_LOOKUP)
+                .tag(LoanMetrics.TIER_TAG, LoanMetrics.REDIS_TIER).timer().count());
+    }
 
-        verify(statusCache, never()).evict(any());
+    @Test
+    void shouldReturnBodyFromSameScriptedLookup() {
+        // given
+        byte[] gzip = CachedResponseBody.of("{}".getBytes(StandardCharsets.UTF_8)).gzip();
+        when(bodyCache.getLocal(KEY)).thenReturn(Optional.empty());
+        mockLookup(LoanCacheFacade.PREFER_BODY, List.of(LoanCacheFacade.BODY_ENTRY, gzip));
+
+        // when
+        Optional<ResponseOrBody> result = cacheFacade.getResponseOrBodyFromCache(KEY);
+
+        // then the body is neither deserialized nor read with a second command
+        assertThat(result).isPresent();
+        assertArrayEquals(gzip, result.get().body().gzip());
+        // inflated once when it is loaded into the L1, not per response
+        assertArrayEquals("{}".getBytes(StandardCharsets.UTF_8), result.get().body().json());
+        verify(bodyCache).putLocal(eq(KEY), any(CachedResponseBody.class));
+        verifyNoInteractions(cacheValueSerializer, cacheManager);
+        assertEquals(1, cacheFacade.localStats().missCount(ResponseCache.BODY));
+        assertEquals(1, cacheFacade.redisStats().hitCount(ResponseCache.BODY));
+        assertEquals(0, cacheFacade.redisStats().missCount(ResponseCache.FULL_RESPONSE));
     }
 
     @Test
-    void shouldReturnEmptyWhenNothingInCache() {
-        mockCaches();
-        when(fullCache.get(KEY, LoanResponse.class)).thenReturn(null);
-        when(statusCache.get(KEY, LoanResponse.class)).thenReturn(null);
+    void shouldFallBackToResponseWhenNoBodyIsCached() {
+        mockResponses();
+        when(bodyCache.getLocal(KEY)).thenReturn(Optional.empty());
+        mockLookup(LoanCacheFacade.PREFER_BODY, List.of(LoanCacheFacade.STATUS_ENTRY, STATUS_BYTES));
 
-        Optional<LoanResponse> result =
-                cacheFacade.getResponseFromCache(KEY);
+        Optional<ResponseOrBody> result = cacheFacade.getResponseOrBodyFromCache(KEY);
 
-        assertThat(result).isEmpty();
+        assertThat(result).contains(ResponseOrBody.of(statusResponse));
+        assertEquals(1, cacheFacade.redisStats().missCount(ResponseCache.BODY));
+        assertEquals(1, cacheFacade.redisStats().missCount(ResponseCache.FULL_RESPONSE));
+        assertEquals(1, cacheFacade.redisStats().hitCount(ResponseCache.STATUS_RESPONSE));
+    }
+
+    @Test
+    void shouldServeLocalBodyWithoutRedis() {
+        CachedResponseBody body = CachedResponseBody.of("{}".getBytes(StandardCharsets.UTF_8));
+        when(bodyCache.getLocal(KEY)).thenReturn(Optional.of(body));
+
+        Optional<ResponseOrBody> result = cacheFacade.getResponseOrBodyFromCache(KEY);
+
+        assertThat(result).contains(ResponseOrBody.of(body));
+        verifyNoInteractions(cacheRedisTemplate);
+        assertEquals(1, cacheFacade.localStats().hitCount(ResponseCache.BODY));
+        assertEquals(0, cacheFacade.localStats().missCount(ResponseCache.FULL_RESPONSE));
+        assertEquals(1, registry.get(LoanMetrics.CACHE_LOOKUP)
+                .tag(LoanMetrics.TIER_TAG, LoanMetrics.LOCAL_TIER).timer().count());
     }
 
     @Test
@@ -147,4 +235,121 @@ class LoanCacheFacadeTest {
         assertEquals(KEY, key);
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldGenerateSameCacheKeyForNumericallyEqualRequests() {
+        LoanCalculationRequest sameLoan = new LoanCalculationRequest(
+                new BigDecimal("1000.00"),
+                new BigDecimal("5.0"),
+                12
+        );
+
+        assertEquals(KEY, cacheFacade.generateCacheKey(sameLoan));
+    }
+
+    @Test
+    void shouldReadAllKeysWithSingleMultiGet() {
+        // given
+        String otherKey = "2000:5:12";
+        String missingKey = "3000:5:12";
+        fullResponse = mock(LoanResponse.class);
+        statusResponse = mock(LoanResponse.class);
+        LoanResponse staleStatus = mock(LoanResponse.class);
+
+        when(cacheRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(List.of(
+                "fullResponse::" + KEY,
+                "fullResponse::" + otherKey,
+                "fullResponse::" + missingKey,
+                "statusResponse::" + KEY,
+                "statusResponse::" + otherKey,
+                "statusResponse::" + missingKey
+        ))).thenReturn(Arrays.asList(fullResponse, null, null, staleStatus, statusResponse, null));
+
+        // when
+        Map<String, LoanResponse> result =
+                cacheFacade.getResponsesFromCache(List.of(KEY, otherKey, missingKey));
+
+        // then
+        assertEquals(Map.of(KEY, fullResponse, otherKey, statusResponse), result);
+        verify(cacheRedisTemplate).delete(List.of("statusResponse::" + KEY));
+        verifyNoInteractions(cacheManager);
+        assertEquals(1, cacheFacade.redisStats().hitCount(ResponseCache.FULL_RESPONSE));
+        assertEquals(1, cacheFacade.redisStats().hitCount(ResponseCache.STATUS_RESPONSE));
+        assertEquals(1, cacheFacade.redisStats().missCount(ResponseCache.STATUS_RESPONSE));
+    }
+
+    @Test
+    void shouldServeCalculatedResponseFromLocalCacheAfterFirstRedisHit() {
+        when(cacheValueSerializer.deserialize(FULL_BYTES)).thenReturn(CALCULATED_RESPONSE);
+        mockLookup(LoanCacheFacade.PREFER_RESPONSE, List.of(LoanCacheFacade.FULL_ENTRY, FULL_BYTES));
+
+        Optional<LoanResponse> first = cacheFacade.getResponseFromCache(KEY);
+        Optional<LoanResponse> second = cacheFacade.getResponseFromCache(KEY);
+
+        assertThat(first).contains(CALCULATED_RESPONSE);
+        assertThat(second).contains(CALCULATED_RESPONSE);
+
+        // only the first lookup went to Redis
+        verify(cacheRedisTemplate, times(1))
+                .execute(eq(LoanCacheFacade.LOOKUP_SCRIPT), any(), any(), eq(LOOKUP_KEYS), any());
+
+        assertEquals(1, cacheFacade.localStats().hitCount(ResponseCache.FULL_RESPONSE));
+        assertEquals(1, cacheFacade.localStats().missCount(ResponseCache.FULL_RESPONSE));
+        assertEquals(1, cacheFacade.redisStats().hitCount(ResponseCache.FULL_RESPONSE));
+        assertEquals(0.5, cacheFacade.localStats().hitRatio(ResponseCache.FULL_RESPONSE));
+    }
+
+    @Test
+    void shouldNotKeepStatusResponsesInLocalCache() {
+        mockResponses();
+        mockLookup(LoanCacheFacade.PREFER_RESPONSE, List.of(LoanCacheFacade.STATUS_ENTRY, STATUS_BYTES));
+
+        cacheFacade.getResponseFromCache(KEY);
+
+        assertEquals(0, localCache.size());
+    }
+
+    @Test
+    void shouldEvictLocallyAndPublishInvalidation() {
+        when(cacheManager.getCache(CacheConfig.FULL_RESPONSE_CACHE)).thenReturn(fullCache);
+        cacheFacade.putFullResponse(KEY, CALCULATED_RESPONSE);
+
+        cacheFacade.evictFullResponse(KEY);
+
+        assertThat(localCache.get(KEY)).isEmpty();
+        verify(fullCache).evict(KEY);
+        verify(bodyCache).evict(KEY);
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(LoanCacheFacade.INVALIDATION_CHANNEL), message.capture());
+        assertTrue(message.getValue().endsWith("|" + KEY));
+    }
+
+    @Test
+    void shouldApplyInvalidationsFromOtherInstancesOnly() {
+        when(cacheManager.getCache(CacheConfig.FULL_RESPONSE_CACHE)).thenReturn(fullCache);
+        cacheFacade.putFullResponse(KEY, CALCULATED_RESPONSE);
+        cacheFacade.evictFullResponse(KEY);
+        ArgumentCaptor<String> ownMessage = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(LoanCacheFacade.INVALIDATION_CHANNEL), ownMessage.capture());
+
+        cacheFacade.putFullResponse(KEY, CALCULATED_RESPONSE);
+        cacheFacade.onInvalidation(ownMessage.getValue());
+        assertThat(localCache.get(KEY)).contains(CALCULATED_RESPONSE);
+
+        cacheFacade.onInvalidation("other-node|" + KEY);
+        assertThat(localCache.get(KEY)).isEmpty();
+        verify(bodyCache).evictLocal(KEY);
+    }
+
+    @Test
+    void shouldStorePreSerializedBodyWithCalculatedResponse() {
+        when(cacheManager.getCache(CacheConfig.FULL_RESPONSE_CACHE)).thenReturn(fullCache);
+
+        cacheFacade.putFullResponse(KEY, CALCULATED_RESPONSE);
+
+        verify(fullCache).put(KEY, CALCULATED_RESPONSE);
+        verify(bodyCache).put(KEY, (LoanCalculationResponse) CALCULATED_RESPONSE);
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.leanpay.loancalculator.cache;
+
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.dto.response.LoanStatus;
+import com.leanpay.loancalculator.dto.response.LoanStatusResponse;
+import com.leanpay.loancalculator.dto.response.SummaryDto;
+import com.leanpay.loancalculator.exception.CalculationFailedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanCompletionNotifierTest {
+
+    @Mock
+    LoanCacheFacade cache;
+
+    @Mock
+    StringRedisTemplate stringRedisTemplate;
+
+    @InjectMocks
+    LoanCompletionNotifier notifier;
+
+    private static final String KEY = "key";
+
+    private static final LoanCalculationRequest REQUEST =
+            new LoanCalculationRequest(BigDecimal.valueOf(1000), BigDecimal.valueOf(5), 10);
+
+    private static final LoanCalculationResponse RESPONSE =
+            new LoanCalculationResponse(
+                    REQUEST,
+                    LoanStatus.DONE,
+                    new SummaryDto(BigDecimal.valueOf(102.31), BigDecimal.valueOf(1023.06), BigDecimal.valueOf(23.06)),
+                    List.of()
+            );
+
+    @Test
+    void shouldCompleteLocalWaitersAndNotifyOtherInstances() {
+        // given
+        CompletableFuture<LoanResponse> first = notifier.awaitCompletion(KEY);
+        CompletableFuture<LoanResponse> second = notifier.awaitCompletion(KEY);
+
+        // when
+        notifier.publishCompleted(KEY, RESPONSE);
+
+        // then
+        assertThat(first).isCompletedWithValue(RESPONSE);
+        assertThat(second).isCompletedWithValue(RESPONSE);
+        assertThat(notifier.waitingCount()).isZero();
+        verify(stringRedisTemplate).convertAndSend(LoanCompletionNotifier.COMPLETION_CHANNEL, KEY);
+    }
+
+    @Test
+    void shouldReadResponseFromCacheOnRemoteCompletion() {
+        // given
+        CompletableFuture<LoanResponse> waiter = notifier.awaitCompletion(KEY);
+        when(cache.getResponseFromCache(KEY)).thenReturn(Optional.of(RESPONSE));
+
+        // when
+        notifier.onCompletion(KEY);
+
+        // then
+        assertThat(waiter).isCompletedWithValue(RESPONSE);
+    }
+
+    @Test
+    void shouldKeepWaitingWhenCacheHasNoCalculatedLoan() {
+        // given
+        CompletableFuture<LoanResponse> waiter = notifier.awaitCompletion(KEY);
+        when(cache.getResponseFromCache(KEY))
+                .thenReturn(Optional.of(new LoanStatusResponse(REQUEST, LoanStatus.CALCULATING)));
+
+        // when
+        notifier.onCompletion(KEY);
+
+        // then
+        assertThat(waiter).isNotDone();
+        assertThat(notifier.waitingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldIgnoreRemoteCompletionWithoutWaiters() {
+        // when
+        notifier.onCompletion(KEY);
+
+        // then
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void shouldUnregisterCancelledWaiter() {
+        // given
+        CompletableFuture<LoanResponse> waiter = notifier.awaitCompletion(KEY);
+
+        // when
+        waiter.cancel(false);
+
+        // then
+        assertThat(notifier.waitingCount()).isZero();
+        notifier.onCompletion(KEY);
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void shouldFailLocalWaitersAndNotifyOtherInstances() {
+        // given
+        CompletableFuture<LoanResponse> waiter = notifier.awaitCompletion(KEY);
+
+        // when
+        notifier.publishFailed(KEY);
+
+        // then
+        assertThat(waiter).failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(CalculationFailedException.class);
+        assertThat(notifier.waitingCount()).isZero();
+        verify(stringRedisTemplate).convertAndSend(LoanCompletionNotifier.COMPLETION_CHANNEL, "failed|" + KEY);
+    }
+
+    @Test
+    void shouldFailWaitersOnRemoteFailure() {
+        // given
+        CompletableFuture<LoanResponse> waiter = notifier.awaitCompletion(KEY);
+
+        // when
+        notifier.onCompletion("failed|" + KEY);
+
+        // then
+        assertThat(waiter).isCompletedExceptionally();
+        assertThat(notifier.waitingCount()).isZero();
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void shouldNotLoseWaiterRegisteredWhileAnotherIsUnregistered() throws Exception {
+        for (int i = 0; i < 1_000; i++) {
+            // given
+            CompletableFuture<LoanResponse> cancelled = notifier.awaitCompletion(KEY);
+            CyclicBarrier start = new CyclicBarrier(2);
+
+            // when
+            CompletableFuture<Void> cancel = CompletableFuture.runAsync(() -> {
+                await(start);
+                cancelled.cancel(false);
+            });
+            CompletableFuture<CompletableFuture<LoanResponse>> register = CompletableFuture.supplyAsync(() -> {
+                await(start);
+                return notifier.awaitCompletion(KEY);
+            });
+            cancel.get(5, TimeUnit.SECONDS);
+            CompletableFuture<LoanResponse> waiter = register.get(5, TimeUnit.SECONDS);
+            notifier.publishCompleted(KEY, RESPONSE);
+
+            // then
+            assertThat(waiter).isCompletedWithValue(RESPONSE);
+            assertThat(notifier.waitingCount()).isZero();
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.leanpay.loancalculator.cache;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.*;
+import com.leanpay.loancalculator.mapper.InstallmentMapper;
+import com.leanpay.loancalculator.mapper.LoanCalculationResponseMapper;
+import com.leanpay.loancalculator.service.AmortizationCalculator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class LoanResponseRedisSerializerTest {
+
+    private final RedisSerializer<Object> json = RedisSerializer.json();
+    private final LoanResponseRedisSerializer serializer = new LoanResponseRedisSerializer(json, true);
+
+    private final AmortizationCalculator calculator = new AmortizationCalculator(
+            CalculationProperties.defaults().withSimulatedDelay(Duration.ZERO));
+    private final LoanCalculationResponseMapper responseMapper =
+            new LoanCalculationResponseMapper(new InstallmentMapper());
+
+    private static final LoanCalculationRequest REQUEST =
+            new LoanCalculationRequest(
+                    BigDecimal.valueOf(1000),
+                    BigDecimal.valueOf(5),
+                    12
+            );
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 12, 60, 360, 600})
+    void shouldRoundTripCalculatedResponse(int numberOfMonths) {
+        LoanResponse response = calculatedResponse(numberOfMonths);
+
+        Object decoded = serializer.deserialize(serializer.serialize(response));
+
+        assertEquals(response, decoded);
+    }
+
+    @Test
+    void shouldRoundTripStatusResponse() {
+        LoanResponse response = new LoanStatusResponse(REQUEST, LoanStatus.CALCULATING);
+
+        assertEquals(response, serializer.deserialize(serializer.serialize(response)));
+    }
+
+    @Test
+    void shouldRoundTripIrregularColumnsAndNulls() {
+        LoanResponse response = new LoanCalculationResponse(
+                null,
+                LoanStatus.DONE,
+                new SummaryDto(new BigDecimal("123456789012345678901234567890.12"), null, BigDecimal.ZERO),
+                List.of(
+                        new InstallmentDto(1, new BigDecimal("1.5"), null,
+                                new BigDecimal("-3"), new BigDecimal("9223372036854775807")),
+                        new InstallmentDto(null, new BigDecimal("1.50"), new BigDecimal("2"),
+                                new BigDecimal("-9223372036854775808"), new BigDecimal("-9223372036854775808"))
+                )
+        );
+
+        assertEquals(response, serializer.deserialize(serializer.serialize(response)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {12, 360})
+    void shouldBeMuchSmallerThanJson(int numberOfMonths) {
+        LoanResponse response = calculatedResponse(numberOfMonths);
+
+        int binarySize = serializer.serialize(response).length;
+        int jsonSize = json.serialize(response).length;
+
+        assertThat(binarySize).isLessThan(jsonSize / 5);
+    }
+
+    @Test
+    void shouldWriteScheduleFromCentsLikeRows() {
+        LoanCalculationResponse response = calculatedResponse(360);
+        assertInstanceOf(InstallmentScheduleList.class, response.installmentPlan());
+
+        assertArrayEquals(serializer.serialize(withRows(response)), serializer.serialize(response));
+    }
+
+    @Test
+    void shouldReadTwoDecimalPlanBackAsSchedule() {
+        LoanCalculationResponse response = withRows(calculatedResponse(60));
+
+        LoanCalculationResponse decoded = (LoanCalculationResponse) serializer.deserialize(serializer.serialize(response));
+
+        assertInstanceOf(InstallmentScheduleList.class, decoded.installmentPlan());
+        assertEquals(response, decoded);
+    }
+
+    @Test
+    void shouldReadEntriesWrittenAsJson() {
+        LoanResponse response = withRows(calculatedResponse(12));
+
+        Object decoded = serializer.deserialize(json.serialize(response));
+
+        assertEquals(response, decoded);
+    }
+
+    @Test
+    void shouldWriteJsonWhenBinaryFormatIsDisabled() {
+        LoanResponseRedisSerializer jsonWriter = new LoanResponseRedisSerializer(json, false);
+        LoanResponse response = new LoanStatusResponse(REQUEST, LoanStatus.CALCULATING);
+
+        byte[] bytes = jsonWriter.serialize(response);
+
+        assertArrayEquals(json.serialize(response), bytes);
+        assertEquals(response, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void shouldWriteScheduleAsRowsWhenBinaryFormatIsDisabled() {
+        LoanResponseRedisSerializer jsonWriter = new LoanResponseRedisSerializer(json, false);
+        LoanCalculationResponse response = calculatedResponse(12);
+
+        byte[] bytes = jsonWriter.serialize(response);
+
+        assertArrayEquals(json.serialize(withRows(response)), bytes);
+        assertEquals(response, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void shouldWriteOtherValuesAsJson() {
+        assertArrayEquals(json.serialize("value"), serializer.serialize("value"));
+    }
+
+    @Test
+    void shouldRejectUnknownVersion() {
+        assertThatThrownBy(() -> serializer.deserialize(new byte[]{2, 0}))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @ParameterizedTest
+    @EnumSource(LoanStatus.class)
+    void shouldRoundTripEveryStatus(LoanStatus status) {
+        LoanResponse response = new LoanStatusResponse(REQUEST, status);
+
+        assertEquals(response, serializer.deserialize(serializer.serialize(response)));
+    }
+
+    @Test
+    void shouldKeepStatusCodesOfExistingEntries() {
+        // version, no flags, status response, DONE (code 1), no loan
+        byte[] written = {LoanResponseRedisSerializer.VERSION, 0, 1, 3, 0};
+
+        assertEquals(new LoanStatusResponse(null, LoanStatus.DONE), serializer.deserialize(written));
+    }
+
+    @Test
+    void shouldRejectUnknownStatusCode() {
+        // version, no flags, status response, status code 7, no loan
+        byte[] written = {LoanResponseRedisSerializer.VERSION, 0, 1, 15, 0};
+
+        assertThatThrownBy(() -> serializer.deserialize(written))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void shouldRejectTruncatedValue() {
+        byte[] bytes = serializer.serialize(calculatedResponse(60));
+
+        assertThatThrownBy(() -> serializer.deserialize(Arrays.copyOf(bytes, bytes.length - 3)))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    private LoanCalculationResponse calculatedResponse(int numberOfMonths) {
+        return (LoanCalculationResponse) responseMapper.toResponse(calculator.calculateAndBuildLoan(new LoanCalculationRequest(
+                new BigDecimal("25000"),
+                new BigDecimal("5.5"),
+                numberOfMonths
+        )));
+    }
+
+    // the plan as BigDecimal rows, as cached before the fixed-point engine
+    private static LoanCalculationResponse withRows(LoanCalculationResponse response) {
+        return new LoanCalculationResponse(response.loan(), response.status(), response.summary(),
+                List.copyOf(response.installmentPlan()));
+    }
+}
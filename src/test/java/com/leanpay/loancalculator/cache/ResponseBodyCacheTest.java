@@ -0,0 +1,106 @@
+package com.leanpay.loancalculator.cache;
+
+import com.leanpay.loancalculator.config.LocalCacheProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.InstallmentDto;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.dto.response.LoanStatus;
+import com.leanpay.loancalculator.dto.response.SummaryDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseBodyCacheTest {
+
+    @Mock
+    RedisTemplate<String, byte[]> bodyRedisTemplate;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private ResponseBodyCache bodyCache;
+
+    private static final String KEY = "key";
+
+    private static final LoanCalculationResponse RESPONSE =
+            new LoanCalculationResponse(
+                    new LoanCalculationRequest(BigDecimal.valueOf(1000), BigDecimal.valueOf(5), 2),
+                    LoanStatus.DONE,
+                    new SummaryDto(
+                            BigDecimal.valueOf(503.13),
+                            BigDecimal.valueOf(1006.26),
+                            BigDecimal.valueOf(6.26)
+                    ),
+                    List.of(
+                            new InstallmentDto(1, new BigDecimal("503.13"), new BigDecimal("498.96"),
+                                    new BigDecimal("4.17"), new BigDecimal("501.04")),
+                            new InstallmentDto(2, new BigDecimal("503.13"), new BigDecimal("501.04"),
+                                    new BigDecimal("2.09"), new BigDecimal("0.00"))
+                    )
+            );
+
+    @BeforeEach
+    void createCache() {
+        bodyCache = new ResponseBodyCache(bodyRedisTemplate, objectMapper,
+                new LocalCacheProperties(100, DataSize.ofMegabytes(1)));
+    }
+
+    @Test
+    void shouldStoreGzipBodyWithSingleRoundTripAndPlainBodyLocally() throws IOException {
+        bodyCache.put(KEY, RESPONSE);
+
+        verify(bodyRedisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+
+        CachedResponseBody body = bodyCache.getLocal(KEY).orElseThrow();
+        assertArrayEquals(objectMapper.writeValueAsBytes(RESPONSE), gunzip(body.gzip()));
+        // clients without gzip get the plain copy, nothing is inflated per hit
+        assertArrayEquals(objectMapper.writeValueAsBytes(RESPONSE), body.json());
+
+        // kept locally as well
+        verify(bodyRedisTemplate, never()).opsForValue();
+    }
+
+    @Test
+    void shouldKeepBodiesReadByTheFacadeLocally() {
+        CachedResponseBody body = CachedResponseBody.of(objectMapper.writeValueAsBytes(RESPONSE));
+
+        bodyCache.putLocal(KEY, body);
+
+        assertThat(bodyCache.getLocal(KEY)).containsSame(body);
+        verifyNoInteractions(bodyRedisTemplate);
+    }
+
+    @Test
+    void shouldEvictLocalAndRedisCopy() {
+        bodyCache.put(KEY, RESPONSE);
+
+        bodyCache.evict(KEY);
+
+        verify(bodyRedisTemplate).delete("fullResponseGzip::" + KEY);
+        assertThat(bodyCache.getLocal(KEY)).isEmpty();
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+}
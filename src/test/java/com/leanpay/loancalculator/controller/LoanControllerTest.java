@@ -1,11 +1,26 @@
 package com.leanpay.loancalculator.controller;
 
 
+import com.leanpay.loancalculator.cache.CachedResponseBody;
+import com.leanpay.loancalculator.cache.ResponseOrBody;
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.InstallmentDto;
+import com.leanpay.loancalculator.dto.response.InstallmentPageResponse;
+import com.leanpay.loancalculator.dto.response.LoanBatchResponse;
 import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.dto.response.LoanJobResponse;
+import com.leanpay.loancalculator.dto.response.LoanJobState;
 import com.leanpay.loancalculator.dto.response.LoanStatus;
+import com.leanpay.loancalculator.dto.response.LoanStatusResponse;
 import com.leanpay.loancalculator.dto.response.SummaryDto;
+import com.leanpay.loancalculator.exception.CalculationCapacityExceededException;
 import com.leanpay.loancalculator.exception.GlobalExceptionHandler;
+import com.leanpay.loancalculator.exception.InvalidInstallmentRangeException;
+import com.leanpay.loancalculator.exception.LoanOutOfRangeException;
+import com.leanpay.loancalculator.exception.StreamingRequiredException;
+import com.leanpay.loancalculator.service.InstallmentScheduleService;
+import com.leanpay.loancalculator.service.LoanBatchService;
+import com.leanpay.loancalculator.service.LoanEventService;
 import com.leanpay.loancalculator.service.LoanService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -17,14 +32,28 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import tools.jackson.databind.ObjectMapper;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(LoanController.class)
@@ -40,6 +69,23 @@ class LoanControllerTest {
     @MockitoBean
     private LoanService loanService;
 
+    private static final String VALID_REQUEST = """
+            {
+              "amount": 1000,
+              "annualInterestRate": 5,
+              "numberOfMonths": 10
+            }
+            """;
+
+    @MockitoBean
+    private InstallmentScheduleService installmentScheduleService;
+
+    @MockitoBean
+    private LoanBatchService loanBatchService;
+
+    @MockitoBean
+    private LoanEventService loanEventService;
+
 
     // --- Happy path ---
     @Test
@@ -62,8 +108,8 @@ class LoanControllerTest {
                 List.of()
         );
 
-        Mockito.when(loanService.calculateLoan(Mockito.any()))
-                .thenReturn(response);
+        Mockito.when(loanService.calculateLoanOrBody(Mockito.any()))
+                .thenReturn(ResponseOrBody.of(response));
 
         // when & then
         mockMvc.perform(post("/loans")
@@ -78,6 +124,129 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$.summary.totalInterest").value(23.06));
     }
 
+    // --- Pre-serialized cache hits ---
+    @Test
+    void shouldWriteCachedBodyInflatedWhenGzipIsNotAccepted() throws Exception {
+        byte[] json = "{\"status\":\"DONE\"}".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(loanService.calculateLoanOrBody(Mockito.any(LoanCalculationRequest.class)))
+                .thenReturn(ResponseOrBody.of(CachedResponseBody.of(json)));
+
+        mockMvc.perform(post("/loans")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(VALID_REQUEST))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().bytes(json));
+    }
+
+    @Test
+    void shouldWriteGzipBodyWhenAccepted() throws Exception {
+        CachedResponseBody body = CachedResponseBody.of("{}".getBytes(StandardCharsets.UTF_8));
+        byte[] gzip = body.gzip();
+        Mockito.when(loanService.calculateLoanOrBody(Mockito.any(LoanCalculationRequest.class)))
+                .thenReturn(ResponseOrBody.of(body));
+
+        mockMvc.perform(post("/loans")
+                        .header("Accept-Encoding", "gzip, deflate, br")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(VALID_REQUEST))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(content().bytes(gzip));
+    }
+
+    @Test
+    void shouldParseAcceptEncoding() {
+        assertTrue(LoanController.acceptsGzip("gzip"));
+        assertTrue(LoanController.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertFalse(LoanController.acceptsGzip("gzip;q=0"));
+        assertFalse(LoanController.acceptsGzip("br"));
+        assertFalse(LoanController.acceptsGzip(null));
+    }
+
+    // --- Jobs ---
+    private static final String JOB_ID = "0123456789abcdef0123456789abcdef";
+
+    @Test
+    void shouldAcceptAsyncRequestWithJobLocation() throws Exception {
+        Instant now = Instant.now();
+        Mockito.when(loanService.submitLoan(Mockito.any()))
+                .thenReturn(new LoanJobResponse(JOB_ID, LoanJobState.CALCULATING, now, now.plusSeconds(8), null));
+
+        mockMvc.perform(post("/loans")
+                        .header("Prefer", "respond-async, wait=5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(VALID_REQUEST))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/loans/jobs/" + JOB_ID))
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.id").value(JOB_ID))
+                .andExpect(jsonPath("$.state").value("CALCULATING"));
+
+        Mockito.verify(loanService, Mockito.never()).calculateLoanOrBody(Mockito.any());
+    }
+
+    @Test
+    void shouldRedirectAsyncRequestOfCalculatedLoanToResult() throws Exception {
+        Mockito.when(loanService.submitLoan(Mockito.any()))
+                .thenReturn(new LoanJobResponse(JOB_ID, LoanJobState.DONE, null, null, null));
+
+        mockMvc.perform(post("/loans")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(VALID_REQUEST))
+                .andExpect(status().isSeeOther())
+                .andExpect(header().string("Location", "http://localhost/loans/jobs/" + JOB_ID + "/result"));
+    }
+
+    @Test
+    void shouldReturnCacheableJobStatus() throws Exception {
+        Instant now = Instant.now();
+        Mockito.when(loanService.getJob(JOB_ID))
+                .thenReturn(Optional.of(new LoanJobResponse(JOB_ID, LoanJobState.CALCULATING, now, now.plusSeconds(8), null)));
+
+        mockMvc.perform(get("/loans/jobs/" + JOB_ID))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=1, public"))
+                .andExpect(jsonPath("$.state").value("CALCULATING"))
+                .andExpect(jsonPath("$.completedAt").doesNotExist());
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownOrMalformedJob() throws Exception {
+        Mockito.when(loanService.getJob(JOB_ID)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/loans/jobs/" + JOB_ID))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/loans/jobs/not-a-job"))
+                .andExpect(status().isNotFound());
+
+        Mockito.verify(loanService, Mockito.never()).getJob("not-a-job");
+    }
+
+    @Test
+    void shouldServeJobResultFromCachedBody() throws Exception {
+        byte[] json = "{\"status\":\"DONE\"}".getBytes(StandardCharsets.UTF_8);
+        Mockito.when(loanService.findCalculatedLoan(JOB_ID))
+                .thenReturn(Optional.of(ResponseOrBody.of(CachedResponseBody.of(json))));
+
+        mockMvc.perform(get("/loans/jobs/" + JOB_ID + "/result"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=600, public"))
+                .andExpect(content().bytes(json));
+    }
+
+    @Test
+    void shouldParsePreferHeader() {
+        assertTrue(LoanController.prefersAsync("respond-async"));
+        assertTrue(LoanController.prefersAsync("wait=10, Respond-Async"));
+        assertFalse(LoanController.prefersAsync("return=minimal"));
+        assertFalse(LoanController.prefersAsync(null));
+    }
+
     // --- Parameterized invalid requests ---
     record InvalidRequestCase(String name, String jsonPayload, int expectedStatus, int expectedErrorCount) {}
 
@@ -97,7 +266,14 @@ class LoanControllerTest {
                       "annualInterestRate": 0,
                       "numberOfMonths": 1
                     }
-                    """, 422, 3)
+                    """, 422, 3),
+                new InvalidRequestCase("term above hard limit", """
+                    {
+                      "amount": 1000,
+                      "annualInterestRate": 5,
+                      "numberOfMonths": 100001
+                    }
+                    """, 422, 1)
         );
     }
 
@@ -119,4 +295,300 @@ class LoanControllerTest {
         }
     }
 
+    // --- Installment paging ---
+    @Test
+    void shouldReturnInstallmentPage() throws Exception {
+        LoanCalculationRequest request = new LoanCalculationRequest(
+                BigDecimal.valueOf(1000),
+                BigDecimal.valueOf(5),
+                10
+        );
+
+        InstallmentPageResponse page = new InstallmentPageResponse(
+                request,
+                2,
+                2,
+                List.of(new InstallmentDto(
+                        2,
+                        new BigDecimal("102.31"),
+                        new BigDecimal("98.55"),
+                        new BigDecimal("3.76"),
+                        new BigDecimal("803.31")
+                ))
+        );
+
+        Mockito.when(installmentScheduleService.getInstallmentPage(request, 2, 2))
+                .thenReturn(page);
+
+        mockMvc.perform(get("/loans/installments")
+                        .param("amount", "1000")
+                        .param("annualInterestRate", "5")
+                        .param("numberOfMonths", "10")
+                        .param("from", "2")
+                        .param("to", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from").value(2))
+                .andExpect(jsonPath("$.to").value(2))
+                .andExpect(jsonPath("$.installmentPlan.length()").value(1))
+                .andExpect(jsonPath("$.installmentPlan[0].period").value(2));
+    }
+
+    @Test
+    void shouldRejectInvalidInstallmentRange() throws Exception {
+        Mockito.when(installmentScheduleService.getInstallmentPage(Mockito.any(), Mockito.anyInt(), Mockito.any()))
+                .thenThrow(new InvalidInstallmentRangeException(20, 10, "invalid"));
+
+        mockMvc.perform(get("/loans/installments")
+                        .param("amount", "1000")
+                        .param("annualInterestRate", "5")
+                        .param("numberOfMonths", "10")
+                        .param("from", "20")
+                        .param("to", "10"))
+                .andExpect(status().is(422))
+                .andExpect(jsonPath("$.errorCode").value("INVALID_INSTALLMENT_RANGE"));
+    }
+
+    @Test
+    void shouldValidateInstallmentPageLoanParameters() throws Exception {
+        mockMvc.perform(get("/loans/installments")
+                        .param("amount", "50")
+                        .param("annualInterestRate", "5")
+                        .param("numberOfMonths", "10"))
+                .andExpect(status().is(422))
+                .andExpect(jsonPath("$.errors.length()").value(1));
+    }
+
+    // --- Streaming ---
+    @Test
+    void shouldStreamScheduleAsNdjson() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"status\":\"DONE\"}\n{\"period\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(installmentScheduleService).streamSchedule(Mockito.any(), Mockito.any());
+
+        MvcResult result = mockMvc.perform(post("/loans")
+                        .param("stream", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {
+                              "amount": 1000,
+                              "annualInterestRate": 5,
+                              "numberOfMonths": 100000
+                            }
+                            """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"status\":\"DONE\"}\n{\"period\":1}\n"));
+
+        Mockito.verify(installmentScheduleService, Mockito.never()).requireBufferable(Mockito.any());
+        Mockito.verifyNoInteractions(loanService);
+    }
+
+    @Test
+    void shouldStreamScheduleEvenIfOnlyJsonIsAccepted() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"status\":\"DONE\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(installmentScheduleService).streamSchedule(Mockito.any(), Mockito.any());
+
+        MvcResult result = mockMvc.perform(post("/loans")
+                        .param("stream", "true")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {
+                              "amount": 1000,
+                              "annualInterestRate": 5,
+                              "numberOfMonths": 100000
+                            }
+                            """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+
+        Mockito.verify(installmentScheduleService, Mockito.never()).requireBufferable(Mockito.any());
+    }
+
+    @Test
+    void shouldRejectStreamedLoanOutOfRangeBeforeStreaming() throws Exception {
+        Mockito.when(installmentScheduleService.getSummary(Mockito.any()))
+                .thenThrow(new LoanOutOfRangeException(new BigDecimal("1000000000000000")));
+
+        mockMvc.perform(post("/loans")
+                        .param("stream", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {
+                              "amount": 1000000000000000,
+                              "annualInterestRate": 5,
+                              "numberOfMonths": 100000
+                            }
+                            """))
+                .andExpect(status().is(422))
+                .andExpect(jsonPath("$.errorCode").value("LOAN_OUT_OF_RANGE"))
+                .andExpect(jsonPath("$.errors[0].field").value("amount"));
+
+        Mockito.verify(installmentScheduleService, Mockito.never()).streamSchedule(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void shouldRenderTermLimitInValidationMessage() throws Exception {
+        mockMvc.perform(post("/loans")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {
+                              "amount": 1000,
+                              "annualInterestRate": 5,
+                              "numberOfMonths": 100001
+                            }
+                            """))
+                .andExpect(status().is(422))
+                .andExpect(jsonPath("$.errors[0].field").value("numberOfMonths"))
+                .andExpect(jsonPath("$.errors[0].errorMessage").value("Number of months must be at most 100000"));
+    }
+
+    @Test
+    void shouldRequireStreamingForVeryLongSchedules() throws Exception {
+        Mockito.doThrow(new StreamingRequiredException(100000, 1200))
+                .when(installmentScheduleService).requireBufferable(Mockito.any());
+
+        mockMvc.perform(post("/loans")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {
+                              "amount": 1000,
+                              "annualInterestRate": 5,
+                              "numberOfMonths": 100000
+                            }
+                            """))
+                .andExpect(status().is(422))
+                .andExpect(jsonPath("$.errorCode").value("STREAMING_REQUIRED"))
+                .andExpect(jsonPath("$.errors[0].field").value("numberOfMonths"));
+
+        Mockito.verifyNoInteractions(loanService);
+    }
+
+    @Test
+    void shouldAnswerServiceUnavailableWhenCalculationsAreSaturated() throws Exception {
+        Mockito.when(loanService.calculateLoanOrBody(Mockito.any()))
+                .thenThrow(new CalculationCapacityExceededException(Duration.ofSeconds(5), null));
+
+        mockMvc.perform(post("/loans")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(VALID_REQUEST))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.errorCode").value("CALCULATION_CAPACITY_EXCEEDED"));
+    }
+
+    // --- Events ---
+    @Test
+    void shouldStreamLoanEvents() throws Exception {
+        SseEmitter emitter = new SseEmitter();
+        Mockito.when(loanEventService.subscribe(Mockito.any())).thenReturn(emitter);
+
+        MvcResult result = mockMvc.perform(get("/loans/events")
+                        .param("amount", "1000")
+                        .param("annualInterestRate", "5")
+                        .param("numberOfMonths", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        emitter.send(SseEmitter.event().name("done").data("{\"status\":\"DONE\"}"));
+        emitter.complete();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string("event:done\ndata:{\"status\":\"DONE\"}\n\n"));
+
+        Mockito.verify(installmentScheduleService).requireBufferable(Mockito.any());
+    }
+
+    // --- Batch ---
+    @Test
+    void shouldCalculateLoanBatch() throws Exception {
+        LoanCalculationRequest done = new LoanCalculationRequest(
+                BigDecimal.valueOf(1000),
+                BigDecimal.valueOf(5),
+                10
+        );
+        LoanCalculationRequest calculating = new LoanCalculationRequest(
+                BigDecimal.valueOf(2000),
+                BigDecimal.valueOf(5),
+                12
+        );
+
+        Mockito.when(loanBatchService.calculateLoans(Mockito.any()))
+                .thenReturn(new LoanBatchResponse(List.of(
+                        new LoanCalculationResponse(
+                                done,
+                                LoanStatus.DONE,
+                                new SummaryDto(
+                                        BigDecimal.valueOf(102.31),
+                                        BigDecimal.valueOf(1023.06),
+                                        BigDecimal.valueOf(23.06)
+                                ),
+                                List.of()
+                        ),
+                        new LoanStatusResponse(calculating, LoanStatus.CALCULATING)
+                )));
+
+        mockMvc.perform(post("/loans/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {
+                              "loans": [
+                                { "amount": 1000, "annualInterestRate": 5, "numberOfMonths": 10 },
+                                { "amount": 2000, "annualInterestRate": 5, "numberOfMonths": 12 }
+                              ]
+                            }
+                            """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.loans.length()").value(2))
+                .andExpect(jsonPath("$.loans[0].status").value("DONE"))
+                .andExpect(jsonPath("$.loans[0].summary.monthlyPayment").value(102.31))
+                .andExpect(jsonPath("$.loans[1].status").value("CALCULATING"))
+                .andExpect(jsonPath("$.loans[1].loan.amount").value(2000));
+
+        Mockito.verify(installmentScheduleService, Mockito.times(2)).requireBufferable(Mockito.any());
+    }
+
+    @Test
+    void shouldValidateEveryLoanOfBatch() throws Exception {
+        mockMvc.perform(post("/loans/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {
+                              "loans": [
+                                { "amount": 1000, "annualInterestRate": 5, "numberOfMonths": 10 },
+                                { "amount": 50, "annualInterestRate": 5, "numberOfMonths": 1 }
+                              ]
+                            }
+                            """))
+                .andExpect(status().is(422))
+                .andExpect(jsonPath("$.errors.length()").value(2));
+
+        Mockito.verifyNoInteractions(loanBatchService);
+    }
+
+    @Test
+    void shouldRejectEmptyBatch() throws Exception {
+        mockMvc.perform(post("/loans/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{ \"loans\": [] }"))
+                .andExpect(status().is(422));
+
+        Mockito.verifyNoInteractions(loanBatchService);
+    }
+
 }
@@ -0,0 +1,50 @@
+package com.leanpay.loancalculator.dto.request;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class LoanRequestKeyTest {
+
+    @Test
+    void shouldMapNumericallyEqualRequestsToSameKey() {
+        String key = LoanRequestKey.of(new BigDecimal("1000"), new BigDecimal("5"), 12);
+
+        assertEquals(key, LoanRequestKey.of(new BigDecimal("1000.0"), new BigDecimal("5.00"), 12));
+        assertEquals(key, LoanRequestKey.of(new BigDecimal("1000.00"), new BigDecimal("5.000"), 12));
+        assertEquals(key, LoanRequestKey.of(new BigDecimal("1E+3"), new BigDecimal("5"), 12));
+    }
+
+    @Test
+    void shouldDistinguishDifferentTerms() {
+        String key = LoanRequestKey.of(new BigDecimal("1000"), new BigDecimal("5"), 12);
+
+        assertNotEquals(key, LoanRequestKey.of(new BigDecimal("1000.01"), new BigDecimal("5"), 12));
+        assertNotEquals(key, LoanRequestKey.of(new BigDecimal("1000"), new BigDecimal("5.01"), 12));
+        assertNotEquals(key, LoanRequestKey.of(new BigDecimal("1000"), new BigDecimal("5"), 13));
+        // field boundaries are part of the canonical form
+        assertNotEquals(
+                LoanRequestKey.of(new BigDecimal("1"), new BigDecimal("23"), 4),
+                LoanRequestKey.of(new BigDecimal("12"), new BigDecimal("3"), 4));
+    }
+
+    @Test
+    void shouldProduceFixedWidthHexKey() {
+        String key = LoanRequestKey.of(new LoanCalculationRequest(
+                new BigDecimal("25000000"), new BigDecimal("99.9999"), 600));
+
+        assertThat(key).hasSize(LoanRequestKey.LENGTH).matches("[0-9a-f]+");
+    }
+
+    @Test
+    void shouldBuildCanonicalTerms() {
+        assertEquals("1000:5:12",
+                LoanRequestKey.canonicalTerms(new BigDecimal("1000.00"), new BigDecimal("5.0"), 12));
+        assertEquals("1000.5:4.25:360",
+                LoanRequestKey.canonicalTerms(new BigDecimal("1000.50"), new BigDecimal("4.250"), 360));
+    }
+}
@@ -0,0 +1,85 @@
+package com.leanpay.loancalculator.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InstallmentScheduleTest {
+
+    private final InstallmentScheduleConverter converter = new InstallmentScheduleConverter();
+
+    @Test
+    void shouldRoundTripThroughDatabaseColumn() {
+        List<Installment> plan = plan(360);
+
+        InstallmentSchedule schedule = InstallmentSchedule.from(plan).orElseThrow();
+        byte[] column = converter.convertToDatabaseColumn(schedule);
+        List<Installment> restored = converter.convertToEntityAttribute(column).toInstallments();
+
+        assertThat(column.length).isLessThan(360 * 10);
+        assertThat(restored).hasSize(360);
+        for (int i = 0; i < plan.size(); i++) {
+            assertThat(restored.get(i).getPeriod()).isEqualTo(plan.get(i).getPeriod());
+            assertThat(restored.get(i).getPayment()).isEqualTo(plan.get(i).getPayment());
+            assertThat(restored.get(i).getPrincipal()).isEqualTo(plan.get(i).getPrincipal());
+            assertThat(restored.get(i).getInterest()).isEqualTo(plan.get(i).getInterest());
+            assertThat(restored.get(i).getBalance()).isEqualTo(plan.get(i).getBalance());
+        }
+    }
+
+    @Test
+    void shouldRejectPlansThatAreNotRepresentable() {
+        List<Installment> gap = plan(3);
+        gap.remove(1);
+        List<Installment> subCent = plan(1);
+        subCent.getFirst().setInterest(new BigDecimal("0.001"));
+        List<Installment> missing = plan(1);
+        missing.getFirst().setBalance(null);
+
+        assertThat(InstallmentSchedule.from(gap)).isEmpty();
+        assertThat(InstallmentSchedule.from(subCent)).isEmpty();
+        assertThat(InstallmentSchedule.from(missing)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectTruncatedOrUnknownColumn() {
+        byte[] column = InstallmentSchedule.from(plan(12)).orElseThrow().toBytes();
+        byte[] unknownVersion = column.clone();
+        unknownVersion[0] = 9;
+
+        assertThatThrownBy(() -> InstallmentSchedule.fromBytes(Arrays.copyOf(column, column.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> InstallmentSchedule.fromBytes(unknownVersion))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldKeepNullColumnNull() {
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+
+    private static List<Installment> plan(int months) {
+        List<Installment> plan = new ArrayList<>(months);
+        long balance = 20_000_000L;
+        for (int period = 1; period <= months; period++) {
+            long interest = balance * 5 / 1200;
+            long principal = Math.min(balance, 107_364L - interest);
+            balance -= principal;
+            plan.add(Installment.builder()
+                    .period(period)
+                    .payment(BigDecimal.valueOf(principal + interest, 2))
+                    .principal(BigDecimal.valueOf(principal, 2))
+                    .interest(BigDecimal.valueOf(interest, 2))
+                    .balance(BigDecimal.valueOf(balance, 2))
+                    .build());
+        }
+        return plan;
+    }
+}
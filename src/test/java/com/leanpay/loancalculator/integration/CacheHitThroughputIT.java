@@ -0,0 +1,169 @@
+package com.leanpay.loancalculator.integration;
+
+import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.cache.ResponseCache;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.dto.response.LoanStatus;
+import com.leanpay.loancalculator.dto.response.SummaryDto;
+import com.leanpay.loancalculator.service.LoanService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cache hits served by many threads against a single-connection pool, from the L1 and, with the L1
+ * cleared before every lookup, from Redis: hits must not borrow a connection, so their throughput is
+ * not bounded by the pool size. Throughput is logged, not asserted, it depends on the machine running Docker.
+ */
+@TestPropertySource(properties = "spring.datasource.hikari.maximum-pool-size=1")
+public class CacheHitThroughputIT extends AbstractIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheHitThroughputIT.class);
+
+    private static final int THREADS = 32;
+    private static final int KEYS = 64;
+    private static final long DURATION_MILLIS = 2_000;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanCacheFacade cacheFacade;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void shouldServeLocalCacheHitsWithoutBorrowingConnections() throws Exception {
+        List<LoanCalculationRequest> requests = cacheRequests();
+
+        double throughput = measureHits(i -> requests.get(i % KEYS));
+
+        log.info("L1 cache hits with {} threads and a 1-connection pool: {} requests/s", THREADS, format(throughput));
+    }
+
+    @Test
+    void shouldServeRedisCacheHitsWithoutBorrowingConnections() throws Exception {
+        List<LoanCalculationRequest> requests = cacheRequests();
+        long redisHitsBefore = cacheFacade.redisStats().hitCount(ResponseCache.FULL_RESPONSE);
+
+        // every thread has its own keys, so no other thread puts them back into the L1 before the lookup
+        LongAdder lookups = new LongAdder();
+        double throughput = measureHits(i -> {
+            LoanCalculationRequest request = requests.get(i % KEYS);
+            clearLocalCaches(request);
+            lookups.increment();
+            return request;
+        });
+
+        log.info("Redis cache hits with {} threads and a 1-connection pool: {} requests/s", THREADS, format(throughput));
+        assertEquals(lookups.sum(), cacheFacade.redisStats().hitCount(ResponseCache.FULL_RESPONSE) - redisHitsBefore);
+    }
+
+    private List<LoanCalculationRequest> cacheRequests() {
+        List<LoanCalculationRequest> requests = new ArrayList<>(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            LoanCalculationRequest request = request(i);
+            requests.add(request);
+            cacheFacade.putFullResponse(LoanRequestKey.of(request), response(request));
+        }
+        return requests;
+    }
+
+    /**
+     * Runs {@link #THREADS} workers looking up {@code nextRequest.apply(i)} for {@code i = worker, worker + THREADS, ...}
+     * and asserts that the pool never had an active connection or a waiting thread.
+     *
+     * @return lookups per second
+     */
+    private double measureHits(IntFunction<LoanCalculationRequest> nextRequest) throws Exception {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        AtomicInteger maxActive = new AtomicInteger();
+        AtomicInteger maxAwaiting = new AtomicInteger();
+        LongAdder hits = new LongAdder();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = offset; System.nanoTime() < deadline; i += THREADS) {
+                        assertInstanceOf(LoanCalculationResponse.class, loanService.calculateLoan(nextRequest.apply(i)));
+                        hits.increment();
+                    }
+                    return null;
+                }));
+            }
+            Future<?> sampler = executor.submit(() -> {
+                start.await();
+                while (System.nanoTime() < deadline) {
+                    maxActive.accumulateAndGet(pool.getActiveConnections(), Math::max);
+                    maxAwaiting.accumulateAndGet(pool.getThreadsAwaitingConnection(), Math::max);
+                    Thread.sleep(1);
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(DURATION_MILLIS * 5, TimeUnit.MILLISECONDS);
+            }
+            sampler.get(DURATION_MILLIS * 5, TimeUnit.MILLISECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(hits.sum() > 0);
+        assertEquals(0, maxActive.get());
+        assertEquals(0, maxAwaiting.get());
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(0, pool.getThreadsAwaitingConnection());
+        return hits.sum() / (DURATION_MILLIS / 1e3);
+    }
+
+    // as applied for an eviction published by another instance
+    private void clearLocalCaches(LoanCalculationRequest request) {
+        cacheFacade.onInvalidation("other-instance|" + LoanRequestKey.of(request));
+    }
+
+    private static String format(double perSecond) {
+        return String.format("%.0f", perSecond);
+    }
+
+    private static LoanCalculationRequest request(int i) {
+        return new LoanCalculationRequest(BigDecimal.valueOf(5_000 + i), BigDecimal.valueOf(5), 12);
+    }
+
+    private static LoanCalculationResponse response(LoanCalculationRequest request) {
+        return new LoanCalculationResponse(
+                request,
+                LoanStatus.DONE,
+                new SummaryDto(BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE),
+                List.of());
+    }
+}
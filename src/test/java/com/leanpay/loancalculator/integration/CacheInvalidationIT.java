@@ -0,0 +1,141 @@
+package com.leanpay.loancalculator.integration;
+
+import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.cache.LocalResponseCache;
+import com.leanpay.loancalculator.cache.ResponseBodyCache;
+import com.leanpay.loancalculator.config.LocalCacheProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.dto.response.LoanStatus;
+import com.leanpay.loancalculator.dto.response.SummaryDto;
+import com.leanpay.loancalculator.metrics.LoanMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import tools.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two instances sharing the Testcontainers Redis: the application context and a second
+ * {@link LoanCacheFacade} with its own L1, subscribed to the invalidation channel like
+ * {@code CacheConfig#cacheInvalidationListenerContainer} does.
+ */
+public class CacheInvalidationIT extends AbstractIntegrationTest {
+
+    private static final long PROPAGATION_TIMEOUT_MILLIS = 5_000;
+
+    private static final LoanCalculationRequest REQUEST =
+            new LoanCalculationRequest(BigDecimal.valueOf(1000), BigDecimal.valueOf(5), 12);
+
+    private static final String KEY = LoanRequestKey.of(REQUEST);
+
+    private static final LoanResponse FULL_RESPONSE = new LoanCalculationResponse(
+            REQUEST,
+            LoanStatus.DONE,
+            new SummaryDto(BigDecimal.valueOf(85.61), BigDecimal.valueOf(1027.29), BigDecimal.valueOf(27.29)),
+            List.of());
+
+    @Autowired
+    private LoanCacheFacade cacheFacade;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RedisTemplate<String, Object> cacheRedisTemplate;
+
+    @Autowired
+    private RedisSerializer<Object> cacheValueSerializer;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    @Qualifier("bodyRedisTemplate")
+    private RedisTemplate<String, byte[]> bodyRedisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private LocalCacheProperties localCacheProperties;
+
+    private LocalResponseCache otherLocalCache;
+    private ResponseBodyCache otherBodyCache;
+    private LoanCacheFacade otherInstance;
+    private RedisMessageListenerContainer otherListener;
+
+    @BeforeEach
+    void startOtherInstance() throws Exception {
+        stringRedisTemplate.getConnectionFactory()
+                .getConnection()
+                .serverCommands()
+                .flushAll();
+
+        otherLocalCache = new LocalResponseCache(localCacheProperties);
+        otherBodyCache = new ResponseBodyCache(bodyRedisTemplate, objectMapper, localCacheProperties);
+        otherInstance = new LoanCacheFacade(cacheManager, cacheRedisTemplate, cacheValueSerializer,
+                stringRedisTemplate, otherLocalCache, otherBodyCache, new LoanMetrics(new SimpleMeterRegistry()));
+
+        otherListener = new RedisMessageListenerContainer();
+        otherListener.setConnectionFactory(stringRedisTemplate.getConnectionFactory());
+        otherListener.addMessageListener(
+                (message, pattern) -> otherInstance.onInvalidation(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(LoanCacheFacade.INVALIDATION_CHANNEL));
+        otherListener.afterPropertiesSet();
+        otherListener.start();
+    }
+
+    @AfterEach
+    void stopOtherInstance() throws Exception {
+        otherListener.destroy();
+    }
+
+    @Test
+    void shouldClearLocalCacheOfOtherInstanceOnEviction() throws InterruptedException {
+        // given: the other instance served the loan (body and response) and kept both in its L1
+        cacheFacade.putFullResponse(KEY, FULL_RESPONSE);
+        assertTrue(otherInstance.getResponseOrBodyFromCache(KEY).isPresent());
+        assertTrue(otherInstance.getResponseFromCache(KEY).isPresent());
+        assertTrue(otherBodyCache.getLocal(KEY).isPresent());
+        assertTrue(otherLocalCache.get(KEY).isPresent());
+
+        // when
+        cacheFacade.evictFullResponse(KEY);
+
+        // then
+        awaitLocalEviction();
+        assertTrue(otherLocalCache.get(KEY).isEmpty());
+        assertTrue(otherBodyCache.getLocal(KEY).isEmpty());
+        assertTrue(otherInstance.getResponseOrBodyFromCache(KEY).isEmpty());
+    }
+
+    private void awaitLocalEviction() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PROPAGATION_TIMEOUT_MILLIS);
+        while (otherBodyCache.getLocal(KEY).isPresent() || otherLocalCache.get(KEY).isPresent()) {
+            if (System.nanoTime() > deadline) {
+                fail("Eviction was not propagated within " + Duration.ofMillis(PROPAGATION_TIMEOUT_MILLIS));
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
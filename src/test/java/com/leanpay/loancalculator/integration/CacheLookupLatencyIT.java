@@ -0,0 +1,140 @@
+package com.leanpay.loancalculator.integration;
+
+import com.leanpay.loancalculator.cache.CacheConfig;
+import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.dto.response.LoanStatus;
+import com.leanpay.loancalculator.dto.response.LoanStatusResponse;
+import com.leanpay.loancalculator.dto.response.SummaryDto;
+import com.leanpay.loancalculator.service.LoanService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cache lookup of {@code POST /loans} measured at the service entry point against the Testcontainers
+ * Redis: {@link LoanService#calculateLoanOrBody} (body, full or status response in one scripted
+ * round trip) vs the separate GET of the body followed by the scripted full/status lookup it replaced.
+ * Latencies are logged, not asserted, they depend on the machine running Docker.
+ */
+public class CacheLookupLatencyIT extends AbstractIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheLookupLatencyIT.class);
+
+    private static final int LOOKUPS = 2_000;
+    private static final int WARMUP_LOOKUPS = 500;
+
+    private static final LoanCalculationRequest REQUEST =
+            new LoanCalculationRequest(BigDecimal.valueOf(1000), BigDecimal.valueOf(5), 12);
+
+    private static final String KEY = LoanRequestKey.of(REQUEST);
+
+    private static final LoanResponse STATUS_RESPONSE = new LoanStatusResponse(REQUEST, LoanStatus.CALCULATING);
+
+    private static final LoanResponse FULL_RESPONSE = new LoanCalculationResponse(
+            REQUEST,
+            LoanStatus.DONE,
+            new SummaryDto(BigDecimal.valueOf(85.61), BigDecimal.valueOf(1027.29), BigDecimal.valueOf(27.29)),
+            List.of());
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanCacheFacade cacheFacade;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @BeforeEach
+    void clearRedis() {
+        stringRedisTemplate.getConnectionFactory()
+                .getConnection()
+                .serverCommands()
+                .flushAll();
+        clearLocalCaches();
+    }
+
+    @Test
+    void shouldReadStatusResponseInOneRoundTrip() {
+        cacheFacade.putStatusResponse(KEY, STATUS_RESPONSE);
+
+        double sequential = measure(this::sequentialLookup);
+        double scripted = measure(() -> Optional.of(loanService.calculateLoanOrBody(REQUEST)));
+
+        log.info("Status response lookup: sequential {} us, scripted {} us", format(sequential), format(scripted));
+        assertInstanceOf(LoanStatusResponse.class, loanService.calculateLoanOrBody(REQUEST).response());
+    }
+
+    @Test
+    void shouldReadBodyAndRemoveStaleStatusInOneRoundTrip() {
+        cacheFacade.putFullResponse(KEY, FULL_RESPONSE);
+
+        double sequential = measure(() -> {
+            cacheFacade.putStatusResponse(KEY, STATUS_RESPONSE);
+            clearLocalCaches();
+            return sequentialLookup();
+        });
+        double scripted = measure(() -> {
+            cacheFacade.putStatusResponse(KEY, STATUS_RESPONSE);
+            // the L1 would answer without going to Redis
+            clearLocalCaches();
+            return Optional.of(loanService.calculateLoanOrBody(REQUEST));
+        });
+
+        log.info("Calculated loan lookup with stale status (incl. status SET and L1 eviction): sequential {} us, scripted {} us",
+                format(sequential), format(scripted));
+        assertFalse(Boolean.TRUE.equals(stringRedisTemplate.hasKey(
+                CacheConfig.redisKey(CacheConfig.STATUS_RESPONSE_CACHE, KEY))));
+        clearLocalCaches();
+        assertNotNull(loanService.calculateLoanOrBody(REQUEST).body());
+    }
+
+    @Test
+    void shouldReturnEmptyWhenNothingIsCached() {
+        assertTrue(cacheFacade.getResponseOrBodyFromCache(KEY).isEmpty());
+    }
+
+    // POST /loans before: GET body, then on a miss the scripted full/status lookup
+    private Optional<?> sequentialLookup() {
+        String body = stringRedisTemplate.opsForValue().get("fullResponseGzip::" + KEY);
+        if (body != null) {
+            return Optional.of(body);
+        }
+        return cacheFacade.getResponseFromCache(KEY);
+    }
+
+    // as applied for an eviction published by another instance
+    private void clearLocalCaches() {
+        cacheFacade.onInvalidation("other-instance|" + KEY);
+    }
+
+    // average microseconds per lookup
+    private static double measure(Supplier<? extends Optional<?>> lookup) {
+        for (int i = 0; i < WARMUP_LOOKUPS; i++) {
+            assertTrue(lookup.get().isPresent());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            assertTrue(lookup.get().isPresent());
+        }
+        return (System.nanoTime() - start) / 1e3 / LOOKUPS;
+    }
+
+    private static String format(double micros) {
+        return String.format("%.1f", micros);
+    }
+}
@@ -0,0 +1,110 @@
+package com.leanpay.loancalculator.integration;
+
+import com.leanpay.loancalculator.cache.CalculationLeaseManager;
+import com.leanpay.loancalculator.cache.CalculationLeaseManager.Lease;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CalculationLeaseIT extends AbstractIntegrationTest {
+
+    private static final String KEY = "1000:5:12";
+
+    private static final String LEASE_KEY = "loanLease::" + KEY;
+
+    @Autowired
+    private CalculationLeaseManager leaseManager;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+
+    @BeforeEach
+    void clearRedis() {
+        stringRedisTemplate.getConnectionFactory()
+                .getConnection()
+                .serverCommands()
+                .flushAll();
+    }
+
+    @Test
+    void shouldGrantLeaseToSingleOwner() {
+        Optional<Lease> first = leaseManager.tryAcquire(KEY);
+        Optional<Lease> second = leaseManager.tryAcquire(KEY);
+
+        assertTrue(first.isPresent());
+        assertTrue(second.isEmpty());
+        assertEquals(first.get().token(), stringRedisTemplate.opsForValue().get(LEASE_KEY));
+
+        Long ttl = stringRedisTemplate.getExpire(LEASE_KEY, TimeUnit.SECONDS);
+        assertNotNull(ttl);
+        assertTrue(ttl > 0);
+        assertTrue(ttl <= 30);
+
+        leaseManager.release(first.get());
+    }
+
+    @Test
+    void shouldAcquireLeasesOfBatchInOnePipeline() {
+        String otherKey = "2000:5:12";
+        Lease held = leaseManager.tryAcquire(KEY).orElseThrow();
+
+        Map<String, Lease> leases = leaseManager.tryAcquireAll(List.of(KEY, otherKey));
+
+        assertEquals(Set.of(otherKey), leases.keySet());
+        assertEquals(leases.get(otherKey).token(), stringRedisTemplate.opsForValue().get("loanLease::" + otherKey));
+        assertEquals(held.token(), stringRedisTemplate.opsForValue().get(LEASE_KEY));
+
+        leaseManager.release(held);
+        leaseManager.release(leases.get(otherKey));
+    }
+
+    @Test
+    void shouldAllowNewOwnerAfterRelease() {
+        Lease lease = leaseManager.tryAcquire(KEY).orElseThrow();
+
+        leaseManager.release(lease);
+
+        assertFalse(stringRedisTemplate.hasKey(LEASE_KEY));
+        Optional<Lease> next = leaseManager.tryAcquire(KEY);
+        assertTrue(next.isPresent());
+
+        leaseManager.release(next.get());
+    }
+
+    @Test
+    void shouldExtendLeaseOnRenew() {
+        Lease lease = leaseManager.tryAcquire(KEY).orElseThrow();
+        stringRedisTemplate.expire(LEASE_KEY, Duration.ofSeconds(2));
+
+        assertTrue(leaseManager.renew(lease));
+
+        Long ttl = stringRedisTemplate.getExpire(LEASE_KEY, TimeUnit.SECONDS);
+        assertNotNull(ttl);
+        assertTrue(ttl > 2);
+
+        leaseManager.release(lease);
+    }
+
+    @Test
+    void shouldNotRenewOrReleaseLeaseTakenOverByAnotherOwner() {
+        Lease expired = leaseManager.tryAcquire(KEY).orElseThrow();
+        // simulate expiry of our lease and a takeover by another instance
+        stringRedisTemplate.opsForValue().set(LEASE_KEY, "other-owner", Duration.ofSeconds(30));
+
+        assertFalse(leaseManager.renew(expired));
+        leaseManager.release(expired);
+
+        assertEquals("other-owner", stringRedisTemplate.opsForValue().get(LEASE_KEY));
+    }
+}
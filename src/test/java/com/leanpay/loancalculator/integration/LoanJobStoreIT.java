@@ -0,0 +1,125 @@
+package com.leanpay.loancalculator.integration;
+
+import com.leanpay.loancalculator.cache.LoanJobStore;
+import com.leanpay.loancalculator.dto.response.LoanJobResponse;
+import com.leanpay.loancalculator.dto.response.LoanJobState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoanJobStoreIT extends AbstractIntegrationTest {
+
+    private static final String JOB_ID = "0123456789abcdef0123456789abcdef";
+
+    private static final String JOB_KEY = LoanJobStore.JOB_PREFIX + "::" + JOB_ID;
+
+    @Autowired
+    private LoanJobStore jobStore;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+
+    @BeforeEach
+    void clearRedis() {
+        stringRedisTemplate.getConnectionFactory()
+                .getConnection()
+                .serverCommands()
+                .flushAll();
+    }
+
+    @Test
+    void shouldKeepEnqueueTimeOfRunningJob() {
+        LoanJobResponse first = jobStore.started(JOB_ID);
+        LoanJobResponse second = jobStore.started(JOB_ID);
+
+        assertEquals(LoanJobState.CALCULATING, first.state());
+        assertEquals(first.enqueuedAt().toEpochMilli(), second.enqueuedAt().toEpochMilli());
+        assertNotNull(first.estimatedCompletionAt());
+
+        Long ttl = stringRedisTemplate.getExpire(JOB_KEY, TimeUnit.SECONDS);
+        assertNotNull(ttl);
+        assertTrue(ttl > 0);
+    }
+
+    @Test
+    void shouldShareEnqueueTimeBetweenConcurrentStarts() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<LoanJobResponse>> starts = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                starts.add(executor.submit(() -> {
+                    start.await();
+                    return jobStore.started(JOB_ID);
+                }));
+            }
+            start.countDown();
+            List<LoanJobResponse> responses = new ArrayList<>();
+            for (Future<LoanJobResponse> started : starts) {
+                responses.add(started.get(10, TimeUnit.SECONDS));
+            }
+
+            // every caller sees the record written by the first start
+            LoanJobResponse stored = jobStore.find(JOB_ID).orElseThrow();
+            for (LoanJobResponse response : responses) {
+                assertEquals(stored.enqueuedAt(), response.enqueuedAt());
+                assertEquals(stored.estimatedCompletionAt(), response.estimatedCompletionAt());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldMarkJobDone() {
+        LoanJobResponse started = jobStore.started(JOB_ID);
+
+        jobStore.completed(JOB_ID, Duration.ofSeconds(2));
+
+        LoanJobResponse done = jobStore.find(JOB_ID).orElseThrow();
+        assertEquals(LoanJobState.DONE, done.state());
+        assertEquals(started.enqueuedAt().toEpochMilli(), done.enqueuedAt().toEpochMilli());
+        assertNotNull(done.completedAt());
+    }
+
+    @Test
+    void shouldRestartFailedJob() {
+        jobStore.started(JOB_ID);
+        jobStore.failed(JOB_ID);
+
+        LoanJobResponse restarted = jobStore.started(JOB_ID);
+
+        assertEquals(LoanJobState.CALCULATING, restarted.state());
+        LoanJobResponse stored = jobStore.find(JOB_ID).orElseThrow();
+        assertEquals(LoanJobState.CALCULATING, stored.state());
+        assertNull(stored.completedAt());
+    }
+
+    @Test
+    void shouldNotRecordCalculationsOutsideTheJobApi() {
+        jobStore.completed(JOB_ID, Duration.ofSeconds(2));
+        jobStore.failed(JOB_ID);
+
+        assertTrue(jobStore.find(JOB_ID).isEmpty());
+        assertFalse(Boolean.TRUE.equals(stringRedisTemplate.hasKey(JOB_KEY)));
+    }
+
+    @Test
+    void shouldNotFindUnknownJob() {
+        assertTrue(jobStore.find(JOB_ID).isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+package com.leanpay.loancalculator.integration;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.entity.Loan;
+import com.leanpay.loancalculator.repository.LoanBulkWriter;
+import com.leanpay.loancalculator.repository.LoanRepository;
+import com.leanpay.loancalculator.repository.PersistedLoanView;
+import com.leanpay.loancalculator.service.AmortizationCalculator;
+import com.leanpay.loancalculator.service.AmortizationEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loans persisted per second against the Testcontainers PostgreSQL, JPA {@code save} vs {@link LoanBulkWriter}.
+ * Numbers are logged, not asserted, they depend on the machine running Docker.
+ */
+public class LoanPersistenceThroughputIT extends AbstractIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanPersistenceThroughputIT.class);
+
+    private static final int LOANS = 200;
+    private static final int WARMUP_LOANS = 20;
+    private static final int MONTHS = 360;
+
+    private final AmortizationCalculator calculator =
+            new AmortizationCalculator(CalculationProperties.defaults()
+                    .withSimulatedDelay(Duration.ZERO)
+                    // builds installment rows
+                    .withEngine(AmortizationEngine.BIG_DECIMAL));
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private LoanBulkWriter loanWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearDatabase() {
+        jdbcTemplate.execute("TRUNCATE installment, loan");
+    }
+
+    @Test
+    void shouldPersistLoansWithBulkWriter() {
+        double jpa = measure(loans(1), loanRepository::save);
+        double bulk = measure(loans(1 + LOANS + WARMUP_LOANS), loanWriter::insert);
+
+        log.info("Persisted {}-month loans: JPA save {} loans/s, bulk writer {} loans/s",
+                MONTHS, String.format("%.1f", jpa), String.format("%.1f", bulk));
+
+        assertEquals(2L * (LOANS + WARMUP_LOANS), loanRepository.count());
+        assertEquals(2L * (LOANS + WARMUP_LOANS) * MONTHS,
+                jdbcTemplate.queryForObject("SELECT count(*) FROM installment", Long.class));
+    }
+
+    @Test
+    void shouldSkipLoanThatAlreadyExists() {
+        Loan first = calculator.calculateAndBuildLoan(request(1));
+        Loan duplicate = calculator.calculateAndBuildLoan(request(1));
+
+        assertTrue(loanWriter.insert(first));
+        assertFalse(loanWriter.insert(duplicate));
+
+        assertNotNull(first.getId());
+        assertNull(duplicate.getId());
+        PersistedLoanView stored = loanRepository.findViewByRequestKey(first.getRequestKey()).orElseThrow();
+        assertEquals(first.getId(), stored.id());
+        assertEquals(MONTHS, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM installment WHERE loan_id = ?", Long.class, stored.id()));
+        assertEquals(1L, loanRepository.count());
+    }
+
+    private double measure(List<Loan> loans, Consumer<Loan> persist) {
+        loans.subList(0, WARMUP_LOANS).forEach(persist);
+
+        List<Loan> measured = loans.subList(WARMUP_LOANS, loans.size());
+        long start = System.nanoTime();
+        measured.forEach(persist);
+        long elapsed = System.nanoTime() - start;
+
+        return measured.size() / (elapsed / 1e9);
+    }
+
+    private List<Loan> loans(int firstAmount) {
+        List<Loan> loans = new ArrayList<>(WARMUP_LOANS + LOANS);
+        for (int i = 0; i < WARMUP_LOANS + LOANS; i++) {
+            loans.add(calculator.calculateAndBuildLoan(request(firstAmount + i)));
+        }
+        return loans;
+    }
+
+    private static LoanCalculationRequest request(int amount) {
+        return new LoanCalculationRequest(BigDecimal.valueOf(10_000 + amount), BigDecimal.valueOf(5), MONTHS);
+    }
+}
@@ -0,0 +1,108 @@
+package com.leanpay.loancalculator.integration;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.InstallmentDto;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.entity.Installment;
+import com.leanpay.loancalculator.entity.Loan;
+import com.leanpay.loancalculator.repository.LoanBulkWriter;
+import com.leanpay.loancalculator.service.AmortizationCalculator;
+import com.leanpay.loancalculator.service.AmortizationEngine;
+import com.leanpay.loancalculator.service.PersistedLoanReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistedLoanReaderIT extends AbstractIntegrationTest {
+
+    private static final LoanCalculationRequest REQUEST =
+            new LoanCalculationRequest(BigDecimal.valueOf(1000), BigDecimal.valueOf(5), 24);
+
+    private final AmortizationCalculator calculator =
+            new AmortizationCalculator(CalculationProperties.defaults()
+                    .withSimulatedDelay(Duration.ZERO)
+                    // builds installment rows
+                    .withEngine(AmortizationEngine.BIG_DECIMAL));
+
+    @Autowired
+    private PersistedLoanReader reader;
+
+    @Autowired
+    private LoanBulkWriter loanWriter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearDatabase() {
+        jdbcTemplate.execute("TRUNCATE installment, loan");
+    }
+
+    @Test
+    void shouldReadLoanWithInstallmentRowsOrderedByPeriod() {
+        Loan loan = calculator.calculateAndBuildLoan(REQUEST);
+        List<Integer> periods = loan.getInstallments().stream().map(Installment::getPeriod).toList();
+        loanWriter.insert(loan);
+
+        LoanCalculationResponse response =
+                assertInstanceOf(LoanCalculationResponse.class, reader.findResponse(loan.getRequestKey()).orElseThrow());
+
+        assertEquals(periods, response.installmentPlan().stream().map(InstallmentDto::period).toList());
+        assertEquals(0, loan.getMonthlyPayment().compareTo(response.summary().monthlyPayment()));
+        assertEquals(24, response.loan().numberOfMonths());
+    }
+
+    @Test
+    void shouldReadLoanWithColumnarSchedule() {
+        Loan rows = calculator.calculateAndBuildLoan(REQUEST);
+        Loan columnar = calculator.calculateAndBuildLoan(REQUEST);
+        assertTrue(columnar.moveInstallmentsToSchedule());
+        loanWriter.insert(columnar);
+
+        LoanCalculationResponse response =
+                assertInstanceOf(LoanCalculationResponse.class, reader.findResponse(columnar.getRequestKey()).orElseThrow());
+
+        assertEquals(24, response.installmentPlan().size());
+        assertEquals(0, rows.getInstallments().getLast().getBalance()
+                .compareTo(response.installmentPlan().getLast().balance()));
+    }
+
+    @Test
+    void shouldReadSeveralLoansWithTwoQueries() {
+        Loan rows = calculator.calculateAndBuildLoan(REQUEST);
+        Loan columnar = calculator.calculateAndBuildLoan(
+                new LoanCalculationRequest(BigDecimal.valueOf(2000), BigDecimal.valueOf(5), 12));
+        assertTrue(columnar.moveInstallmentsToSchedule());
+        loanWriter.insert(rows);
+        loanWriter.insert(columnar);
+
+        Map<String, ?> responses = reader.findResponses(List.of(rows.getRequestKey(), columnar.getRequestKey(), "1:1:1"));
+
+        assertEquals(2, responses.size());
+        assertEquals(24, ((LoanCalculationResponse) responses.get(rows.getRequestKey())).installmentPlan().size());
+        assertEquals(12, ((LoanCalculationResponse) responses.get(columnar.getRequestKey())).installmentPlan().size());
+    }
+
+    @Test
+    void shouldCheckExistenceWithoutReadingThePlan() {
+        Loan loan = calculator.calculateAndBuildLoan(REQUEST);
+        loanWriter.insert(loan);
+
+        assertTrue(reader.exists(loan.getRequestKey()));
+        assertFalse(reader.exists("1:1:1"));
+    }
+
+    @Test
+    void shouldReturnEmptyForUnknownLoan() {
+        assertTrue(reader.findResponse("1:1:1").isEmpty());
+    }
+}
@@ -2,17 +2,19 @@ package com.leanpay.loancalculator.integration;
 
 import com.leanpay.loancalculator.cache.CacheConfig;
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
 import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
 import com.leanpay.loancalculator.dto.response.LoanStatus;
+import com.leanpay.loancalculator.dto.response.LoanStatusResponse;
 import com.leanpay.loancalculator.service.LoanService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import tools.jackson.databind.JsonNode;
-import tools.jackson.databind.ObjectMapper;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -28,7 +30,7 @@ public class RedisCacheIT extends AbstractIntegrationTest{
                     12
             );
 
-    private static final String KEY = "1000:5:12";
+    private static final String KEY = LoanRequestKey.of(REQUEST);
 
     private static final String STATUS_RESPONSE_KEY =
             CacheConfig.STATUS_RESPONSE_CACHE + "::" + KEY;
@@ -40,6 +42,9 @@ public class RedisCacheIT extends AbstractIntegrationTest{
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
 
+    @Autowired
+    private RedisTemplate<String, Object> cacheRedisTemplate;
+
     @Autowired
     private LoanService loanService;
 
@@ -77,19 +82,12 @@ public class RedisCacheIT extends AbstractIntegrationTest{
         assertTrue(keys.contains(STATUS_RESPONSE_KEY));
 
 
-        String json = stringRedisTemplate.opsForValue().get(STATUS_RESPONSE_KEY);
-        assertNotNull(json);
-
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode root = mapper.readTree(json);
-
-        JsonNode loan = root.get("loan");
-
-        assertEquals("CALCULATING", root.get("status").asString());
-        assertEquals(12, loan.get("numberOfMonths").asInt());
+        Object cached = cacheRedisTemplate.opsForValue().get(STATUS_RESPONSE_KEY);
+        LoanStatusResponse statusResponse = assertInstanceOf(LoanStatusResponse.class, cached);
 
-        JsonNode amountNode = loan.get("amount");
-        assertEquals(1000, amountNode.get(1).asInt());
+        assertEquals(LoanStatus.CALCULATING, statusResponse.status());
+        assertEquals(12, statusResponse.loan().numberOfMonths());
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(statusResponse.loan().amount()));
     }
 
     @Test
@@ -102,8 +100,8 @@ public class RedisCacheIT extends AbstractIntegrationTest{
         assertEquals(LoanStatus.DONE, fullResponse.status());
 
         // assert key exists
-        String json = stringRedisTemplate.opsForValue().get(FULL_RESPONSE_KEY);
-        assertNotNull(json);
+        Object cached = cacheRedisTemplate.opsForValue().get(FULL_RESPONSE_KEY);
+        assertNotNull(cached);
 
         // assert status cache evict
         Set<String> keys = stringRedisTemplate.keys("*");
@@ -117,19 +115,25 @@ public class RedisCacheIT extends AbstractIntegrationTest{
         assertTrue(ttl <= 10);
 
         // assert FullResponse correct
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode root = mapper.readTree(json);
+        LoanCalculationResponse cachedResponse = assertInstanceOf(LoanCalculationResponse.class, cached);
 
-        JsonNode loan = root.get("loan");
+        assertEquals(LoanStatus.DONE, cachedResponse.status());
+        assertEquals(12, cachedResponse.loan().numberOfMonths());
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(cachedResponse.loan().amount()));
+        assertEquals(12, cachedResponse.installmentPlan().size());
+    }
 
-        assertEquals("DONE", root.get("status").asString());
-        assertEquals(12, loan.get("numberOfMonths").asInt());
+    @Test
+    void shouldStoreResponsesInBinaryFormat() {
+        loanService.calculateLoan(REQUEST);
 
-        JsonNode amountNode = loan.get("amount");
-        assertEquals(1000, amountNode.get(1).asInt());
+        byte[] raw = stringRedisTemplate.getConnectionFactory()
+                .getConnection()
+                .stringCommands()
+                .get(STATUS_RESPONSE_KEY.getBytes(StandardCharsets.UTF_8));
 
-        JsonNode installmentPlan = root.get("installmentPlan").get(1);
-        assertEquals(12, installmentPlan.size());
+        assertNotNull(raw);
+        assertEquals(1, raw[0]);
     }
 
     @Test
@@ -49,4 +49,28 @@ class LoanCalculationResponseMapperTest {
         assertThat(response.installmentPlan()).hasSize(1);
         assertThat(response.installmentPlan().getFirst().period()).isEqualTo(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldMapColumnarScheduleToInstallmentPlan() {
+        Loan loan = Loan.builder()
+                .amount(new BigDecimal("1000"))
+                .annualInterestRate(new BigDecimal("5"))
+                .numberOfMonths(1)
+                .build();
+        loan.addInstallment(Installment.builder()
+                .period(1)
+                .payment(new BigDecimal("1004.17"))
+                .principal(new BigDecimal("1000.00"))
+                .interest(new BigDecimal("4.17"))
+                .balance(new BigDecimal("0.00"))
+                .build());
+        assertThat(loan.moveInstallmentsToSchedule()).isTrue();
+
+        LoanCalculationResponse response = (LoanCalculationResponse) mapper.toResponse(loan);
+
+        assertThat(loan.getInstallments()).isEmpty();
+        assertThat(response.installmentPlan()).hasSize(1);
+        assertThat(response.installmentPlan().getFirst().payment()).isEqualByComparingTo("1004.17");
+        assertThat(response.installmentPlan().getFirst().balance()).isEqualByComparingTo("0.00");
+    }
+}
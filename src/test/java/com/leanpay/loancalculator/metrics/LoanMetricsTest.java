@@ -0,0 +1,95 @@
+package com.leanpay.loancalculator.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanMetricsTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    LoanMetrics metrics = new LoanMetrics(registry);
+
+    @Test
+    void shouldMapTermsToBuckets() {
+        assertEquals(TermBucket.UP_TO_12, TermBucket.of(1));
+        assertEquals(TermBucket.UP_TO_12, TermBucket.of(12));
+        assertEquals(TermBucket.UP_TO_60, TermBucket.of(13));
+        assertEquals(TermBucket.UP_TO_120, TermBucket.of(120));
+        assertEquals(TermBucket.UP_TO_360, TermBucket.of(360));
+        assertEquals(TermBucket.LONGER, TermBucket.of(361));
+    }
+
+    @Test
+    void shouldRecordCalculationsPerTermBucket() {
+        // when
+        metrics.recordCalculation(12, TimeUnit.MILLISECONDS.toNanos(5));
+        metrics.recordCalculation(360, TimeUnit.MILLISECONDS.toNanos(20));
+        metrics.recordCalculation(300, TimeUnit.MILLISECONDS.toNanos(30));
+
+        // then
+        Timer shortTerm = registry.get(LoanMetrics.CALCULATION).tag(LoanMetrics.TERM_TAG, "1-12").timer();
+        Timer mortgage = registry.get(LoanMetrics.CALCULATION).tag(LoanMetrics.TERM_TAG, "121-360").timer();
+        assertEquals(1, shortTerm.count());
+        assertEquals(2, mortgage.count());
+        assertEquals(50, mortgage.totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    void shouldPublishPercentiles() {
+        // when
+        metrics.recordCalculation(24, TimeUnit.MILLISECONDS.toNanos(10));
+
+        // then
+        ValueAtPercentile[] percentiles = registry.get(LoanMetrics.CALCULATION)
+                .tag(LoanMetrics.TERM_TAG, "13-60").timer()
+                .takeSnapshot()
+                .percentileValues();
+        assertArrayEquals(new double[]{0.5, 0.95, 0.99},
+                Arrays.stream(percentiles).mapToDouble(ValueAtPercentile::percentile).toArray());
+    }
+
+    @Test
+    void shouldPublishCacheLookupPercentilesPerTier() {
+        // when
+        metrics.recordLocalLookup(TimeUnit.MICROSECONDS.toNanos(2));
+        metrics.recordRedisLookup(TimeUnit.MICROSECONDS.toNanos(300));
+        metrics.recordRedisLookup(TimeUnit.MICROSECONDS.toNanos(500));
+
+        // then
+        Timer redis = registry.get(LoanMetrics.CACHE_LOOKUP).tag(LoanMetrics.TIER_TAG, LoanMetrics.REDIS_TIER).timer();
+        assertEquals(2, redis.count());
+        assertEquals(1, registry.get(LoanMetrics.CACHE_LOOKUP)
+                .tag(LoanMetrics.TIER_TAG, LoanMetrics.LOCAL_TIER).timer().count());
+        assertArrayEquals(new double[]{0.5, 0.95, 0.99},
+                Arrays.stream(redis.takeSnapshot().percentileValues()).mapToDouble(ValueAtPercentile::percentile).toArray());
+    }
+
+    @Test
+    void shouldCountDuplicatesOnly() {
+        // when
+        metrics.recordPersisted(60, 1_000, true);
+        metrics.recordPersisted(60, 1_000, false);
+
+        // then
+        assertEquals(2, registry.get(LoanMetrics.PERSISTENCE).tag(LoanMetrics.TERM_TAG, "13-60").timer().count());
+        assertEquals(1, registry.get(LoanMetrics.PERSISTENCE_DUPLICATES).tag(LoanMetrics.TERM_TAG, "13-60").counter().count());
+    }
+
+    @Test
+    void shouldRecordBatchSize() {
+        // when
+        metrics.recordBatch(10, 1_000);
+        metrics.recordBatch(30, 1_000);
+
+        // then
+        assertEquals(2, registry.get(LoanMetrics.PERSISTENCE_BATCH).timer().count());
+        assertEquals(20, registry.get(LoanMetrics.PERSISTENCE_BATCH_SIZE).summary().mean(), 0.001);
+    }
+}
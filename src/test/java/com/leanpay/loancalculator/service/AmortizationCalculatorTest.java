@@ -1,12 +1,16 @@
 package com.leanpay.loancalculator.service;
 
+import com.leanpay.loancalculator.config.CalculationProperties;
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.InstallmentDto;
+import com.leanpay.loancalculator.dto.response.SummaryDto;
 import com.leanpay.loancalculator.entity.Installment;
 import com.leanpay.loancalculator.entity.Loan;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -18,7 +22,9 @@ class AmortizationCalculatorTest {
 
     @BeforeEach
     void setUp() {
-        calculator = new AmortizationCalculator();
+        // the installment rows are only built by the BigDecimal engine
+        calculator = new AmortizationCalculator(
+                CalculationProperties.defaults().withEngine(AmortizationEngine.BIG_DECIMAL));
     }
 
 
@@ -116,4 +122,78 @@ class AmortizationCalculatorTest {
         assertEquals(expectedPayment, installment.getPayment());
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldCalculateInstallmentRangeMatchingFullPlan() {
+        LoanCalculationRequest request = new LoanCalculationRequest(
+                new BigDecimal("250000"),
+                new BigDecimal("4.35"),
+                360
+        );
+        List<Installment> plan = calculator.generateInstallments(
+                request,
+                calculator.getMonthlyInterestRate(request.annualInterestRate()),
+                calculator.calculateMonthlyPayment(request));
+
+        List<InstallmentDto> page = calculator.calculateInstallments(request, 349, 360);
+
+        assertThat(page).hasSize(12);
+        for (InstallmentDto installment : page) {
+            assertInstallmentEquals(plan.get(installment.period() - 1), installment);
+        }
+    }
+
+    @Test
+    void shouldCalculateInstallmentRangeWithBigDecimalFallback() {
+        // three decimals are not representable in cents -> BigDecimal path
+        LoanCalculationRequest request = new LoanCalculationRequest(
+                new BigDecimal("1000.005"),
+                new BigDecimal("5"),
+                10
+        );
+        List<Installment> plan = calculator.generateInstallments(
+                request,
+                calculator.getMonthlyInterestRate(request.annualInterestRate()),
+                calculator.calculateMonthlyPayment(request));
+
+        List<InstallmentDto> page = calculator.calculateInstallments(request, 1, 10);
+
+        assertThat(page).hasSize(10);
+        for (InstallmentDto installment : page) {
+            assertInstallmentEquals(plan.get(installment.period() - 1), installment);
+        }
+    }
+
+    @Test
+    void shouldKeepFixedPointPlanColumnar() {
+        AmortizationCalculator fixedPointCalculator = new AmortizationCalculator(
+                CalculationProperties.defaults()
+                        .withSimulatedDelay(Duration.ZERO)
+                        .withEngine(AmortizationEngine.FIXED_POINT));
+
+        Loan loan = fixedPointCalculator.calculateAndBuildLoan(REQUEST);
+
+        assertThat(loan.getInstallments()).isEmpty();
+        assertThat(loan.getSchedule().size()).isEqualTo(10);
+        assertThat(loan.getSchedule().payment(0)).isEqualByComparingTo("102.31");
+        assertThat(loan.getSchedule().balance(9)).isEqualByComparingTo("0.00");
+        assertThat(loan.getTotalPayments()).isEqualByComparingTo("1023.06");
+    }
+
+    @Test
+    void shouldCalculateSummaryWithoutBuildingPlan() {
+        SummaryDto summary = calculator.calculateSummary(REQUEST);
+
+        assertThat(summary.monthlyPayment()).isEqualByComparingTo("102.31");
+        assertThat(summary.totalPayments()).isEqualByComparingTo("1023.06");
+        assertThat(summary.totalInterest()).isEqualByComparingTo("23.06");
+    }
+
+    private static void assertInstallmentEquals(Installment expected, InstallmentDto actual) {
+        assertEquals(expected.getPeriod(), actual.period());
+        assertEquals(expected.getPayment(), actual.payment());
+        assertEquals(expected.getPrincipal(), actual.principal());
+        assertEquals(expected.getInterest(), actual.interest());
+        assertEquals(expected.getBalance(), actual.balance());
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnnuityFactorCacheTest {
+
+    private static final AnnuityTerms TERMS =
+            new AnnuityTerms(new BigDecimal("0.0041666667"), new BigDecimal("0.1023"), 10);
+
+    private final AnnuityFactorCache cache = new AnnuityFactorCache(16);
+
+    @Test
+    void shouldLoadOnceAndCountHitsAndMisses() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(new BigDecimal("5"), 10, () -> { loads.incrementAndGet(); return TERMS; });
+        AnnuityTerms cached = cache.get(new BigDecimal("5"), 10, () -> { loads.incrementAndGet(); return TERMS; });
+
+        assertThat(cached).isSameAs(TERMS);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNormalizeRateScale() {
+        cache.get(new BigDecimal("5"), 10, () -> TERMS);
+        cache.get(new BigDecimal("5.00"), 10, () -> TERMS);
+
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepSeparateEntriesPerTerm() {
+        cache.get(new BigDecimal("5"), 10, () -> TERMS);
+        cache.get(new BigDecimal("5"), 12, () -> TERMS);
+
+        assertThat(cache.missCount()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldShareFactorAcrossAmountsInCalculator() {
+        AmortizationCalculator calculator = new AmortizationCalculator(
+                CalculationProperties.defaults().withSimulatedDelay(Duration.ZERO), cache);
+
+        BigDecimal first = calculator.calculateMonthlyPayment(
+                new LoanCalculationRequest(new BigDecimal("1000"), new BigDecimal("5"), 10));
+        BigDecimal second = calculator.calculateMonthlyPayment(
+                new LoanCalculationRequest(new BigDecimal("2000"), new BigDecimal("5.0"), 10));
+
+        assertThat(first).isEqualByComparingTo("102.31");
+        assertThat(second).isEqualByComparingTo("204.61");
+        assertThat(cache.missCount()).isEqualTo(1);
+        assertThat(cache.hitCount()).isEqualTo(1);
+    }
+}
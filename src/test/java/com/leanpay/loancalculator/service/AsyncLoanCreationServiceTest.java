@@ -1,16 +1,31 @@
 package com.leanpay.loancalculator.service;
 
+import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.cache.LoanCompletionNotifier;
+import com.leanpay.loancalculator.cache.LoanJobStore;
+import com.leanpay.loancalculator.config.PersistenceProperties;
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.entity.Installment;
+import com.leanpay.loancalculator.entity.InstallmentSchedule;
+import com.leanpay.loancalculator.exception.CalculationDeadlineExceededException;
 import com.leanpay.loancalculator.entity.Loan;
-import com.leanpay.loancalculator.repository.LoanRepository;
+import com.leanpay.loancalculator.mapper.LoanCalculationResponseMapper;
+import com.leanpay.loancalculator.metrics.LoanMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.dao.DataIntegrityViolationException;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,11 +37,31 @@ class AsyncLoanCreationServiceTest {
     AmortizationCalculator amortizationCalculator;
 
     @Mock
-    LoanRepository loanRepository;
+    LoanWriteBehindQueue writeBehindQueue;
+
+    @Mock
+    LoanCacheFacade cache;
+
+    @Mock
+    LoanCompletionNotifier completionNotifier;
+
+    @Mock
+    LoanJobStore jobStore;
+
+    @Mock
+    LoanCalculationResponseMapper responseMapper;
+
+    @Mock
+    PersistedLoanKeyFilter keyFilter;
 
-    @InjectMocks
     AsyncLoanCreationService service;
 
+    @BeforeEach
+    void setUp() {
+        service = new AsyncLoanCreationService(amortizationCalculator, writeBehindQueue, cache, completionNotifier, jobStore, responseMapper, PersistenceProperties.defaults(),
+                new LoanMetrics(new SimpleMeterRegistry()), keyFilter);
+    }
+
     private static final LoanCalculationRequest REQUEST =
             new LoanCalculationRequest(
                     BigDecimal.valueOf(1000),
@@ -34,29 +69,137 @@ class AsyncLoanCreationServiceTest {
                     12
             );
 
+    private static final Instant DEADLINE = Instant.now().plusSeconds(3600);
+
     @Test
-    void shouldIgnoreDataIntegrityViolationWhenSavingLoan() {
+    void shouldIgnoreLoanAlreadyCreatedElsewhere() {
         // given
-        Loan loan = mock(Loan.class);
+        Loan loan = Loan.builder().requestKey("key").build();
 
         when(amortizationCalculator.calculateAndBuildLoan(REQUEST))
                 .thenReturn(loan);
 
-        doThrow(new DataIntegrityViolationException("duplicate"))
-                .when(loanRepository)
-                .save(loan);
+        when(writeBehindQueue.enqueue(loan))
+                .thenReturn(CompletableFuture.completedFuture(false));
 
         // when + then (no exception should be thrown)
         assertDoesNotThrow(() ->
-                service.createAndSaveLoanAsync(REQUEST)
+                service.createAndSaveLoanAsync(REQUEST, DEADLINE)
         );
 
         // verify interactions
         verify(amortizationCalculator)
                 .calculateAndBuildLoan(REQUEST);
 
-        verify(loanRepository)
-                .save(loan);
+        verify(writeBehindQueue)
+                .enqueue(loan);
+
+        // it is persisted either way
+        verify(keyFilter).add("key");
+    }
+
+    @Test
+    void shouldPublishResponseToCacheBeforeQueueingLoan() {
+        // given
+        Loan loan = Loan.builder().requestKey("key").build();
+        LoanResponse response = mock(LoanResponse.class);
+
+        when(amortizationCalculator.calculateAndBuildLoan(REQUEST))
+                .thenReturn(loan);
+        when(responseMapper.toResponse(loan))
+                .thenReturn(response);
+        when(writeBehindQueue.enqueue(loan))
+                .thenReturn(new CompletableFuture<>());
+
+        // when
+        CompletableFuture<Void> result = service.createAndSaveLoanAsync(REQUEST, DEADLINE);
+
+        // then (done without waiting for the write-behind batch)
+        assertTrue(result.isDone());
+        InOrder inOrder = inOrder(cache, completionNotifier, writeBehindQueue);
+        inOrder.verify(cache).putFullResponse("key", response);
+        inOrder.verify(completionNotifier).publishCompleted("key", response);
+        inOrder.verify(writeBehindQueue).enqueue(loan);
+        verify(jobStore).completed(eq("key"), any());
     }
 
+    @Test
+    void shouldStoreColumnarScheduleWhenConfigured() {
+        // given
+        service = new AsyncLoanCreationService(amortizationCalculator, writeBehindQueue, cache, completionNotifier, jobStore, responseMapper,
+                new PersistenceProperties(ScheduleStorage.COLUMNAR, false, 100), new LoanMetrics(new SimpleMeterRegistry()), keyFilter);
+        Loan loan = Loan.builder().build();
+        loan.addInstallments(List.of(
+                installment(1, "85.61", "81.44", "4.17", "918.56"),
+                installment(2, "85.61", "81.78", "3.83", "836.78")
+        ));
+
+        when(amortizationCalculator.calculateAndBuildLoan(REQUEST))
+                .thenReturn(loan);
+
+        when(writeBehindQueue.enqueue(loan))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        // when
+        service.createAndSaveLoanAsync(REQUEST, DEADLINE);
+
+        // then
+        verify(writeBehindQueue).enqueue(loan);
+        assertTrue(loan.getInstallments().isEmpty());
+        assertEquals(2, loan.getSchedule().size());
+        assertEquals(new BigDecimal("836.78"), loan.getSchedule().balance(1));
+    }
+
+    @Test
+    void shouldMapFixedPointScheduleBeforeMovingItToRows() {
+        // given
+        Loan loan = Loan.builder().requestKey("key").build();
+        loan.setSchedule(InstallmentSchedule.of(
+                new long[]{8561, 8561}, new long[]{8144, 8178}, new long[]{417, 383}, new long[]{91856, 83678}));
+        LoanResponse response = mock(LoanResponse.class);
+
+        when(amortizationCalculator.calculateAndBuildLoan(REQUEST))
+                .thenReturn(loan);
+        when(responseMapper.toResponse(loan))
+                .thenAnswer(invocation -> {
+                    // the response is built from the columnar plan
+                    assertNotNull(loan.getSchedule());
+                    assertTrue(loan.getInstallments().isEmpty());
+                    return response;
+                });
+        when(writeBehindQueue.enqueue(loan))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        // when
+        service.createAndSaveLoanAsync(REQUEST, DEADLINE);
+
+        // then (stored as rows by default)
+        verify(cache).putFullResponse("key", response);
+        assertNull(loan.getSchedule());
+        assertEquals(2, loan.getInstallments().size());
+        assertEquals(new BigDecimal("836.78"), loan.getInstallments().get(1).getBalance());
+        assertSame(loan, loan.getInstallments().get(1).getLoan());
+    }
+
+    @Test
+    void shouldNotCalculateAfterDeadline() {
+        // when
+        CompletableFuture<Void> result = service.createAndSaveLoanAsync(REQUEST, Instant.now().minusSeconds(1));
+
+        // then
+        ExecutionException error = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(CalculationDeadlineExceededException.class, error.getCause());
+        verifyNoInteractions(amortizationCalculator, cache, completionNotifier, writeBehindQueue);
+        verify(jobStore).failed(LoanRequestKey.of(REQUEST));
+    }
+
+    private static Installment installment(int period, String payment, String principal, String interest, String balance) {
+        return Installment.builder()
+                .period(period)
+                .payment(new BigDecimal(payment))
+                .principal(new BigDecimal(principal))
+                .interest(new BigDecimal(interest))
+                .balance(new BigDecimal(balance))
+                .build();
+    }
 }
@@ -0,0 +1,122 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.entity.Installment;
+import com.leanpay.loancalculator.entity.Loan;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FixedPointScheduleTest {
+
+    private static final long SEED = 20240601L;
+    private static final int CASES = 500;
+
+    private final AmortizationCalculator calculator = new AmortizationCalculator(
+            CalculationProperties.defaults().withSimulatedDelay(Duration.ZERO).withEngine(AmortizationEngine.BIG_DECIMAL));
+
+    static Stream<LoanCalculationRequest> randomRequests() {
+        Random random = new Random(SEED);
+        return Stream.generate(() -> new LoanCalculationRequest(
+                        // 100.00 - 10,000,000.00
+                        BigDecimal.valueOf(10_000L + (long) (random.nextDouble() * 999_990_000L), 2),
+                        // 3.000% - 45.000%
+                        BigDecimal.valueOf(3_000L + random.nextInt(42_001), 3),
+                        2 + random.nextInt(599)))
+                .limit(CASES);
+    }
+
+    @ParameterizedTest
+    @MethodSource("randomRequests")
+    void shouldProduceSameInstallmentsAsBigDecimalImplementation(LoanCalculationRequest request) {
+        BigDecimal monthlyRate = calculator.getMonthlyInterestRate(request.annualInterestRate());
+        BigDecimal monthlyPayment = calculator.calculateMonthlyPayment(request);
+
+        List<Installment> expected = calculator.generateInstallments(request, monthlyRate, monthlyPayment);
+        FixedPointSchedule schedule = FixedPointSchedule.compute(
+                request.amount(), monthlyRate, monthlyPayment, request.numberOfMonths()).orElseThrow();
+        List<Installment> actual = schedule.toSchedule().toInstallments();
+
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertInstallmentEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void shouldBuildSameLoanWithBothEngines() {
+        LoanCalculationRequest request = new LoanCalculationRequest(
+                new BigDecimal("250000"),
+                new BigDecimal("4.35"),
+                360
+        );
+        AmortizationCalculator fixedPointCalculator = new AmortizationCalculator(
+                CalculationProperties.defaults()
+                        .withSimulatedDelay(Duration.ZERO)
+                        .withEngine(AmortizationEngine.FIXED_POINT));
+
+        Loan expected = calculator.calculateAndBuildLoan(request);
+        Loan actual = fixedPointCalculator.calculateAndBuildLoan(request);
+
+        assertEquals(expected.getMonthlyPayment(), actual.getMonthlyPayment());
+        assertEquals(expected.getTotalPayments(), actual.getTotalPayments());
+        assertEquals(expected.getTotalInterest(), actual.getTotalInterest());
+        assertThat(actual.getInstallments()).isEmpty();
+        List<Installment> plan = actual.getSchedule().toInstallments();
+        assertThat(plan).hasSize(360);
+        for (int i = 0; i < 360; i++) {
+            assertInstallmentEquals(expected.getInstallments().get(i), plan.get(i));
+        }
+    }
+
+    @Test
+    void shouldRejectAmountWithMoreThanTwoDecimals() {
+        Optional<FixedPointSchedule> schedule = FixedPointSchedule.compute(
+                new BigDecimal("1000.005"),
+                new BigDecimal("0.0041666667"),
+                new BigDecimal("102.31"),
+                10
+        );
+
+        assertThat(schedule).isEmpty();
+    }
+
+    @Test
+    void shouldRejectValuesOverflowingLongArithmetic() {
+        Optional<FixedPointSchedule> schedule = FixedPointSchedule.compute(
+                new BigDecimal("1000000000000000"),
+                new BigDecimal("0.0041666667"),
+                new BigDecimal("102.31"),
+                10
+        );
+
+        assertThat(schedule).isEmpty();
+    }
+
+    @Test
+    void shouldRoundHalfUpAwayFromZero() {
+        assertEquals(2, FixedPointSchedule.divideHalfUp(15, 10));
+        assertEquals(1, FixedPointSchedule.divideHalfUp(14, 10));
+        assertEquals(-2, FixedPointSchedule.divideHalfUp(-15, 10));
+        assertEquals(-1, FixedPointSchedule.divideHalfUp(-14, 10));
+    }
+
+    private static void assertInstallmentEquals(Installment expected, Installment actual) {
+        assertEquals(expected.getPeriod(), actual.getPeriod());
+        assertEquals(expected.getPayment(), actual.getPayment());
+        assertEquals(expected.getPrincipal(), actual.getPrincipal());
+        assertEquals(expected.getInterest(), actual.getInterest());
+        assertEquals(expected.getBalance(), actual.getBalance());
+    }
+}
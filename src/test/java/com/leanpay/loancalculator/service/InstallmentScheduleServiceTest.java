@@ -0,0 +1,149 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.InstallmentDto;
+import com.leanpay.loancalculator.dto.response.InstallmentPageResponse;
+import com.leanpay.loancalculator.dto.response.SummaryDto;
+import com.leanpay.loancalculator.exception.InvalidInstallmentRangeException;
+import com.leanpay.loancalculator.exception.StreamingRequiredException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InstallmentScheduleServiceTest {
+
+    @Mock
+    AmortizationCalculator amortizationCalculator;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    InstallmentScheduleService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new InstallmentScheduleService(
+                amortizationCalculator,
+                objectMapper,
+                CalculationProperties.defaults().withMaxBufferedMonths(600)
+        );
+    }
+
+    private static final LoanCalculationRequest REQUEST =
+            new LoanCalculationRequest(
+                    BigDecimal.valueOf(1000),
+                    BigDecimal.valueOf(5),
+                    360
+            );
+
+    @Test
+    void shouldReturnRequestedRange() {
+        List<InstallmentDto> installments = List.of(mock(InstallmentDto.class));
+        when(amortizationCalculator.calculateInstallments(REQUEST, 13, 24))
+                .thenReturn(installments);
+
+        InstallmentPageResponse page = service.getInstallmentPage(REQUEST, 13, 24);
+
+        assertThat(page.loan()).isEqualTo(REQUEST);
+        assertThat(page.from()).isEqualTo(13);
+        assertThat(page.to()).isEqualTo(24);
+        assertThat(page.installmentPlan()).isSameAs(installments);
+    }
+
+    @Test
+    void shouldDefaultToOnePageOfTwelveInstallments() {
+        service.getInstallmentPage(REQUEST, 1, null);
+
+        verify(amortizationCalculator).calculateInstallments(REQUEST, 1, 12);
+    }
+
+    @Test
+    void shouldClampDefaultPageToLastInstallment() {
+        service.getInstallmentPage(REQUEST, 355, null);
+
+        verify(amortizationCalculator).calculateInstallments(REQUEST, 355, 360);
+    }
+
+    @Test
+    void shouldRejectRangeOutsideOfPlan() {
+        assertThatThrownBy(() -> service.getInstallmentPage(REQUEST, 0, 12))
+                .isInstanceOf(InvalidInstallmentRangeException.class);
+        assertThatThrownBy(() -> service.getInstallmentPage(REQUEST, 350, 361))
+                .isInstanceOf(InvalidInstallmentRangeException.class);
+        assertThatThrownBy(() -> service.getInstallmentPage(REQUEST, 20, 10))
+                .isInstanceOf(InvalidInstallmentRangeException.class);
+
+        verifyNoInteractions(amortizationCalculator);
+    }
+
+    @Test
+    void shouldRejectTooLargePage() {
+        assertThatThrownBy(() -> service.getInstallmentPage(REQUEST, 1, 360))
+                .isInstanceOf(InvalidInstallmentRangeException.class);
+    }
+
+    @Test
+    void shouldStreamSummaryFollowedByInstallments() throws Exception {
+        LoanCalculationRequest request = new LoanCalculationRequest(
+                BigDecimal.valueOf(1000),
+                BigDecimal.valueOf(5),
+                2
+        );
+        when(amortizationCalculator.calculateSummary(request)).thenReturn(new SummaryDto(
+                new BigDecimal("501.56"), new BigDecimal("1003.13"), new BigDecimal("3.13")));
+        doAnswer(invocation -> {
+            InstallmentConsumer consumer = invocation.getArgument(3);
+            consumer.accept(1, new BigDecimal("501.56"), new BigDecimal("497.39"),
+                    new BigDecimal("4.17"), new BigDecimal("502.61"));
+            consumer.accept(2, new BigDecimal("504.70"), new BigDecimal("502.61"),
+                    new BigDecimal("2.09"), new BigDecimal("0.00"));
+            return null;
+        }).when(amortizationCalculator).forEachInstallment(eq(request), eq(1), eq(2), any());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.streamSchedule(service.getSummary(request), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+
+        JsonNode summaryLine = objectMapper.readTree(lines[0]);
+        assertThat(summaryLine.get("status").asString()).isEqualTo("DONE");
+        assertThat(summaryLine.get("summary").get("totalPayments").decimalValue())
+                .isEqualByComparingTo("1003.13");
+
+        assertThat(objectMapper.readTree(lines[1]).get("period").asInt()).isEqualTo(1);
+        assertThat(objectMapper.readTree(lines[2]).get("period").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRequireStreamingAboveBufferedLimit() {
+        LoanCalculationRequest request = new LoanCalculationRequest(
+                BigDecimal.valueOf(1000),
+                BigDecimal.valueOf(5),
+                601
+        );
+
+        assertThatThrownBy(() -> service.requireBufferable(request))
+                .isInstanceOf(StreamingRequiredException.class);
+    }
+
+    @Test
+    void shouldAllowBufferedResponseUpToLimit() {
+        service.requireBufferable(REQUEST);
+    }
+}
@@ -0,0 +1,152 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.dto.request.LoanBatchRequest;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.response.*;
+import com.leanpay.loancalculator.mapper.LoanCalculationResponseMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanBatchServiceTest {
+
+    @Mock
+    private PersistedLoanReader persistedLoanReader;
+
+    @Mock
+    private LoanCalculationResponseMapper responseMapper;
+
+    @Mock
+    private LoanCalculationScheduler calculationScheduler;
+
+    @Mock
+    private LoanCacheFacade cache;
+
+    @Mock
+    private PersistedLoanKeyFilter keyFilter;
+
+    @InjectMocks
+    private LoanBatchService loanBatchService;
+
+
+    private static final LoanCalculationRequest CACHED =
+            new LoanCalculationRequest(BigDecimal.valueOf(1000), BigDecimal.valueOf(5), 10);
+
+    private static final LoanCalculationRequest PERSISTED =
+            new LoanCalculationRequest(BigDecimal.valueOf(2000), BigDecimal.valueOf(5), 12);
+
+    private static final LoanCalculationRequest MISSING =
+            new LoanCalculationRequest(BigDecimal.valueOf(3000), BigDecimal.valueOf(5), 24);
+
+    private static final LoanResponse CACHED_RESPONSE =
+            new LoanStatusResponse(CACHED, LoanStatus.CALCULATING);
+
+    private static final LoanResponse PERSISTED_RESPONSE =
+            new LoanCalculationResponse(PERSISTED, LoanStatus.DONE,
+                    new SummaryDto(BigDecimal.valueOf(171.21), BigDecimal.valueOf(2054.52), BigDecimal.valueOf(54.52)),
+                    List.of());
+
+    private static final LoanResponse MISSING_RESPONSE =
+            new LoanStatusResponse(MISSING, LoanStatus.CALCULATING);
+
+    @BeforeEach
+    void mockCacheKeys() {
+        lenient().when(keyFilter.mightExist(any())).thenReturn(true);
+        lenient().when(cache.generateCacheKey(any())).thenAnswer(invocation -> {
+            LoanCalculationRequest r = invocation.getArgument(0);
+            return r.amount() + ":" + r.annualInterestRate() + ":" + r.numberOfMonths();
+        });
+    }
+
+
+    @Test
+    void calculateLoans_shouldResolveEachTierOnceAndKeepRequestOrder() {
+        // given
+        when(cache.getResponsesFromCache(Set.of("1000:5:10", "2000:5:12", "3000:5:24")))
+                .thenReturn(Map.of("1000:5:10", CACHED_RESPONSE));
+        when(persistedLoanReader.findResponses(List.of("3000:5:24", "2000:5:12")))
+                .thenReturn(Map.of("2000:5:12", PERSISTED_RESPONSE));
+        when(responseMapper.toStatusResponse(MISSING)).thenReturn(MISSING_RESPONSE);
+
+        // when
+        LoanBatchResponse response = loanBatchService.calculateLoans(
+                new LoanBatchRequest(List.of(MISSING, CACHED, PERSISTED, CACHED)));
+
+        // then
+        assertThat(response.loans())
+                .containsExactly(MISSING_RESPONSE, CACHED_RESPONSE, PERSISTED_RESPONSE, CACHED_RESPONSE);
+
+        verify(cache).putFullResponses(Map.of("2000:5:12", PERSISTED_RESPONSE));
+        verify(cache).putStatusResponses(Map.of("3000:5:24", MISSING_RESPONSE));
+        verify(calculationScheduler).scheduleAll(Map.of("3000:5:24", MISSING));
+        verifyNoMoreInteractions(calculationScheduler);
+    }
+
+    @Test
+    void calculateLoans_whenEverythingIsCached_shouldNotQueryDatabase() {
+        // given
+        when(cache.getResponsesFromCache(Set.of("1000:5:10")))
+                .thenReturn(Map.of("1000:5:10", CACHED_RESPONSE));
+
+        // when
+        LoanBatchResponse response = loanBatchService.calculateLoans(new LoanBatchRequest(List.of(CACHED)));
+
+        // then
+        assertThat(response.loans()).containsExactly(CACHED_RESPONSE);
+        verifyNoInteractions(persistedLoanReader, calculationScheduler);
+        verify(cache).putFullResponses(Map.of());
+        verify(cache).putStatusResponses(Map.of());
+        verifyNoMoreInteractions(responseMapper);
+    }
+
+    @Test
+    void calculateLoans_shouldNotQueryKeysThatWereNeverPersisted() {
+        // given
+        when(cache.getResponsesFromCache(Set.of("3000:5:24"))).thenReturn(Map.of());
+        when(keyFilter.mightExist("3000:5:24")).thenReturn(false);
+        when(responseMapper.toStatusResponse(MISSING)).thenReturn(MISSING_RESPONSE);
+
+        // when
+        LoanBatchResponse response = loanBatchService.calculateLoans(new LoanBatchRequest(List.of(MISSING)));
+
+        // then
+        assertThat(response.loans()).containsExactly(MISSING_RESPONSE);
+        verifyNoInteractions(persistedLoanReader);
+        verify(calculationScheduler).scheduleAll(Map.of("3000:5:24", MISSING));
+    }
+
+    @Test
+    void calculateLoans_whenCapacityIsExhausted_shouldRejectOnlyUnscheduledLoans() {
+        // given
+        LoanResponse rejectedResponse = new LoanStatusResponse(PERSISTED, LoanStatus.REJECTED);
+        when(cache.getResponsesFromCache(Set.of("1000:5:10", "2000:5:12", "3000:5:24")))
+                .thenReturn(Map.of("1000:5:10", CACHED_RESPONSE));
+        when(keyFilter.mightExist(any())).thenReturn(false);
+        when(calculationScheduler.scheduleAll(Map.of("3000:5:24", MISSING, "2000:5:12", PERSISTED)))
+                .thenReturn(Set.of("2000:5:12"));
+        when(responseMapper.toStatusResponse(MISSING)).thenReturn(MISSING_RESPONSE);
+        when(responseMapper.toRejectedResponse(PERSISTED)).thenReturn(rejectedResponse);
+
+        // when
+        LoanBatchResponse response = loanBatchService.calculateLoans(
+                new LoanBatchRequest(List.of(MISSING, CACHED, PERSISTED)));
+
+        // then the rejected loan is answered but not cached as calculating
+        assertThat(response.loans()).containsExactly(MISSING_RESPONSE, CACHED_RESPONSE, rejectedResponse);
+        verify(cache).putStatusResponses(Map.of("3000:5:24", MISSING_RESPONSE));
+    }
+}
@@ -0,0 +1,297 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.cache.CalculationLeaseManager;
+import com.leanpay.loancalculator.cache.CalculationLeaseManager.Lease;
+import com.leanpay.loancalculator.cache.LoanCompletionNotifier;
+import com.leanpay.loancalculator.config.CalculationExecutorProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.exception.CalculationCapacityExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanCalculationSchedulerTest {
+
+    @Mock
+    AsyncLoanCreationService asyncLoanCreationService;
+
+    @Mock
+    CalculationLeaseManager leaseManager;
+
+    @Mock
+    LoanCompletionNotifier completionNotifier;
+
+    LoanCalculationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new LoanCalculationScheduler(asyncLoanCreationService, leaseManager,
+                CalculationExecutorProperties.defaults(), completionNotifier);
+    }
+
+    private static final LoanCalculationRequest REQUEST =
+            new LoanCalculationRequest(
+                    BigDecimal.valueOf(1000),
+                    BigDecimal.valueOf(5),
+                    12
+            );
+
+    private static final String KEY = "1000:5:12";
+
+    private static final Lease LEASE = new Lease("loanLease::" + KEY, "token");
+
+
+    @Test
+    void shouldJoinInFlightCalculationForSameKey() {
+        // given
+        CompletableFuture<Void> calculation = new CompletableFuture<>();
+        when(leaseManager.tryAcquire(KEY)).thenReturn(Optional.of(LEASE));
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(REQUEST), any())).thenReturn(calculation);
+
+        // when
+        CompletableFuture<Void> first = scheduler.schedule(KEY, REQUEST);
+        CompletableFuture<Void> second = scheduler.schedule(KEY, REQUEST);
+
+        // then
+        assertThat(second).isSameAs(first).isNotDone();
+        verify(asyncLoanCreationService, times(1)).createAndSaveLoanAsync(eq(REQUEST), any());
+        assertEquals(1, scheduler.startedCount());
+        assertEquals(1, scheduler.coalescedCount());
+        assertEquals(1, scheduler.inFlightCount());
+
+        calculation.complete(null);
+
+        assertThat(first).isCompleted();
+        assertEquals(0, scheduler.inFlightCount());
+        verify(leaseManager).release(LEASE);
+    }
+
+    @Test
+    void shouldStartNewCalculationAfterPreviousCompleted() {
+        // given
+        when(leaseManager.tryAcquire(KEY)).thenReturn(Optional.of(LEASE));
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(REQUEST), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // when
+        scheduler.schedule(KEY, REQUEST);
+        scheduler.schedule(KEY, REQUEST);
+
+        // then
+        verify(asyncLoanCreationService, times(2)).createAndSaveLoanAsync(eq(REQUEST), any());
+        assertEquals(2, scheduler.startedCount());
+        assertEquals(0, scheduler.coalescedCount());
+    }
+
+    @Test
+    void shouldPropagateFailureToAllCallersAndAllowRetry() {
+        // given
+        CompletableFuture<Void> calculation = new CompletableFuture<>();
+        when(leaseManager.tryAcquire(KEY)).thenReturn(Optional.of(LEASE));
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(REQUEST), any())).thenReturn(calculation);
+
+        CompletableFuture<Void> first = scheduler.schedule(KEY, REQUEST);
+        CompletableFuture<Void> second = scheduler.schedule(KEY, REQUEST);
+
+        // when
+        calculation.completeExceptionally(new IllegalStateException("boom"));
+
+        // then
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isCompletedExceptionally();
+        assertEquals(0, scheduler.inFlightCount());
+        verify(completionNotifier).publishFailed(KEY);
+    }
+
+    @Test
+    void shouldReleaseKeyAndShedLoadWhenTaskIsRejected() {
+        // given
+        when(leaseManager.tryAcquire(KEY)).thenReturn(Optional.of(LEASE));
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(REQUEST), any()))
+                .thenThrow(new TaskRejectedException("queue full"))
+                .thenReturn(new CompletableFuture<>());
+
+        // when + then
+        assertThatThrownBy(() -> scheduler.schedule(KEY, REQUEST))
+                .isInstanceOf(CalculationCapacityExceededException.class)
+                .hasCauseInstanceOf(TaskRejectedException.class);
+        assertEquals(0, scheduler.inFlightCount());
+        assertEquals(1, scheduler.rejectedCount());
+        verify(leaseManager).release(LEASE);
+        verify(completionNotifier).publishFailed(KEY);
+
+        assertThat(scheduler.schedule(KEY, REQUEST)).isNotDone();
+        assertEquals(1, scheduler.inFlightCount());
+    }
+
+    @Test
+    void shouldRunSingleCalculationForConcurrentCallers() throws Exception {
+        // given
+        int callers = 32;
+        CompletableFuture<Void> calculation = new CompletableFuture<>();
+        when(leaseManager.tryAcquire(KEY)).thenReturn(Optional.of(LEASE));
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(REQUEST), any())).thenReturn(calculation);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // when
+            List<Future<CompletableFuture<Void>>> results = IntStream.range(0, callers)
+                    .mapToObj(i -> executor.submit(() -> {
+                        start.await();
+                        return scheduler.schedule(KEY, REQUEST);
+                    }))
+                    .toList();
+            start.countDown();
+
+            // then
+            CompletableFuture<Void> shared = results.getFirst().get();
+            for (Future<CompletableFuture<Void>> result : results) {
+                assertThat(result.get()).isSameAs(shared);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(asyncLoanCreationService, times(1)).createAndSaveLoanAsync(eq(REQUEST), any());
+        assertEquals(1, scheduler.startedCount());
+        assertEquals(callers - 1, scheduler.coalescedCount());
+    }
+
+    @Test
+    void shouldNotCalculateWhenLeaseIsHeldByAnotherInstance() {
+        // given
+        when(leaseManager.tryAcquire(KEY)).thenReturn(Optional.empty());
+
+        // when
+        CompletableFuture<Void> result = scheduler.schedule(KEY, REQUEST);
+
+        // then
+        assertThat(result).isCompleted();
+        verifyNoInteractions(asyncLoanCreationService, completionNotifier);
+        assertEquals(0, scheduler.startedCount());
+        assertEquals(1, scheduler.leasedElsewhereCount());
+        assertEquals(0, scheduler.inFlightCount());
+    }
+
+    @Test
+    void shouldCompleteCallersEvenIfLeaseReleaseFails() {
+        // given
+        CompletableFuture<Void> calculation = new CompletableFuture<>();
+        when(leaseManager.tryAcquire(KEY)).thenReturn(Optional.of(LEASE));
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(REQUEST), any())).thenReturn(calculation);
+        doThrow(new IllegalStateException("redis down")).when(leaseManager).release(LEASE);
+
+        CompletableFuture<Void> result = scheduler.schedule(KEY, REQUEST);
+
+        // when
+        calculation.complete(null);
+
+        // then
+        assertThat(result).isCompleted();
+        assertEquals(0, scheduler.inFlightCount());
+    }
+
+    @Test
+    void shouldPassDeadlineToCalculation() {
+        // given
+        when(leaseManager.tryAcquire(KEY)).thenReturn(Optional.of(LEASE));
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(REQUEST), any()))
+                .thenReturn(new CompletableFuture<>());
+        Instant before = Instant.now();
+
+        // when
+        scheduler.schedule(KEY, REQUEST);
+
+        // then
+        ArgumentCaptor<Instant> deadline = ArgumentCaptor.forClass(Instant.class);
+        verify(asyncLoanCreationService).createAndSaveLoanAsync(eq(REQUEST), deadline.capture());
+        assertThat(deadline.getValue()).isAfterOrEqualTo(before.plusSeconds(30));
+    }
+
+    @Test
+    void shouldAcquireLeasesOfBatchInOneCall() {
+        // given
+        LoanCalculationRequest other = new LoanCalculationRequest(BigDecimal.valueOf(2000), BigDecimal.valueOf(5), 12);
+        String otherKey = "2000:5:12";
+        when(leaseManager.tryAcquireAll(Set.of(KEY, otherKey))).thenReturn(Map.of(KEY, LEASE));
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(REQUEST), any())).thenReturn(new CompletableFuture<>());
+
+        // when
+        Set<String> rejected = scheduler.scheduleAll(Map.of(KEY, REQUEST, otherKey, other));
+
+        // then
+        assertThat(rejected).isEmpty();
+        verify(leaseManager, times(1)).tryAcquireAll(any());
+        verify(leaseManager, never()).tryAcquire(any());
+        verify(asyncLoanCreationService, never()).createAndSaveLoanAsync(eq(other), any());
+        assertEquals(1, scheduler.startedCount());
+        assertEquals(1, scheduler.leasedElsewhereCount());
+        assertEquals(1, scheduler.inFlightCount());
+    }
+
+    @Test
+    void shouldRejectSingleLoansOfBatchWhenExecutorIsSaturated() {
+        // given
+        LoanCalculationRequest other = new LoanCalculationRequest(BigDecimal.valueOf(2000), BigDecimal.valueOf(5), 12);
+        String otherKey = "2000:5:12";
+        Lease otherLease = new Lease("loanLease::" + otherKey, "token");
+        when(leaseManager.tryAcquireAll(Set.of(KEY, otherKey))).thenReturn(Map.of(KEY, LEASE, otherKey, otherLease));
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(REQUEST), any())).thenReturn(new CompletableFuture<>());
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(other), any()))
+                .thenThrow(new TaskRejectedException("queue full"));
+
+        // when
+        Set<String> rejected = scheduler.scheduleAll(Map.of(KEY, REQUEST, otherKey, other));
+
+        // then
+        assertThat(rejected).containsExactly(otherKey);
+        assertEquals(1, scheduler.rejectedCount());
+        assertEquals(1, scheduler.inFlightCount());
+        verify(leaseManager).release(otherLease);
+        verify(leaseManager, never()).release(LEASE);
+        verify(completionNotifier).publishFailed(otherKey);
+        verify(completionNotifier, never()).publishFailed(KEY);
+    }
+
+    @Test
+    void shouldJoinInFlightCalculationsOfBatch() {
+        // given
+        when(leaseManager.tryAcquire(KEY)).thenReturn(Optional.of(LEASE));
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(REQUEST), any())).thenReturn(new CompletableFuture<>());
+        scheduler.schedule(KEY, REQUEST);
+
+        // when
+        Set<String> rejected = scheduler.scheduleAll(Map.of(KEY, REQUEST));
+
+        // then
+        assertThat(rejected).isEmpty();
+        verify(leaseManager, never()).tryAcquireAll(any());
+        assertEquals(1, scheduler.coalescedCount());
+    }
+}
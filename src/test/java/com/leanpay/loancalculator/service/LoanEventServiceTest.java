@@ -0,0 +1,115 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.cache.CalculationLeaseManager;
+import com.leanpay.loancalculator.cache.CalculationLeaseManager.Lease;
+import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.cache.LoanCompletionNotifier;
+import com.leanpay.loancalculator.config.CalculationExecutorProperties;
+import com.leanpay.loancalculator.config.EventsProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import com.leanpay.loancalculator.dto.request.LoanRequestKey;
+import com.leanpay.loancalculator.dto.response.LoanCalculationResponse;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import com.leanpay.loancalculator.dto.response.LoanStatus;
+import com.leanpay.loancalculator.dto.response.LoanStatusResponse;
+import com.leanpay.loancalculator.dto.response.SummaryDto;
+import com.leanpay.loancalculator.service.LoanService.LoanWatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LoanEventServiceTest {
+
+    @Mock
+    LoanService loanService;
+
+    @Mock
+    AsyncLoanCreationService asyncLoanCreationService;
+
+    @Mock
+    CalculationLeaseManager leaseManager;
+
+    @Mock
+    LoanCacheFacade cache;
+
+    @Mock
+    StringRedisTemplate stringRedisTemplate;
+
+    private final List<Runnable> sends = new ArrayList<>();
+
+    private LoanEventService service;
+
+    private static final LoanCalculationRequest REQUEST =
+            new LoanCalculationRequest(BigDecimal.valueOf(1000), BigDecimal.valueOf(5), 10);
+
+    private static final String KEY = LoanRequestKey.of(REQUEST);
+
+    private static final LoanResponse RESPONSE =
+            new LoanCalculationResponse(
+                    REQUEST,
+                    LoanStatus.DONE,
+                    new SummaryDto(BigDecimal.valueOf(102.31), BigDecimal.valueOf(1023.06), BigDecimal.valueOf(23.06)),
+                    List.of()
+            );
+
+    @BeforeEach
+    void setUp() {
+        service = new LoanEventService(loanService, EventsProperties.defaults(), sends::add);
+    }
+
+    @Test
+    void shouldSendDoneEventOnEventsExecutor() {
+        // given
+        CompletableFuture<LoanResponse> completion = new CompletableFuture<>();
+        when(loanService.watchLoan(REQUEST))
+                .thenReturn(new LoanWatch(new LoanStatusResponse(REQUEST, LoanStatus.CALCULATING), completion));
+        service.subscribe(REQUEST);
+
+        // when (on the calculation thread)
+        completion.complete(RESPONSE);
+
+        // then (the client is not written to by the completing thread)
+        assertThat(sends).hasSize(1);
+        sends.getFirst().run();
+    }
+
+    @Test
+    void shouldEndStreamWhenCalculationFails() {
+        // given
+        LoanCompletionNotifier notifier = new LoanCompletionNotifier(cache, stringRedisTemplate);
+        LoanCalculationScheduler scheduler = new LoanCalculationScheduler(
+                asyncLoanCreationService, leaseManager, CalculationExecutorProperties.defaults(), notifier);
+        when(loanService.watchLoan(REQUEST))
+                .thenReturn(new LoanWatch(new LoanStatusResponse(REQUEST, LoanStatus.CALCULATING), notifier.awaitCompletion(KEY)));
+        when(leaseManager.tryAcquire(KEY)).thenReturn(Optional.of(new Lease("loanLease::" + KEY, "token")));
+        when(asyncLoanCreationService.createAndSaveLoanAsync(eq(REQUEST), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("boom")));
+        SseEmitter emitter = service.subscribe(REQUEST);
+
+        // when
+        scheduler.schedule(KEY, REQUEST);
+        sends.forEach(Runnable::run);
+
+        // then (error event sent and the stream completed, without waiting for the SSE timeout)
+        assertThat(sends).hasSize(1);
+        assertThatThrownBy(() -> emitter.send("late"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
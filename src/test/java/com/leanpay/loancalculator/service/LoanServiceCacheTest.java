@@ -3,9 +3,8 @@ package com.leanpay.loancalculator.service;
 import com.leanpay.loancalculator.cache.LoanCacheFacade;
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
 import com.leanpay.loancalculator.dto.response.LoanResponse;
-import com.leanpay.loancalculator.entity.Loan;
 import com.leanpay.loancalculator.mapper.LoanCalculationResponseMapper;
-import com.leanpay.loancalculator.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -22,13 +21,19 @@ import static org.mockito.Mockito.*;
 class LoanServiceCacheTest {
 
     @Mock
-    private LoanRepository loanRepository;
+    private PersistedLoanReader persistedLoanReader;
+
+    @Mock
+    private PersistedLoanLoader persistedLoanLoader;
+
+    @Mock
+    private PersistedLoanKeyFilter keyFilter;
 
     @Mock
     private LoanCalculationResponseMapper responseMapper;
 
     @Mock
-    private AsyncLoanCreationService asyncLoanCreationService;
+    private LoanCalculationScheduler calculationScheduler;
 
     @Mock
     private LoanCacheFacade cache;
@@ -36,6 +41,11 @@ class LoanServiceCacheTest {
     @InjectMocks
     private LoanService loanService;
 
+    @BeforeEach
+    void keysMightExist() {
+        lenient().when(keyFilter.mightExist(any())).thenReturn(true);
+    }
+
     private static final LoanCalculationRequest REQUEST =
             new LoanCalculationRequest(
                     BigDecimal.valueOf(1000),
@@ -58,25 +68,20 @@ class LoanServiceCacheTest {
         assertThat(result).isSameAs(cached);
 
         verifyNoInteractions(
-                loanRepository,
-                asyncLoanCreationService,
+                persistedLoanReader,
+                persistedLoanLoader,
+                calculationScheduler,
                 responseMapper
         );
     }
 
     @Test
     void shouldCacheFullResponseWhenLoanExistsInDb() {
-        Loan loan = mock(Loan.class);
         LoanResponse fullResponse = mock(LoanResponse.class);
 
         when(cache.generateCacheKey(REQUEST)).thenReturn(KEY);
         when(cache.getResponseFromCache(KEY)).thenReturn(Optional.empty());
-        when(loanRepository.findByAmountAndAnnualInterestRateAndNumberOfMonths(
-                REQUEST.amount(),
-                REQUEST.annualInterestRate(),
-                REQUEST.numberOfMonths()
-        )).thenReturn(Optional.of(loan));
-        when(responseMapper.toResponse(loan)).thenReturn(fullResponse);
+        when(persistedLoanLoader.load(KEY)).thenReturn(Optional.of(fullResponse));
 
         LoanResponse result = loanService.calculateLoan(REQUEST);
 
@@ -84,7 +89,7 @@ class LoanServiceCacheTest {
 
         verify(cache).putFullResponse(KEY, fullResponse);
         verify(cache).evictStatusResponse(KEY);
-        verify(asyncLoanCreationService, never()).createAndSaveLoanAsync(any());
+        verify(calculationScheduler, never()).schedule(any(), any());
     }
 
     @Test
@@ -93,11 +98,7 @@ class LoanServiceCacheTest {
 
         when(cache.generateCacheKey(REQUEST)).thenReturn(KEY);
         when(cache.getResponseFromCache(KEY)).thenReturn(Optional.empty());
-        when(loanRepository.findByAmountAndAnnualInterestRateAndNumberOfMonths(
-                REQUEST.amount(),
-                REQUEST.annualInterestRate(),
-                REQUEST.numberOfMonths()
-        )).thenReturn(Optional.empty());
+        when(persistedLoanLoader.load(KEY)).thenReturn(Optional.empty());
         when(responseMapper.toStatusResponse(REQUEST))
                 .thenReturn(status);
 
@@ -105,8 +106,7 @@ class LoanServiceCacheTest {
 
         assertThat(result).isSameAs(status);
 
-        verify(asyncLoanCreationService)
-                .createAndSaveLoanAsync(REQUEST);
+        verify(calculationScheduler).schedule(KEY, REQUEST);
         verify(cache).putStatusResponse(KEY, status);
     }
 }
@@ -1,11 +1,15 @@
 package com.leanpay.loancalculator.service;
 
+import com.leanpay.loancalculator.cache.CachedResponseBody;
 import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.cache.LoanCompletionNotifier;
+import com.leanpay.loancalculator.cache.LoanJobStore;
+import com.leanpay.loancalculator.cache.ResponseOrBody;
 import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
 import com.leanpay.loancalculator.dto.response.*;
-import com.leanpay.loancalculator.entity.Loan;
+import com.leanpay.loancalculator.exception.CalculationCapacityExceededException;
 import com.leanpay.loancalculator.mapper.LoanCalculationResponseMapper;
-import com.leanpay.loancalculator.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -13,30 +17,51 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class LoanServiceTest {
 
     @Mock
-    private LoanRepository loanRepository;
+    private PersistedLoanReader persistedLoanReader;
+
+    @Mock
+    private PersistedLoanLoader persistedLoanLoader;
+
+    @Mock
+    private PersistedLoanKeyFilter keyFilter;
 
     @Mock
     private LoanCalculationResponseMapper responseMapper;
 
     @Mock
-    private AsyncLoanCreationService asyncLoanCreationService;
+    private LoanCalculationScheduler calculationScheduler;
 
     @Mock
     private LoanCacheFacade cache;
 
+    @Mock
+    private LoanCompletionNotifier completionNotifier;
+
+    @Mock
+    private LoanJobStore jobStore;
+
     @InjectMocks
     private LoanService loanService;
 
+    @BeforeEach
+    void keysMightExist() {
+        lenient().when(keyFilter.mightExist(any())).thenReturn(true);
+    }
+
 
 
     private static final LoanCalculationRequest REQUEST =
@@ -71,11 +96,7 @@ class LoanServiceTest {
         when(cache.generateCacheKey(REQUEST)).thenReturn(key);
         when(cache.getResponseFromCache(key)).thenReturn(Optional.empty());
 
-        when(loanRepository.findByAmountAndAnnualInterestRateAndNumberOfMonths(
-                REQUEST.amount(),
-                REQUEST.annualInterestRate(),
-                REQUEST.numberOfMonths()
-        )).thenReturn(Optional.empty());
+        when(persistedLoanLoader.load(key)).thenReturn(Optional.empty());
 
         when(responseMapper.toStatusResponse(REQUEST))
                 .thenReturn(STATUS_RESPONSE);
@@ -88,19 +109,16 @@ class LoanServiceTest {
 
         verify(cache).generateCacheKey(REQUEST);
         verify(cache).getResponseFromCache(key);
-        verify(asyncLoanCreationService).createAndSaveLoanAsync(REQUEST);
+        verify(calculationScheduler).schedule(key, REQUEST);
         verify(cache).putStatusResponse(key, STATUS_RESPONSE);
 
-        verify(loanRepository).findByAmountAndAnnualInterestRateAndNumberOfMonths(
-                REQUEST.amount(),
-                REQUEST.annualInterestRate(),
-                REQUEST.numberOfMonths()
-        );
+        verify(persistedLoanLoader).load(key);
 
         verifyNoMoreInteractions(
-                loanRepository,
+                persistedLoanReader,
+                persistedLoanLoader,
                 responseMapper,
-                asyncLoanCreationService,
+                calculationScheduler,
                 cache
         );
     }
@@ -111,23 +129,10 @@ class LoanServiceTest {
         // given
         String key = "1000:5:10";
 
-        Loan existingLoan = Loan.builder()
-                .id(42L)
-                .amount(REQUEST.amount())
-                .annualInterestRate(REQUEST.annualInterestRate())
-                .numberOfMonths(REQUEST.numberOfMonths())
-                .build();
-
         when(cache.generateCacheKey(REQUEST)).thenReturn(key);
         when(cache.getResponseFromCache(key)).thenReturn(Optional.empty());
 
-        when(loanRepository.findByAmountAndAnnualInterestRateAndNumberOfMonths(
-                REQUEST.amount(),
-                REQUEST.annualInterestRate(),
-                REQUEST.numberOfMonths()
-        )).thenReturn(Optional.of(existingLoan));
-
-        when(responseMapper.toResponse(existingLoan)).thenReturn(RESPONSE);
+        when(persistedLoanLoader.load(key)).thenReturn(Optional.of(RESPONSE));
 
         // when
         LoanResponse actualResponse = loanService.calculateLoan(REQUEST);
@@ -140,17 +145,218 @@ class LoanServiceTest {
         verify(cache).putFullResponse(key, RESPONSE);
         verify(cache).evictStatusResponse(key);
 
-        verify(responseMapper).toResponse(existingLoan);
-        verifyNoInteractions(asyncLoanCreationService);
+        verify(persistedLoanLoader).load(key);
+        verifyNoInteractions(calculationScheduler, responseMapper);
 
         verifyNoMoreInteractions(
-                loanRepository,
+                persistedLoanReader,
+                persistedLoanLoader,
                 responseMapper,
                 cache
         );
     }
 
+    @Test
+    void calculateLoanOrBody_whenBodyIsCached_shouldReturnBodyWithoutFurtherLookups() {
 
+        // given
+        String key = "1000:5:10";
+        ResponseOrBody cached = ResponseOrBody.of(CachedResponseBody.of("{}".getBytes(StandardCharsets.UTF_8)));
 
-}
+        when(cache.generateCacheKey(REQUEST)).thenReturn(key);
+        when(cache.getResponseOrBodyFromCache(key)).thenReturn(Optional.of(cached));
+
+        // when
+        ResponseOrBody result = loanService.calculateLoanOrBody(REQUEST);
+
+        // then
+        assertThat(result).isSameAs(cached);
+        verify(cache, never()).getResponseFromCache(key);
+        verifyNoInteractions(persistedLoanLoader, calculationScheduler);
+    }
+
+    @Test
+    void calculateLoanOrBody_whenNothingIsCached_shouldScheduleAndReturnStatusResponse() {
+
+        // given
+        String key = "1000:5:10";
+
+        when(cache.generateCacheKey(REQUEST)).thenReturn(key);
+        when(cache.getResponseOrBodyFromCache(key)).thenReturn(Optional.empty());
+        when(persistedLoanLoader.load(key)).thenReturn(Optional.empty());
+        when(responseMapper.toStatusResponse(REQUEST)).thenReturn(STATUS_RESPONSE);
+
+        // when
+        ResponseOrBody result = loanService.calculateLoanOrBody(REQUEST);
+
+        // then
+        assertThat(result.response()).isEqualTo(STATUS_RESPONSE);
+        verify(calculationScheduler).schedule(key, REQUEST);
+        verify(cache).putStatusResponse(key, STATUS_RESPONSE);
+    }
+
+    @Test
+    void watchLoan_whenLoanIsCalculated_shouldCompleteImmediately() {
+
+        // given
+        String key = "1000:5:10";
+        CompletableFuture<LoanResponse> completion = new CompletableFuture<>();
+
+        when(cache.generateCacheKey(REQUEST)).thenReturn(key);
+        when(completionNotifier.awaitCompletion(key)).thenReturn(completion);
+        when(cache.getResponseFromCache(key)).thenReturn(Optional.of(RESPONSE));
+
+        // when
+        LoanService.LoanWatch watch = loanService.watchLoan(REQUEST);
+
+        // then
+        assertThat(watch.current()).isEqualTo(RESPONSE);
+        assertThat(watch.completion()).isCompletedWithValue(RESPONSE);
+    }
+
+    @Test
+    void watchLoan_whenLoanIsCalculating_shouldRegisterWaiterBeforeScheduling() {
+
+        // given
+        String key = "1000:5:10";
+        CompletableFuture<LoanResponse> completion = new CompletableFuture<>();
+
+        when(cache.generateCacheKey(REQUEST)).thenReturn(key);
+        when(completionNotifier.awaitCompletion(key)).thenReturn(completion);
+        when(cache.getResponseFromCache(key)).thenReturn(Optional.empty());
+        when(persistedLoanLoader.load(key)).thenReturn(Optional.empty());
+        when(responseMapper.toStatusResponse(REQUEST)).thenReturn(STATUS_RESPONSE);
+
+        // when
+        LoanService.LoanWatch watch = loanService.watchLoan(REQUEST);
+
+        // then
+        assertThat(watch.current()).isEqualTo(STATUS_RESPONSE);
+        assertThat(watch.completion()).isNotDone();
+        var inOrder = inOrder(completionNotifier, calculationScheduler);
+        inOrder.verify(completionNotifier).awaitCompletion(key);
+        inOrder.verify(calculationScheduler).schedule(key, REQUEST);
+    }
+
+    @Test
+    void submitLoan_whenLoanIsCalculating_shouldReturnRunningJob() {
+
+        // given
+        String key = "1000:5:10";
+        LoanJobResponse job = new LoanJobResponse(key, LoanJobState.CALCULATING, null, null, null);
+
+        when(cache.generateCacheKey(REQUEST)).thenReturn(key);
+        when(cache.getResponseFromCache(key)).thenReturn(Optional.empty());
+        when(persistedLoanReader.exists(key)).thenReturn(false);
+        when(responseMapper.toStatusResponse(REQUEST)).thenReturn(STATUS_RESPONSE);
+        when(jobStore.started(key)).thenReturn(job);
 
+        // when
+        LoanJobResponse actual = loanService.submitLoan(REQUEST);
+
+        // then the job is recorded before a fast calculation could complete it
+        assertThat(actual).isEqualTo(job);
+        var inOrder = inOrder(jobStore, calculationScheduler);
+        inOrder.verify(jobStore).started(key);
+        inOrder.verify(calculationScheduler).schedule(key, REQUEST);
+    }
+
+    @Test
+    void submitLoan_whenSchedulingIsRejected_shouldFailJob() {
+
+        // given
+        String key = "1000:5:10";
+        CalculationCapacityExceededException rejected =
+                new CalculationCapacityExceededException(Duration.ofSeconds(5), null);
+
+        when(cache.generateCacheKey(REQUEST)).thenReturn(key);
+        when(cache.getResponseFromCache(key)).thenReturn(Optional.empty());
+        when(persistedLoanReader.exists(key)).thenReturn(false);
+        when(calculationScheduler.schedule(key, REQUEST)).thenThrow(rejected);
+
+        // when
+        assertThatThrownBy(() -> loanService.submitLoan(REQUEST)).isSameAs(rejected);
+
+        // then
+        verify(jobStore).started(key);
+        verify(jobStore).failed(key);
+    }
+
+    @Test
+    void submitLoan_whenLoanIsCalculated_shouldReturnDoneJobWithoutRecordingIt() {
+
+        // given
+        String key = "1000:5:10";
+
+        when(cache.generateCacheKey(REQUEST)).thenReturn(key);
+        when(cache.getResponseFromCache(key)).thenReturn(Optional.of(RESPONSE));
+
+        // when
+        LoanJobResponse actual = loanService.submitLoan(REQUEST);
+
+        // then
+        assertThat(actual.id()).isEqualTo(key);
+        assertThat(actual.state()).isEqualTo(LoanJobState.DONE);
+        verifyNoInteractions(jobStore, calculationScheduler);
+    }
+
+    @Test
+    void submitLoan_whenLoanIsPersisted_shouldOnlyCheckExistence() {
+
+        // given
+        String key = "1000:5:10";
+
+        when(cache.generateCacheKey(REQUEST)).thenReturn(key);
+        when(cache.getResponseFromCache(key)).thenReturn(Optional.empty());
+        when(persistedLoanReader.exists(key)).thenReturn(true);
+
+        // when
+        LoanJobResponse actual = loanService.submitLoan(REQUEST);
+
+        // then
+        assertThat(actual.state()).isEqualTo(LoanJobState.DONE);
+        verify(persistedLoanLoader, never()).load(key);
+        verifyNoInteractions(jobStore, calculationScheduler);
+    }
+
+    @Test
+    void submitLoan_whenStatusIsCached_shouldRecordJobAndJoinCalculation() {
+
+        // given
+        String key = "1000:5:10";
+        LoanJobResponse job = new LoanJobResponse(key, LoanJobState.CALCULATING, null, null, null);
+
+        when(cache.generateCacheKey(REQUEST)).thenReturn(key);
+        when(cache.getResponseFromCache(key)).thenReturn(Optional.of(STATUS_RESPONSE));
+        when(responseMapper.toStatusResponse(REQUEST)).thenReturn(STATUS_RESPONSE);
+        when(jobStore.started(key)).thenReturn(job);
+
+        // when
+        LoanJobResponse actual = loanService.submitLoan(REQUEST);
+
+        // then (the single-flight scheduler joins the running calculation)
+        assertThat(actual).isEqualTo(job);
+        verify(calculationScheduler).schedule(key, REQUEST);
+        verifyNoInteractions(persistedLoanReader, persistedLoanLoader);
+    }
+
+    @Test
+    void calculateLoan_whenKeyWasNeverPersisted_shouldScheduleWithoutQueryingDatabase() {
+
+        // given
+        String key = "1000:5:10";
+
+        when(cache.generateCacheKey(REQUEST)).thenReturn(key);
+        when(cache.getResponseFromCache(key)).thenReturn(Optional.empty());
+        when(keyFilter.mightExist(key)).thenReturn(false);
+        when(responseMapper.toStatusResponse(REQUEST)).thenReturn(STATUS_RESPONSE);
+
+        // when
+        LoanResponse actualResponse = loanService.calculateLoan(REQUEST);
+
+        // then
+        assertThat(actualResponse).isEqualTo(STATUS_RESPONSE);
+        verify(calculationScheduler).schedule(key, REQUEST);
+        verifyNoInteractions(persistedLoanLoader, persistedLoanReader);
+    }
+}
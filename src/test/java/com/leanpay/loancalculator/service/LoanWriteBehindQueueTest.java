@@ -0,0 +1,129 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.WriteBehindProperties;
+import com.leanpay.loancalculator.entity.Loan;
+import com.leanpay.loancalculator.metrics.LoanMetrics;
+import com.leanpay.loancalculator.repository.LoanBulkWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanWriteBehindQueueTest {
+
+    @Mock
+    LoanBulkWriter loanWriter;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    LoanWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        // long window, so everything enqueued by a test ends up in one batch
+        queue = new LoanWriteBehindQueue(loanWriter, new TransactionTemplate(transactionManager),
+                new WriteBehindProperties(true, 100, 10, Duration.ofMillis(500), Duration.ofMillis(100)),
+                new LoanMetrics(meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.stop();
+    }
+
+    @Test
+    void shouldWriteQueuedLoansInSharedTransactions() {
+        // given
+        when(loanWriter.insert(any())).thenReturn(true);
+        queue.start();
+
+        // when
+        List<CompletableFuture<Boolean>> persisted = IntStream.range(0, 25)
+                .mapToObj(i -> queue.enqueue(loan()))
+                .toList();
+        CompletableFuture.allOf(persisted.toArray(CompletableFuture[]::new)).orTimeout(5, TimeUnit.SECONDS).join();
+
+        // then (25 loans, at most 10 per transaction)
+        verify(loanWriter, times(25)).insert(any());
+        verify(transactionManager, times(3)).getTransaction(any());
+        assertEquals(25, queue.flushedLoanCount());
+        assertEquals(3, queue.flushedBatchCount());
+        assertEquals(0, queue.callerWriteCount());
+        assertEquals(25, meterRegistry.get(LoanMetrics.PERSISTENCE).timer().count());
+        assertEquals(3, meterRegistry.get(LoanMetrics.PERSISTENCE_BATCH).timer().count());
+    }
+
+    @Test
+    void shouldWriteInCallerThreadWhenNotRunning() {
+        // given
+        Loan loan = loan();
+        when(loanWriter.insert(loan)).thenReturn(false);
+
+        // when
+        CompletableFuture<Boolean> persisted = queue.enqueue(loan);
+
+        // then
+        assertFalse(persisted.join());
+        assertEquals(1, queue.callerWriteCount());
+        assertEquals(1, meterRegistry.get(LoanMetrics.PERSISTENCE_DUPLICATES).tag(LoanMetrics.TERM_TAG, "1-12").counter().count());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void shouldWriteLoansOneByOneWhenBatchFails() {
+        // given
+        Loan good = loan();
+        Loan bad = loan();
+        when(loanWriter.insert(good)).thenReturn(true);
+        when(loanWriter.insert(bad)).thenThrow(new IllegalStateException("boom"));
+        queue.start();
+
+        // when
+        CompletableFuture<Boolean> goodPersisted = queue.enqueue(good);
+        CompletableFuture<Boolean> badPersisted = queue.enqueue(bad);
+
+        // then
+        assertTrue(goodPersisted.orTimeout(5, TimeUnit.SECONDS).join());
+        assertThrows(Exception.class, () -> badPersisted.orTimeout(5, TimeUnit.SECONDS).join());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void shouldFlushQueuedLoansOnStop() {
+        // given
+        when(loanWriter.insert(any())).thenReturn(true);
+        queue.start();
+        CompletableFuture<Boolean> persisted = queue.enqueue(loan());
+
+        // when
+        queue.stop();
+
+        // then
+        assertTrue(persisted.isDone());
+        assertFalse(queue.isRunning());
+        assertEquals(0, queue.queuedCount());
+    }
+
+    private static Loan loan() {
+        return Loan.builder().numberOfMonths(12).build();
+    }
+}
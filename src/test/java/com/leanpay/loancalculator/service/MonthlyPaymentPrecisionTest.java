@@ -0,0 +1,103 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.CalculationProperties;
+import com.leanpay.loancalculator.dto.request.LoanCalculationRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MonthlyPaymentPrecisionTest {
+
+    private static final long SEED = 17L;
+    private static final int RANDOM_CASES = 1_000;
+    // the exact reference takes about a second at the longest term, so only a few random cases use the full range
+    private static final int RANDOM_LONG_TERM_CASES = 20;
+    private static final int[] TERMS = {2, 3, 6, 12, 24, 36, 60, 120, 240, 360, 480, 600, 1200, 10_000,
+            LoanCalculationRequest.MAX_MONTHS};
+    private static final String[] RATES = {"3", "3.0001", "3.5", "4.99", "5", "7.25", "12", "19.99", "36", "99.9999",
+            "1000", "9999.9999"};
+    private static final String[] AMOUNTS = {"100", "100.01", "999999.99", "25000000", "999999999999.99"};
+    // long terms are combined with the smallest and the largest amount only
+    private static final int LONG_TERM = 1200;
+    private static final String[] LONG_TERM_AMOUNTS = {"100", "999999999999.99"};
+
+    private final AmortizationCalculator calculator = new AmortizationCalculator(
+            CalculationProperties.defaults().withSimulatedDelay(Duration.ZERO));
+
+    static Stream<LoanCalculationRequest> randomRequests() {
+        Random random = new Random(SEED);
+        return Stream.concat(
+                Stream.generate(() -> randomRequest(random, LONG_TERM)).limit(RANDOM_CASES),
+                Stream.generate(() -> randomRequest(random, LoanCalculationRequest.MAX_MONTHS))
+                        .limit(RANDOM_LONG_TERM_CASES));
+    }
+
+    // amount 100 to 10^12, rate 3% to 1000%, term 2 to maxMonths
+    private static LoanCalculationRequest randomRequest(Random random, int maxMonths) {
+        return new LoanCalculationRequest(
+                BigDecimal.valueOf(10_000L + (long) (random.nextDouble() * 99_999_999_990_000L), 2),
+                BigDecimal.valueOf(30_000L + random.nextInt(9_970_001), 4),
+                2 + random.nextInt(maxMonths - 1));
+    }
+
+    static Stream<LoanCalculationRequest> boundaryRequests() {
+        return Stream.of(RATES).flatMap(rate -> IntStream.of(TERMS).boxed()
+                .flatMap(term -> Stream.of(term < LONG_TERM ? AMOUNTS : LONG_TERM_AMOUNTS)
+                        .map(amount -> new LoanCalculationRequest(
+                                new BigDecimal(amount), new BigDecimal(rate), term))));
+    }
+
+    @ParameterizedTest
+    @MethodSource({"randomRequests", "boundaryRequests"})
+    void shouldMatchExactMonthlyPayment(LoanCalculationRequest request) {
+        BigDecimal monthlyRate = calculator.getMonthlyInterestRate(request.annualInterestRate());
+
+        BigDecimal expected = calculator.calculateMonthlyPaymentExact(
+                request.amount(), monthlyRate, request.numberOfMonths());
+
+        assertEquals(expected, calculator.calculateMonthlyPayment(request));
+    }
+
+    @Test
+    void shouldFallBackToExactPaymentOnHalfCent() {
+        // 1602 * 1.0025^2 / 2.0025 = 804.005 exactly, the approximation cannot decide the cent
+        LoanCalculationRequest request = new LoanCalculationRequest(new BigDecimal("1602"), new BigDecimal("3"), 2);
+
+        assertEquals(new BigDecimal("804.01"), calculator.calculateMonthlyPayment(request));
+    }
+
+    @Test
+    void shouldComputePowerWithinRequestedPrecision() {
+        BigDecimal base = new BigDecimal("1.0041666667");
+        MathContext mc = AmortizationCalculator.ANNUITY_PRECISION;
+
+        BigDecimal exact = base.pow(360);
+        BigDecimal approximation = AmortizationCalculator.pow(base, 360, mc);
+
+        BigDecimal relativeError = exact.subtract(approximation).abs()
+                .divide(exact, new MathContext(5, RoundingMode.HALF_UP));
+
+        assertThat(approximation.precision()).isLessThanOrEqualTo(mc.getPrecision());
+        assertThat(relativeError).isLessThan(new BigDecimal("1E-48"));
+    }
+
+    @Test
+    void shouldComputeTrivialPowers() {
+        MathContext mc = AmortizationCalculator.ANNUITY_PRECISION;
+
+        assertEquals(BigDecimal.ONE, AmortizationCalculator.pow(new BigDecimal("1.5"), 0, mc));
+        assertThat(AmortizationCalculator.pow(new BigDecimal("1.5"), 1, mc)).isEqualByComparingTo("1.5");
+        assertThat(AmortizationCalculator.pow(new BigDecimal("2"), 10, mc)).isEqualByComparingTo("1024");
+    }
+}
@@ -0,0 +1,91 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.KeyFilterProperties;
+import com.leanpay.loancalculator.repository.LoanKeyView;
+import com.leanpay.loancalculator.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PersistedLoanKeyFilterTest {
+
+    @Mock
+    LoanRepository loanRepository;
+
+    @Mock
+    StringRedisTemplate stringRedisTemplate;
+
+    PersistedLoanKeyFilter keyFilter;
+
+    @BeforeEach
+    void setUp() {
+        keyFilter = new PersistedLoanKeyFilter(loanRepository, stringRedisTemplate,
+                new KeyFilterProperties(true, 1_000, 0.01, 2, true));
+    }
+
+    @Test
+    void shouldTreatEveryKeyAsExistingUntilRebuilt() {
+        assertTrue(keyFilter.mightExist("new"));
+        assertEquals(0, keyFilter.skippedCount());
+    }
+
+    @Test
+    void shouldRebuildFromDatabaseInPages() {
+        // given
+        when(loanRepository.findKeysAfter(eq(0L), any()))
+                .thenReturn(List.of(new LoanKeyView(1L, "a"), new LoanKeyView(2L, "b")));
+        when(loanRepository.findKeysAfter(eq(2L), any()))
+                .thenReturn(List.of(new LoanKeyView(5L, "c")));
+
+        // when
+        keyFilter.rebuild();
+
+        // then
+        assertTrue(keyFilter.isReady());
+        assertTrue(keyFilter.mightExist("a"));
+        assertTrue(keyFilter.mightExist("c"));
+        assertFalse(keyFilter.mightExist("new"));
+        assertEquals(1, keyFilter.skippedCount());
+    }
+
+    @Test
+    void shouldStayNotReadyWhenRebuildFails() {
+        // given
+        when(loanRepository.findKeysAfter(eq(0L), any())).thenThrow(new IllegalStateException("db down"));
+
+        // when
+        keyFilter.rebuild();
+
+        // then
+        assertFalse(keyFilter.isReady());
+        assertTrue(keyFilter.mightExist("new"));
+    }
+
+    @Test
+    void shouldAddPersistedKeysAndPublishThem() {
+        // given
+        when(loanRepository.findKeysAfter(eq(0L), any())).thenReturn(List.of());
+        keyFilter.rebuild();
+
+        // when
+        keyFilter.add("local");
+        keyFilter.onPersisted("remote");
+
+        // then
+        assertTrue(keyFilter.mightExist("local"));
+        assertTrue(keyFilter.mightExist("remote"));
+        verify(stringRedisTemplate).convertAndSend(PersistedLoanKeyFilter.PERSISTED_CHANNEL, "local");
+        verifyNoMoreInteractions(stringRedisTemplate);
+    }
+}
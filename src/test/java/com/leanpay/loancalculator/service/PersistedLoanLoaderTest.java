@@ -0,0 +1,100 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.config.LookupBatchingProperties;
+import com.leanpay.loancalculator.dto.response.LoanResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PersistedLoanLoaderTest {
+
+    @Mock
+    PersistedLoanReader reader;
+
+    PersistedLoanLoader loader;
+
+    ExecutorService requests = Executors.newFixedThreadPool(8);
+
+    @BeforeEach
+    void setUp() {
+        // long window, so everything loaded by a test ends up in one batch
+        loader = new PersistedLoanLoader(reader, new LookupBatchingProperties(true, 100, 10, Duration.ofMillis(500)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        loader.stop();
+        requests.shutdownNow();
+    }
+
+    @Test
+    void shouldResolveConcurrentLookupsWithOneQuery() {
+        // given
+        LoanResponse persisted = mock(LoanResponse.class);
+        when(reader.findResponses(Set.of("a", "b", "c"))).thenReturn(Map.of("a", persisted));
+        loader.start();
+
+        // when
+        List<CompletableFuture<Optional<LoanResponse>>> results = List.of("a", "b", "a", "c").stream()
+                .map(key -> CompletableFuture.supplyAsync(() -> loader.load(key), requests))
+                .toList();
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).orTimeout(5, TimeUnit.SECONDS).join();
+
+        // then
+        assertEquals(Optional.of(persisted), results.get(0).join());
+        assertEquals(Optional.empty(), results.get(1).join());
+        assertEquals(Optional.of(persisted), results.get(2).join());
+        assertEquals(Optional.empty(), results.get(3).join());
+        verify(reader).findResponses(any());
+        assertEquals(1, loader.batchCount());
+        assertEquals(4, loader.batchedLookupCount());
+        verifyNoMoreInteractions(reader);
+    }
+
+    @Test
+    void shouldQueryInCallerThreadWhenNotRunning() {
+        // given
+        when(reader.findResponse("a")).thenReturn(Optional.empty());
+
+        // when
+        Optional<LoanResponse> result = loader.load("a");
+
+        // then
+        assertTrue(result.isEmpty());
+        assertEquals(1, loader.callerLookupCount());
+        verify(reader, never()).findResponses(any());
+    }
+
+    @Test
+    void shouldPropagateFailureToEveryWaiter() {
+        // given
+        when(reader.findResponses(any())).thenThrow(new IllegalStateException("boom"));
+        loader.start();
+
+        // when
+        CompletableFuture<Optional<LoanResponse>> first = CompletableFuture.supplyAsync(() -> loader.load("a"), requests);
+        CompletableFuture<Optional<LoanResponse>> second = CompletableFuture.supplyAsync(() -> loader.load("b"), requests);
+
+        // then
+        assertThrows(Exception.class, () -> first.orTimeout(5, TimeUnit.SECONDS).join());
+        assertThrows(Exception.class, () -> second.orTimeout(5, TimeUnit.SECONDS).join());
+    }
+}
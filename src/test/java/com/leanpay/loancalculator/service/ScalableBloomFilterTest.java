@@ -0,0 +1,53 @@
+package com.leanpay.loancalculator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void shouldHaveNoFalseNegativesWhileGrowing() {
+        // given
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+
+        // when
+        IntStream.range(0, 20_000).forEach(i -> filter.put("key-" + i));
+
+        // then
+        assertTrue(IntStream.range(0, 20_000).allMatch(i -> filter.mightContain("key-" + i)));
+        assertTrue(filter.stageCount() > 1);
+        assertTrue(filter.approximateCount() > 19_000);
+    }
+
+    @Test
+    void shouldKeepFalsePositiveRateBelowTarget() {
+        // given
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        IntStream.range(0, 20_000).forEach(i -> filter.put("key-" + i));
+
+        // when
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("other-" + i))
+                .count();
+
+        // then
+        assertTrue(falsePositives < 1_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void shouldNotContainAnythingWhenEmpty() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+        assertFalse(filter.mightContain("key"));
+        assertEquals(0, filter.approximateCount());
+    }
+
+    @Test
+    void shouldRejectInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(100, 1));
+    }
+}
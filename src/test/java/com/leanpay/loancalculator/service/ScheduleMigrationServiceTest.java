@@ -0,0 +1,95 @@
+package com.leanpay.loancalculator.service;
+
+import com.leanpay.loancalculator.cache.LoanCacheFacade;
+import com.leanpay.loancalculator.entity.Installment;
+import com.leanpay.loancalculator.entity.Loan;
+import com.leanpay.loancalculator.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduleMigrationServiceTest {
+
+    @Mock
+    LoanRepository loanRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    LoanCacheFacade cacheFacade;
+
+    ScheduleMigrationService migrationService;
+
+    @BeforeEach
+    void setUp() {
+        migrationService = new ScheduleMigrationService(loanRepository,
+                new TransactionTemplate(transactionManager), cacheFacade);
+    }
+
+    @Test
+    void shouldEvictCachedResponsesOfMigratedLoansAfterCommit() {
+        // given
+        Loan migrated = loan(1L, "1000:5:2", new BigDecimal("502.61"));
+        Loan notRepresentable = loan(2L, "2000:5:2", new BigDecimal("502.615"));
+        when(loanRepository.findIdsWithoutSchedule(0, Limit.of(10))).thenReturn(List.of(1L, 2L));
+        when(loanRepository.findAllByIdIn(List.of(1L, 2L))).thenReturn(List.of(migrated, notRepresentable));
+
+        // when
+        OptionalLong last = migrationService.migrateBatch(0, 10);
+
+        // then
+        assertEquals(OptionalLong.of(2L), last);
+        assertNotNull(migrated.getSchedule());
+        InOrder inOrder = inOrder(transactionManager, cacheFacade);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(cacheFacade).evictFullResponse("1000:5:2");
+        verify(cacheFacade, never()).evictFullResponse("2000:5:2");
+    }
+
+    @Test
+    void shouldStopWhenNoRowStoredLoanIsLeft() {
+        when(loanRepository.findIdsWithoutSchedule(0, Limit.of(10))).thenReturn(List.of());
+
+        assertEquals(0, migrationService.migrateAll(10));
+        verifyNoInteractions(cacheFacade);
+    }
+
+    private static Loan loan(long id, String requestKey, BigDecimal balance) {
+        Loan loan = Loan.builder()
+                .id(id)
+                .requestKey(requestKey)
+                .build();
+        loan.addInstallments(List.of(
+                Installment.builder()
+                        .period(1)
+                        .payment(new BigDecimal("501.56"))
+                        .principal(new BigDecimal("497.39"))
+                        .interest(new BigDecimal("4.17"))
+                        .balance(balance)
+                        .build(),
+                Installment.builder()
+                        .period(2)
+                        .payment(new BigDecimal("504.70"))
+                        .principal(new BigDecimal("502.61"))
+                        .interest(new BigDecimal("2.09"))
+                        .balance(new BigDecimal("0.00"))
+                        .build()));
+        return loan;
+    }
+}